@@ -17,4 +17,16 @@ public class Constants {
     // REST
     public static final String URL_SEPARATOR = "/";
     public static final String API_V1 = "/api/v1";
+    public static final String MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+
+    // PROFILES
+    public static final String REACTIVE_PROFILE = "reactive";
+    public static final String SERVLET_PROFILE = "!" + REACTIVE_PROFILE;
+    public static final String REPLICAS_PROFILE = "replicas";
+    public static final String SERVLET_REPLICAS_PROFILE = REPLICAS_PROFILE + " & " + SERVLET_PROFILE;
+    public static final String MEMORY_PROFILE = "memory";
+    public static final String SERVLET_MEMORY_PROFILE = MEMORY_PROFILE + " & " + SERVLET_PROFILE;
+    public static final String PARTITIONED_PROFILE = "partitioned";
+    public static final String UNPARTITIONED_PROFILE = "!" + PARTITIONED_PROFILE;
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package ua.anton.tsa.testassignment.configuration;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Enables caching of single User reads.
+ * Cache size, TTL and statistics are configured by "spring.cache" properties, hit/miss, eviction and load time
+ * metrics are published as "cache.*" meters.
+ * The cache advice wraps the transaction advice, which has the default lowest precedence, so entries are evicted after
+ * the transaction of a write has been committed and a read that ran before the commit cannot cache the old row again.
+ */
+@Configuration
+@EnableCaching(order = CacheConfiguration.CACHE_ADVICE_ORDER)
+public class CacheConfiguration {
+    public static final String USERS_CACHE = "users";
+    static final int CACHE_ADVICE_ORDER = Ordered.LOWEST_PRECEDENCE - 1;
+}
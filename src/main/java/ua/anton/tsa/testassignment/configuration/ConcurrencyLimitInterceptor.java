@@ -0,0 +1,138 @@
+package ua.anton.tsa.testassignment.configuration;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import ua.anton.tsa.testassignment.exceptions.ConcurrencyLimitException;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static ua.anton.tsa.testassignment.Constants.SERVLET_PROFILE;
+
+/**
+ * Adaptive limit of concurrent requests of the servlet stack, so requests are shed with
+ * {@link ConcurrencyLimitException} instead of queueing for a pool connection when the database slows down.
+ * The limit follows AIMD: it grows by one for every request completed under "concurrency-limit.latency-threshold"
+ * while at least half of it is in use, and is multiplied by "concurrency-limit.backoff-ratio" for every slower or
+ * failed (5xx) request. Permits and the limit are updated with compare-and-set only.
+ * Streamed exports keep their permit, and the pool connection they read from, until the async request completes,
+ * and are sampled then by the {@link CallableProcessingInterceptor} side registered in {@link WebConfiguration}, so
+ * long exports back the limit off while they keep connections busy.
+ * The limit, requests in flight and rejections are published as "api.concurrency.limit",
+ * "api.concurrency.in.flight" and "api.concurrency.rejected" meters.
+ * It is not created when "concurrency-limit.enabled" is false.
+ */
+@Component
+@Profile(SERVLET_PROFILE)
+@ConditionalOnProperty(prefix = "concurrency-limit", name = "enabled", matchIfMissing = true)
+public class ConcurrencyLimitInterceptor implements AsyncHandlerInterceptor, CallableProcessingInterceptor {
+    private static final String STARTED = ConcurrencyLimitInterceptor.class.getName() + ".STARTED";
+    private static final String FAILED = ConcurrencyLimitInterceptor.class.getName() + ".FAILED";
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejected;
+
+    public ConcurrencyLimitInterceptor(ConcurrencyLimitProperties concurrencyLimitProperties,
+                                       MeterRegistry meterRegistry) {
+        this.minLimit = concurrencyLimitProperties.minLimit();
+        this.maxLimit = concurrencyLimitProperties.maxLimit();
+        this.latencyThresholdNanos = concurrencyLimitProperties.latencyThreshold().toNanos();
+        this.backoffRatio = concurrencyLimitProperties.backoffRatio();
+        this.limit = new AtomicInteger(concurrencyLimitProperties.initialLimit());
+        Gauge.builder("api.concurrency.limit", limit, AtomicInteger::get)
+                .description("Concurrent requests allowed")
+                .register(meterRegistry);
+        Gauge.builder("api.concurrency.in.flight", inFlight, AtomicInteger::get)
+                .description("Concurrent requests in progress")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("api.concurrency.rejected")
+                .description("Requests rejected over the concurrency limit")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws ConcurrencyLimitException {
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        for (int current = inFlight.get(); ; current = inFlight.get()) {
+            if (current >= limit.get()) {
+                rejected.increment();
+                throw new ConcurrencyLimitException("Service is overloaded, concurrency limit is reached");
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                request.setAttribute(STARTED, System.nanoTime());
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Completes requests handled synchronously, async requests are completed by
+     * {@link #afterCompletion(NativeWebRequest, Callable)}
+     */
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception exception) {
+        if (request.getDispatcherType() == DispatcherType.ASYNC
+                || !(request.getAttribute(STARTED) instanceof Long started)) {
+            return;
+        }
+        request.removeAttribute(STARTED);
+        complete(started, exception != null || response.getStatus() >= HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+    }
+
+    @Override
+    public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) {
+        if (concurrentResult instanceof Throwable) {
+            request.setAttribute(FAILED, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    /**
+     * Completes async requests once the async processing is over, whether it has finished, failed or timed out
+     */
+    @Override
+    public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+        if (!(request.getAttribute(STARTED, RequestAttributes.SCOPE_REQUEST) instanceof Long started)) {
+            return;
+        }
+        request.removeAttribute(STARTED, RequestAttributes.SCOPE_REQUEST);
+        HttpServletResponse response = request.getNativeResponse(HttpServletResponse.class);
+        complete(started, request.getAttribute(FAILED, RequestAttributes.SCOPE_REQUEST) != null
+                || response != null && response.getStatus() >= HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+    }
+
+    /**
+     * Releases the permit of the request and adjusts the limit by the sample
+     *
+     * @param started - {@link System#nanoTime()} the request was admitted at
+     * @param failed  - true if the request has failed
+     */
+    private void complete(long started, boolean failed) {
+        int current = inFlight.getAndDecrement();
+        boolean overloaded = System.nanoTime() - started > latencyThresholdNanos || failed;
+        if (overloaded) {
+            limit.updateAndGet(value -> Math.max(minLimit, (int) (value * backoffRatio)));
+        } else {
+            limit.updateAndGet(value -> current * 2 >= value ? Math.min(maxLimit, value + 1) : value);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package ua.anton.tsa.testassignment.configuration;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Class for proper injection of "concurrency-limit.*" properties
+ *
+ * @param initialLimit     - concurrent requests allowed on start
+ * @param minLimit         - lowest limit the backoff goes to
+ * @param maxLimit         - highest limit the increase goes to
+ * @param latencyThreshold - latency of a request considered a sign of overload
+ * @param backoffRatio     - factor the limit is multiplied by on overload
+ */
+@Validated
+@ConfigurationProperties(prefix = "concurrency-limit")
+public record ConcurrencyLimitProperties(
+        @Positive int initialLimit,
+        @Positive int minLimit,
+        @Positive int maxLimit,
+        @NotNull Duration latencyThreshold,
+        @Positive @DecimalMax("1.0") double backoffRatio
+) {}
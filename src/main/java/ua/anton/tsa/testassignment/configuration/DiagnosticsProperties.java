@@ -0,0 +1,23 @@
+package ua.anton.tsa.testassignment.configuration;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Class for proper injection of "diagnostics.*" properties
+ */
+@Validated
+@ConfigurationProperties(prefix = "diagnostics")
+public record DiagnosticsProperties(@NotNull Pinning pinning, @NotNull ErrorLog errorLog) {
+    public record Pinning(@NotNull Duration threshold) {}
+
+    public record ErrorLog(
+            @NotNull Duration interval,
+            @PositiveOrZero int clientErrors,
+            @PositiveOrZero int serverErrors
+    ) {}
+}
@@ -0,0 +1,107 @@
+package ua.anton.tsa.testassignment.configuration;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.internal.StatisticsImpl;
+import org.hibernate.stat.spi.StatisticsFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+import static ua.anton.tsa.testassignment.Constants.SERVLET_PROFILE;
+
+/**
+ * Publishes Hibernate work done by every request of the servlet stack.
+ * Hibernate statistics are collected by {@link RequestStatistics}, which also counts queries, prepared statements and
+ * entity loads of the current thread, and the counts are recorded when the request completes as
+ * "hibernate.request.queries", "hibernate.request.statements" and "hibernate.request.entity.loads" summaries
+ * tagged with the URI template and method. Totals are published by Spring Boot as "hibernate.*" meters.
+ * Rows written by export streaming tasks are read on another thread and are counted in the totals only.
+ */
+@Component
+@Profile(SERVLET_PROFILE)
+@RequiredArgsConstructor
+public class HibernateRequestMetrics implements HandlerInterceptor, HibernatePropertiesCustomizer {
+    private static final String STATISTICS_FACTORY = "hibernate.stats.factory";
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(STATISTICS_FACTORY, (StatisticsFactory) RequestStatistics::new);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RequestStatistics.COUNTS.remove();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception exception) {
+        Counts counts = RequestStatistics.COUNTS.get();
+        RequestStatistics.COUNTS.remove();
+        Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        Tags tags = Tags.of("method", request.getMethod(), "uri", uri == null ? UNKNOWN_URI : uri.toString());
+        record("hibernate.request.queries", "Queries executed by a request", tags, counts.queries);
+        record("hibernate.request.statements", "JDBC statements prepared by a request", tags, counts.statements);
+        record("hibernate.request.entity.loads", "Entities loaded by a request", tags, counts.entityLoads);
+    }
+
+    private void record(String name, String description, Tags tags, long amount) {
+        DistributionSummary.builder(name)
+                .description(description)
+                .tags(tags)
+                .register(meterRegistry)
+                .record(amount);
+    }
+
+    /**
+     * Hibernate work of the current thread since the request started
+     */
+    private static class Counts {
+        private long queries;
+        private long statements;
+        private long entityLoads;
+    }
+
+    /**
+     * Hibernate statistics which also count work of the current thread
+     */
+    private static class RequestStatistics extends StatisticsImpl {
+        private static final ThreadLocal<Counts> COUNTS = ThreadLocal.withInitial(Counts::new);
+
+        RequestStatistics(SessionFactoryImplementor sessionFactory) {
+            super(sessionFactory);
+        }
+
+        @Override
+        public void queryExecuted(String hql, int rows, long time) {
+            super.queryExecuted(hql, rows, time);
+            COUNTS.get().queries++;
+        }
+
+        @Override
+        public void prepareStatement() {
+            super.prepareStatement();
+            COUNTS.get().statements++;
+        }
+
+        @Override
+        public void loadEntity(String entityName) {
+            super.loadEntity(entityName);
+            COUNTS.get().entityLoads++;
+        }
+    }
+}
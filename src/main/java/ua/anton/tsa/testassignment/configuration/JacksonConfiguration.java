@@ -3,7 +3,9 @@ package ua.anton.tsa.testassignment.configuration;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.cfg.MapperBuilder;
 import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -25,11 +27,24 @@ public class JacksonConfiguration {
      */
     @Bean
     public ObjectMapper objectMapper() {
-        ObjectMapper mapper = JsonMapper.builder()
-                        .addModule(new JavaTimeModule())
+        return configure(JsonMapper.builder());
+    }
+
+    /**
+     * Create a Smile (binary JSON) mapper with the same configurations as {@link #objectMapper()}
+     * It is not a bean, so {@link ObjectMapper} injection points keep getting the JSON mapper.
+     *
+     * @return the {@link ObjectMapper} object of customized Smile mapper
+     */
+    public static ObjectMapper smileMapper() {
+        return configure(SmileMapper.builder());
+    }
+
+    private static ObjectMapper configure(MapperBuilder<?, ?> builder) {
+        return builder
+                .addModule(new JavaTimeModule())
+                .enable(SerializationFeature.WRAP_ROOT_VALUE)
+                .enable(DeserializationFeature.UNWRAP_ROOT_VALUE)
                 .build();
-        mapper.configure(SerializationFeature.WRAP_ROOT_VALUE, true);
-        mapper.configure(DeserializationFeature.UNWRAP_ROOT_VALUE, true);
-        return mapper;
     }
 }
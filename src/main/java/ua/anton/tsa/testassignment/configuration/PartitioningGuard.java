@@ -0,0 +1,65 @@
+package ua.anton.tsa.testassignment.configuration;
+
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.callback.Callback;
+import org.flywaydb.core.api.callback.Context;
+import org.flywaydb.core.api.callback.Event;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static ua.anton.tsa.testassignment.Constants.PARTITIONED_PROFILE;
+import static ua.anton.tsa.testassignment.Constants.UNPARTITIONED_PROFILE;
+
+/**
+ * Stops migrations without "partitioned" profile of a PostgreSQL database whose usr table has been partitioned by
+ * db/partitioned migrations. There is no migration back to a plain table, and without the profile the partitions of
+ * coming decades are not created anymore and a later migration of db/migration fails validation of the applied one,
+ * so the profile must stay on once it has been used.
+ */
+@Component
+@Profile(UNPARTITIONED_PROFILE)
+public class PartitioningGuard implements Callback {
+    private static final String POSTGRESQL = "PostgreSQL";
+    private static final String IS_PARTITIONED = """
+            SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('usr'))""";
+
+    @Override
+    public boolean supports(Event event, Context context) {
+        return event == Event.BEFORE_VALIDATE || event == Event.BEFORE_MIGRATE;
+    }
+
+    @Override
+    public boolean canHandleInTransaction(Event event, Context context) {
+        return true;
+    }
+
+    @Override
+    public void handle(Event event, Context context) {
+        try {
+            Connection connection = context.getConnection();
+            if (POSTGRESQL.equals(connection.getMetaData().getDatabaseProductName()) && isPartitioned(connection)) {
+                throw new FlywayException("Table usr is partitioned, migrate it with \"" + PARTITIONED_PROFILE
+                        + "\" profile active");
+            }
+        } catch (SQLException e) {
+            throw new FlywayException("Unable to check partitioning of table usr", e);
+        }
+    }
+
+    @Override
+    public String getCallbackName() {
+        return PartitioningGuard.class.getSimpleName();
+    }
+
+    private static boolean isPartitioned(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(IS_PARTITIONED)) {
+            return resultSet.next() && resultSet.getBoolean(1);
+        }
+    }
+}
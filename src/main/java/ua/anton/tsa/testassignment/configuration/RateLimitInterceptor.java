@@ -0,0 +1,127 @@
+package ua.anton.tsa.testassignment.configuration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import ua.anton.tsa.testassignment.exceptions.RateLimitException;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static ua.anton.tsa.testassignment.Constants.SERVLET_PROFILE;
+
+/**
+ * Limits request rate of every client to the endpoints listed in "rate-limit.limits" of the servlet stack, so a
+ * single client cannot take all pool connections. A client is identified by its authenticated principal, or by
+ * remote address when the request is not authenticated. Headers sent by the client, e.g. API keys, are not verified
+ * here and are not trusted as identity, so rotating them does not reset the limit.
+ * Every client has a token bucket per endpoint, kept as the theoretical arrival time of its next request (GCRA) and
+ * updated with compare-and-set, so request threads never block each other. Requests over the limit are rejected
+ * with {@link RateLimitException} before the handler runs.
+ * It is not created when "rate-limit.enabled" is false, e.g. for load benchmarks sending from one address.
+ */
+@Component
+@Profile(SERVLET_PROFILE)
+@ConditionalOnProperty(prefix = "rate-limit", name = "enabled", matchIfMissing = true)
+public class RateLimitInterceptor implements HandlerInterceptor {
+    private static final long NO_WAIT = 0;
+
+    private static final String PRINCIPAL_PREFIX = "principal:";
+    private static final String ADDRESS_PREFIX = "address:";
+
+    private final Map<String, Map<String, Buckets>> limits;
+
+    public RateLimitInterceptor(RateLimitProperties rateLimitProperties) {
+        this.limits = rateLimitProperties.limits()
+                .stream()
+                .collect(Collectors.groupingBy(
+                        RateLimitProperties.Limit::path,
+                        Collectors.toUnmodifiableMap(
+                                limit -> limit.method().name(),
+                                limit -> new Buckets(limit, rateLimitProperties.maxClients())
+                        )
+                ));
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws RateLimitException {
+        Object path = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        Map<String, Buckets> methods = path == null ? null : limits.get(path.toString());
+        Buckets buckets = methods == null ? null : methods.get(request.getMethod());
+        if (buckets == null) {
+            return true;
+        }
+        long waitNanos = buckets.acquire(client(request), System.nanoTime());
+        if (waitNanos > NO_WAIT) {
+            throw new RateLimitException(
+                    "Rate limit of " + request.getMethod() + " " + path + " is exceeded",
+                    Duration.ofNanos(waitNanos)
+            );
+        }
+        return true;
+    }
+
+    private static String client(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        return principal == null ? ADDRESS_PREFIX + request.getRemoteAddr() : PRINCIPAL_PREFIX + principal.getName();
+    }
+
+    /**
+     * Token buckets of one endpoint by client.
+     * A bucket holds "capacity" tokens and gets one back every "period / capacity". Buckets idle for "period" are
+     * full and are dropped. When "rate-limit.max-clients" buckets are tracked, new clients share one overflow bucket
+     * until tracked buckets are dropped, so a flood of new identities cannot evict the buckets of known clients.
+     */
+    private static class Buckets {
+        private final long emissionNanos;
+        private final long periodNanos;
+        private final long maxClients;
+        private final Cache<String, AtomicLong> arrivals;
+        private final AtomicLong overflow = new AtomicLong(System.nanoTime());
+
+        private Buckets(RateLimitProperties.Limit limit, long maxClients) {
+            this.periodNanos = limit.period().toNanos();
+            this.emissionNanos = periodNanos / limit.capacity();
+            this.maxClients = maxClients;
+            this.arrivals = Caffeine.newBuilder()
+                    .expireAfterAccess(limit.period())
+                    .maximumSize(maxClients)
+                    .build();
+        }
+
+        /**
+         * @param client - client identity
+         * @param now    - current {@link System#nanoTime()}
+         * @return {@link #NO_WAIT} if a token is taken, or nanoseconds until the next token otherwise
+         */
+        private long acquire(String client, long now) {
+            AtomicLong arrival = arrivals.getIfPresent(client);
+            if (arrival == null) {
+                arrival = arrivals.estimatedSize() < maxClients
+                        ? arrivals.get(client, key -> new AtomicLong(now))
+                        : overflow;
+            }
+            while (true) {
+                long current = arrival.get();
+                long next = Math.max(current, now) + emissionNanos;
+                long waitNanos = next - now - periodNanos;
+                if (waitNanos > NO_WAIT) {
+                    return waitNanos;
+                }
+                if (arrival.compareAndSet(current, next)) {
+                    return NO_WAIT;
+                }
+            }
+        }
+    }
+}
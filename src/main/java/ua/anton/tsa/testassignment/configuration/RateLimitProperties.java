@@ -0,0 +1,35 @@
+package ua.anton.tsa.testassignment.configuration;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.HttpMethod;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Class for proper injection of "rate-limit.*" properties
+ */
+@Validated
+@ConfigurationProperties(prefix = "rate-limit")
+public record RateLimitProperties(
+        @Positive long maxClients,
+        @NotNull List<@Valid Limit> limits
+) {
+    /**
+     * @param method   - HTTP method of the endpoint
+     * @param path     - URI template of the endpoint, e.g. "/api/v1/users/{id}"
+     * @param capacity - requests a client can send at once
+     * @param period   - time to refill the whole capacity
+     */
+    public record Limit(
+            @NotNull HttpMethod method,
+            @NotBlank String path,
+            @Positive int capacity,
+            @NotNull Duration period
+    ) {}
+}
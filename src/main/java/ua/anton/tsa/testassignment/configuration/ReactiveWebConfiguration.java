@@ -0,0 +1,48 @@
+package ua.anton.tsa.testassignment.configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.web.ReactivePageableHandlerMethodArgumentResolver;
+import org.springframework.data.web.ReactiveSortHandlerMethodArgumentResolver;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.result.method.annotation.ArgumentResolverConfigurer;
+
+import static ua.anton.tsa.testassignment.Constants.REACTIVE_PROFILE;
+import static ua.anton.tsa.testassignment.Constants.SMILE_VALUE;
+
+/**
+ * Configuration of the reactive WebFlux stack.
+ * Netty is used as the server even though Tomcat is on the classpath for the servlet stack,
+ * {@link org.springframework.data.domain.Pageable} and {@link org.springframework.data.domain.Sort} arguments are
+ * resolved, and Smile bodies are read and written, the same way as by Spring MVC, see {@link WebConfiguration}.
+ */
+@Configuration
+@Profile(REACTIVE_PROFILE)
+public class ReactiveWebConfiguration implements WebFluxConfigurer {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        ObjectMapper smileMapper = JacksonConfiguration.smileMapper();
+        MediaType smile = MediaType.parseMediaType(SMILE_VALUE);
+        configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper, smile));
+        configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper, smile));
+    }
+
+    @Override
+    public void configureArgumentResolvers(ArgumentResolverConfigurer configurer) {
+        ReactiveSortHandlerMethodArgumentResolver sortResolver = new ReactiveSortHandlerMethodArgumentResolver();
+        configurer.addCustomResolver(sortResolver, new ReactivePageableHandlerMethodArgumentResolver(sortResolver));
+    }
+}
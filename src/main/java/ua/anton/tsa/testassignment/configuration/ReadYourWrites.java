@@ -0,0 +1,72 @@
+package ua.anton.tsa.testassignment.configuration;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import static ua.anton.tsa.testassignment.Constants.SERVLET_REPLICAS_PROFILE;
+
+/**
+ * Read-your-writes guarantee on top of replica routing.
+ * Responses to writes carry a session token with the write time in the "replication.session-header" header, see
+ * {@link ua.anton.tsa.testassignment.controller.handler.ReadYourWritesAdvice}. A request sending the token back
+ * within "replication.max-lag" is pinned to the primary, so the client sees its own writes; older, future or
+ * malformed tokens are ignored.
+ */
+@Component
+@Profile(SERVLET_REPLICAS_PROFILE)
+public class ReadYourWrites implements AsyncHandlerInterceptor {
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private final String sessionHeader;
+    private final long maxLagMillis;
+
+    public ReadYourWrites(ReplicationProperties replicationProperties) {
+        this.sessionHeader = replicationProperties.sessionHeader();
+        this.maxLagMillis = replicationProperties.maxLag().toMillis();
+    }
+
+    /**
+     * @return true if reads of the current thread must go to the primary
+     */
+    public static boolean isPinned() {
+        return PINNED.get() != null;
+    }
+
+    /**
+     * @return {@link String} session token issued after a committed write
+     */
+    public static String token() {
+        return Long.toString(System.currentTimeMillis());
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String token = request.getHeader(sessionHeader);
+        if (token != null) {
+            try {
+                long age = System.currentTimeMillis() - Long.parseLong(token.trim());
+                if (age >= 0 && age < maxLagMillis) {
+                    PINNED.set(Boolean.TRUE);
+                }
+            } catch (NumberFormatException ignored) {
+                // not a token of this service, reads stay on replicas
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        PINNED.remove();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception exception) {
+        PINNED.remove();
+    }
+}
@@ -0,0 +1,129 @@
+package ua.anton.tsa.testassignment.configuration;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.util.CollectionUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static ua.anton.tsa.testassignment.Constants.SERVLET_REPLICAS_PROFILE;
+
+/**
+ * Routes read-only transactions to replica pools in "replicas" profile.
+ * The primary pool is configured by "spring.datasource" as usual, replica pools by "replication.replicas" with the
+ * pool settings of the primary. The application {@link DataSource} hands out lazy connections: a connection of a
+ * read-only transaction is taken from a replica, any other one from the primary. Requests pinned by
+ * {@link ReadYourWrites} read from the primary as well. All read-only transactions of one request use the same
+ * randomly picked replica, so a page and the storage version it is tagged with describe the state of one replica.
+ * Rows written recently are not cached from replicas, see {@link ua.anton.tsa.testassignment.service.RecentWrites}.
+ * Replica pools publish "hikaricp.*" meters tagged with "replica-N" pool names.
+ */
+@Configuration
+@Profile(SERVLET_REPLICAS_PROFILE)
+public class ReplicaRoutingConfiguration {
+    private static final String REPLICA_POOL = "replica-";
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaDataSource replicaDataSource(HikariDataSource primaryDataSource,
+                                               ReplicationProperties replicationProperties,
+                                               ObjectProvider<MeterRegistry> meterRegistry) {
+        if (CollectionUtils.isEmpty(replicationProperties.replicas())) {
+            throw new IllegalStateException("\"replication.replicas\" must be set in \"replicas\" profile");
+        }
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (ReplicationProperties.Replica replica : replicationProperties.replicas()) {
+            HikariConfig config = new HikariConfig();
+            primaryDataSource.copyStateTo(config);
+            config.setPoolName(REPLICA_POOL + replicas.size());
+            config.setJdbcUrl(replica.url());
+            if (replica.username() != null) {
+                config.setUsername(replica.username());
+                config.setPassword(replica.password());
+            }
+            config.setReadOnly(true);
+            meterRegistry.ifAvailable(registry ->
+                    config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+            replicas.add(new HikariDataSource(config));
+        }
+        return new ReplicaDataSource(primaryDataSource, replicas);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+
+    /**
+     * Data source of read-only transactions: the replica of the request, or the primary for pinned requests
+     */
+    public static class ReplicaDataSource extends AbstractRoutingDataSource implements Closeable {
+        private static final String PRIMARY = "primary";
+        private static final String REPLICA_ATTRIBUTE = ReplicaDataSource.class.getName() + ".replica";
+
+        private final List<HikariDataSource> replicas;
+
+        private ReplicaDataSource(DataSource primary, List<HikariDataSource> replicas) {
+            this.replicas = replicas;
+            Map<Object, Object> targets = new HashMap<>();
+            targets.put(PRIMARY, primary);
+            for (int index = 0; index < replicas.size(); index++) {
+                targets.put(index, replicas.get(index));
+            }
+            setTargetDataSources(targets);
+        }
+
+        @Override
+        protected Object determineCurrentLookupKey() {
+            if (ReadYourWrites.isPinned()) {
+                return PRIMARY;
+            }
+            RequestAttributes request = RequestContextHolder.getRequestAttributes();
+            if (request == null) {
+                return randomReplica();
+            }
+            Object replica = request.getAttribute(REPLICA_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (replica == null) {
+                replica = randomReplica();
+                request.setAttribute(REPLICA_ATTRIBUTE, replica, RequestAttributes.SCOPE_REQUEST);
+            }
+            return replica;
+        }
+
+        private int randomReplica() {
+            return replicas.size() == 1 ? 0 : ThreadLocalRandom.current().nextInt(replicas.size());
+        }
+
+        @Override
+        public void close() {
+            replicas.forEach(HikariDataSource::close);
+        }
+    }
+}
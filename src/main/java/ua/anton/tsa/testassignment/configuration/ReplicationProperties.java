@@ -0,0 +1,32 @@
+package ua.anton.tsa.testassignment.configuration;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.List;
+import java.time.Duration;
+
+/**
+ * Class for proper injection of "replication.*" properties
+ *
+ * @param replicas      - read replicas of "spring.datasource", used in "replicas" profile
+ * @param maxLag        - replication lag after which a write is visible on every replica
+ * @param sessionHeader - header carrying the read-your-writes session token
+ */
+@Validated
+@ConfigurationProperties(prefix = "replication")
+public record ReplicationProperties(
+        List<@Valid Replica> replicas,
+        @NotNull Duration maxLag,
+        @NotBlank String sessionHeader
+) {
+    /**
+     * @param url      - JDBC URL of the replica
+     * @param username - login of the replica, the primary one when not set
+     * @param password - password of the replica, the primary one when not set
+     */
+    public record Replica(@NotBlank String url, String username, String password) {}
+}
@@ -0,0 +1,193 @@
+package ua.anton.tsa.testassignment.configuration;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.hibernate.SessionEventListener;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.StringJoiner;
+
+/**
+ * Phase clock of the current request, see {@link ServerTimingFilter}.
+ * Time is charged to one phase at a time: entering a phase charges the time elapsed since the previous switch to the
+ * phase being left, so nested phases, e.g. database round trips of a service call, are not counted twice.
+ * A switch costs one {@link System#nanoTime()} call and does nothing on threads without a started clock, e.g. in
+ * export streaming tasks.
+ */
+public final class ServerTiming {
+    public static final String REQUEST_HEADER = "X-Server-Timing";
+    public static final String RESPONSE_HEADER = "Server-Timing";
+
+    private static final Phase[] PHASES = Phase.values();
+    private static final ThreadLocal<ServerTiming> CURRENT = new ThreadLocal<>();
+
+    private final long[] nanos = new long[PHASES.length];
+    private final long start;
+    private long since;
+    private Phase phase = Phase.OTHER;
+
+    private ServerTiming() {
+        this.start = System.nanoTime();
+        this.since = start;
+    }
+
+    /**
+     * Phases of a request, "other" is the time spent by the framework between them
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public enum Phase {
+        OTHER("other"),
+        VALIDATION("validation"),
+        SERVICE("service"),
+        DB("db"),
+        MAPPING("mapping"),
+        SERIALIZATION("serialization");
+
+        private final String metricName;
+    }
+
+    /**
+     * Starts the clock of the current thread
+     *
+     * @return started {@link ServerTiming}
+     */
+    static ServerTiming start() {
+        ServerTiming timing = new ServerTiming();
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    /**
+     * Stops the clock of the current thread and charges the running phase
+     */
+    void stop() {
+        switchTo(phase);
+        CURRENT.remove();
+    }
+
+    /**
+     * @param phase - {@link Phase} to enter
+     * @return the left {@link Phase} to return to, or null without a started clock
+     */
+    public static Phase enter(Phase phase) {
+        ServerTiming timing = CURRENT.get();
+        return timing == null ? null : timing.switchTo(phase);
+    }
+
+    /**
+     * @param previous - {@link Phase} returned by {@link #enter(Phase)}
+     */
+    public static void exit(Phase previous) {
+        if (previous != null) {
+            enter(previous);
+        }
+    }
+
+    /**
+     * @return {@link ServerTiming} of the current thread or null
+     */
+    public static ServerTiming current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * @param phase - {@link Phase} to charge invocations to
+     * @return {@link MethodInterceptor} charging every invocation to the phase
+     */
+    static MethodInterceptor interceptor(Phase phase) {
+        return invocation -> {
+            Phase previous = enter(phase);
+            try {
+                return invocation.proceed();
+            } finally {
+                exit(previous);
+            }
+        };
+    }
+
+    /**
+     * @param phase - {@link Phase} of the request
+     * @return time charged to the phase so far
+     */
+    public Duration duration(Phase phase) {
+        return Duration.ofNanos(nanos[phase.ordinal()]);
+    }
+
+    /**
+     * @return "Server-Timing" header value with the phases charged so far and the total time
+     */
+    public String header() {
+        switchTo(phase);
+        StringJoiner header = new StringJoiner(", ");
+        for (Phase timed : PHASES) {
+            if (nanos[timed.ordinal()] > 0) {
+                header.add(metric(timed.getMetricName(), nanos[timed.ordinal()]));
+            }
+        }
+        return header.add(metric("total", since - start)).toString();
+    }
+
+    private Phase switchTo(Phase next) {
+        long now = System.nanoTime();
+        nanos[phase.ordinal()] += now - since;
+        since = now;
+        Phase previous = phase;
+        phase = next;
+        return previous;
+    }
+
+    private static String metric(String name, long nanos) {
+        return String.format(Locale.ROOT, "%s;dur=%.3f", name, nanos / 1_000_000.0);
+    }
+
+    /**
+     * Charges JDBC connection acquisition, statement preparation and execution of a Hibernate session to
+     * {@link Phase#DB}, registered by "hibernate.session.events.auto"
+     */
+    public static class DatabaseListener implements SessionEventListener {
+        private transient Phase previous;
+
+        @Override
+        public void jdbcConnectionAcquisitionStart() {
+            previous = enter(Phase.DB);
+        }
+
+        @Override
+        public void jdbcConnectionAcquisitionEnd() {
+            exit(previous);
+        }
+
+        @Override
+        public void jdbcPrepareStatementStart() {
+            previous = enter(Phase.DB);
+        }
+
+        @Override
+        public void jdbcPrepareStatementEnd() {
+            exit(previous);
+        }
+
+        @Override
+        public void jdbcExecuteStatementStart() {
+            previous = enter(Phase.DB);
+        }
+
+        @Override
+        public void jdbcExecuteStatementEnd() {
+            exit(previous);
+        }
+
+        @Override
+        public void jdbcExecuteBatchStart() {
+            previous = enter(Phase.DB);
+        }
+
+        @Override
+        public void jdbcExecuteBatchEnd() {
+            exit(previous);
+        }
+    }
+}
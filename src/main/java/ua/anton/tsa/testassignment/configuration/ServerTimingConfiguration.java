@@ -0,0 +1,87 @@
+package ua.anton.tsa.testassignment.configuration;
+
+import jakarta.validation.Validator;
+import org.aopalliance.aop.Advice;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.RootClassFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.validation.beanvalidation.FilteredMethodValidationPostProcessor;
+import org.springframework.boot.validation.beanvalidation.MethodValidationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.validation.beanvalidation.MethodValidationPostProcessor;
+import ua.anton.tsa.testassignment.configuration.ServerTiming.Phase;
+import ua.anton.tsa.testassignment.mapper.UserMapper;
+import ua.anton.tsa.testassignment.service.UsersService;
+
+import java.util.function.Supplier;
+
+import static ua.anton.tsa.testassignment.Constants.SERVLET_PROFILE;
+
+/**
+ * Hooks charging request time to {@link ServerTiming} phases on the servlet stack:
+ * {@link UsersService} and {@link UserMapper} calls, controller method validation, see also
+ * {@link WebConfiguration#getValidator()} for request body validation, and Hibernate JDBC round trips.
+ */
+@Configuration
+@Profile(SERVLET_PROFILE)
+public class ServerTimingConfiguration {
+    private static final String SESSION_EVENTS_LISTENER = "hibernate.session.events.auto";
+    private static final String PROXY_TARGET_CLASS = "spring.aop.proxy-target-class";
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor serviceTimingAdvisor() {
+        return advisor(UsersService.class, Phase.SERVICE);
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor mappingTimingAdvisor() {
+        return advisor(UserMapper.class, Phase.MAPPING);
+    }
+
+    /**
+     * The same method validation as configured by Spring Boot, with validation charged to {@link Phase#VALIDATION}
+     */
+    @Bean
+    public static MethodValidationPostProcessor methodValidationPostProcessor(
+            Environment environment,
+            ObjectProvider<Validator> validator,
+            ObjectProvider<MethodValidationExcludeFilter> excludeFilters
+    ) {
+        MethodValidationPostProcessor processor =
+                new FilteredMethodValidationPostProcessor(excludeFilters.orderedStream()) {
+                    @Override
+                    protected Advice createMethodValidationAdvice(Supplier<Validator> validator) {
+                        return super.createMethodValidationAdvice(() -> new TimedValidator(validator.get()));
+                    }
+                };
+        processor.setProxyTargetClass(environment.getProperty(PROXY_TARGET_CLASS, Boolean.class, true));
+        processor.setValidatorProvider(validator);
+        return processor;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer serverTimingHibernatePropertiesCustomizer() {
+        return hibernateProperties ->
+                hibernateProperties.put(SESSION_EVENTS_LISTENER, ServerTiming.DatabaseListener.class.getName());
+    }
+
+    private static Advisor advisor(Class<?> type, Phase phase) {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                new ComposablePointcut(new RootClassFilter(type)),
+                ServerTiming.interceptor(phase)
+        );
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+}
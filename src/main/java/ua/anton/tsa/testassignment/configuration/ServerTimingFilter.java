@@ -0,0 +1,60 @@
+package ua.anton.tsa.testassignment.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import ua.anton.tsa.testassignment.configuration.ServerTiming.Phase;
+
+import java.io.IOException;
+
+import static ua.anton.tsa.testassignment.Constants.SERVLET_PROFILE;
+
+/**
+ * Runs a {@link ServerTiming} clock for every request of the servlet stack and records its phases as
+ * "http.server.phases" timers tagged with the phase, URI template and method.
+ * Phases are charged by {@link ServerTimingConfiguration} hooks, the "Server-Timing" response header is written
+ * on request, see {@link ua.anton.tsa.testassignment.controller.handler.ServerTimingAdvice}.
+ */
+@Component
+@Profile(SERVLET_PROFILE)
+@RequiredArgsConstructor
+public class ServerTimingFilter extends OncePerRequestFilter {
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ServerTiming timing = ServerTiming.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            timing.stop();
+            record(request, timing);
+        }
+    }
+
+    private void record(HttpServletRequest request, ServerTiming timing) {
+        Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        for (Phase phase : Phase.values()) {
+            if (!timing.duration(phase).isZero()) {
+                Timer.builder("http.server.phases")
+                        .description("Time spent by requests in every phase")
+                        .tag("phase", phase.getMetricName())
+                        .tag("method", request.getMethod())
+                        .tag("uri", uri == null ? UNKNOWN_URI : uri.toString())
+                        .register(meterRegistry)
+                        .record(timing.duration(phase));
+            }
+        }
+    }
+}
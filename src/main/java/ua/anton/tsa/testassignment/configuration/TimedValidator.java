@@ -0,0 +1,89 @@
+package ua.anton.tsa.testassignment.configuration;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.validation.executable.ExecutableValidator;
+import jakarta.validation.metadata.BeanDescriptor;
+import lombok.RequiredArgsConstructor;
+import ua.anton.tsa.testassignment.configuration.ServerTiming.Phase;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * {@link Validator} charging bean and method validation to {@link Phase#VALIDATION} of the current request
+ */
+@RequiredArgsConstructor
+class TimedValidator implements Validator, ExecutableValidator {
+    private final Validator validator;
+
+    @Override
+    public <T> Set<ConstraintViolation<T>> validate(T object, Class<?>... groups) {
+        return timed(() -> validator.validate(object, groups));
+    }
+
+    @Override
+    public <T> Set<ConstraintViolation<T>> validateProperty(T object, String propertyName, Class<?>... groups) {
+        return timed(() -> validator.validateProperty(object, propertyName, groups));
+    }
+
+    @Override
+    public <T> Set<ConstraintViolation<T>> validateValue(Class<T> beanType, String propertyName, Object value,
+                                                         Class<?>... groups) {
+        return timed(() -> validator.validateValue(beanType, propertyName, value, groups));
+    }
+
+    @Override
+    public <T> Set<ConstraintViolation<T>> validateParameters(T object, Method method, Object[] parameterValues,
+                                                              Class<?>... groups) {
+        return timed(() -> validator.forExecutables().validateParameters(object, method, parameterValues, groups));
+    }
+
+    @Override
+    public <T> Set<ConstraintViolation<T>> validateReturnValue(T object, Method method, Object returnValue,
+                                                               Class<?>... groups) {
+        return timed(() -> validator.forExecutables().validateReturnValue(object, method, returnValue, groups));
+    }
+
+    @Override
+    public <T> Set<ConstraintViolation<T>> validateConstructorParameters(Constructor<? extends T> constructor,
+                                                                         Object[] parameterValues,
+                                                                         Class<?>... groups) {
+        return timed(() -> validator.forExecutables()
+                .validateConstructorParameters(constructor, parameterValues, groups));
+    }
+
+    @Override
+    public <T> Set<ConstraintViolation<T>> validateConstructorReturnValue(Constructor<? extends T> constructor,
+                                                                          T createdObject,
+                                                                          Class<?>... groups) {
+        return timed(() -> validator.forExecutables()
+                .validateConstructorReturnValue(constructor, createdObject, groups));
+    }
+
+    @Override
+    public BeanDescriptor getConstraintsForClass(Class<?> clazz) {
+        return validator.getConstraintsForClass(clazz);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> type) {
+        return type.isInstance(this) ? type.cast(this) : validator.unwrap(type);
+    }
+
+    @Override
+    public ExecutableValidator forExecutables() {
+        return this;
+    }
+
+    private static <T> Set<ConstraintViolation<T>> timed(Supplier<Set<ConstraintViolation<T>>> validation) {
+        Phase previous = ServerTiming.enter(Phase.VALIDATION);
+        try {
+            return validation.get();
+        } finally {
+            ServerTiming.exit(previous);
+        }
+    }
+}
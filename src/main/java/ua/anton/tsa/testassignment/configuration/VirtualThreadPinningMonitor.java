@@ -0,0 +1,85 @@
+package ua.anton.tsa.testassignment.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.stream.Collectors;
+
+/**
+ * Reports virtual threads pinned to their carrier thread, e.g. by a synchronized block or a native frame in the
+ * JDBC/Hibernate path, while the application runs in virtual thread mode.
+ * Pinning events longer than "diagnostics.pinning.threshold" are recorded by the JDK Flight Recorder, logged with
+ * the top of the stack trace and published as "jvm.threads.virtual.pinned" timer.
+ */
+@Slf4j
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int REPORTED_FRAMES = 10;
+    private static final String FRAME_DELIMITER = System.lineSeparator() + "\tat ";
+
+    private final Duration threshold;
+    private final Timer pinned;
+    private RecordingStream recordingStream;
+
+    public VirtualThreadPinningMonitor(DiagnosticsProperties diagnosticsProperties, MeterRegistry meterRegistry) {
+        this.threshold = diagnosticsProperties.pinning().threshold();
+        this.pinned = Timer.builder("jvm.threads.virtual.pinned")
+                .description("Time virtual threads spent pinned to their carrier thread")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public synchronized void start() {
+        recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, this::report);
+        recordingStream.startAsync();
+        log.info("Reporting virtual threads pinned for more than {}", threshold);
+    }
+
+    @Override
+    public synchronized void stop() {
+        recordingStream.close();
+        recordingStream = null;
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return recordingStream != null;
+    }
+
+    private void report(RecordedEvent event) {
+        pinned.record(event.getDuration());
+        log.warn("Virtual thread {} pinned for {} ms{}{}",
+                event.getThread() == null ? null : event.getThread().getJavaName(),
+                event.getDuration().toMillis(),
+                FRAME_DELIMITER,
+                frames(event.getStackTrace()));
+    }
+
+    private static String frames(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "<no stack trace>";
+        }
+        return stackTrace.getFrames().stream()
+                .limit(REPORTED_FRAMES)
+                .map(VirtualThreadPinningMonitor::frame)
+                .collect(Collectors.joining(FRAME_DELIMITER));
+    }
+
+    private static String frame(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+}
@@ -0,0 +1,70 @@
+package ua.anton.tsa.testassignment.configuration;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.validation.Validator;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+import static ua.anton.tsa.testassignment.Constants.API_V1;
+import static ua.anton.tsa.testassignment.Constants.SERVLET_PROFILE;
+
+/**
+ * Configuration of the servlet Spring MVC stack.
+ * Requests and responses in Smile format ("application/x-jackson-smile") are read and written by
+ * {@link JacksonConfiguration#smileMapper()}, with the same root names as JSON. JSON stays the default format.
+ * Write endpoints are rate limited per client by {@link RateLimitInterceptor}, API requests are shed over the
+ * adaptive limit of {@link ConcurrencyLimitInterceptor}, Hibernate work of every request is published by
+ * {@link HibernateRequestMetrics}, and request body validation is timed by {@link ServerTiming}.
+ * In "replicas" profile requests are pinned to the primary by {@link ReadYourWrites} session tokens.
+ */
+@Configuration
+@Profile(SERVLET_PROFILE)
+@RequiredArgsConstructor
+public class WebConfiguration implements WebMvcConfigurer {
+    private final ObjectProvider<RateLimitInterceptor> rateLimitInterceptor;
+    private final ObjectProvider<ConcurrencyLimitInterceptor> concurrencyLimitInterceptor;
+    private final HibernateRequestMetrics hibernateRequestMetrics;
+    private final ObjectProvider<ReadYourWrites> readYourWrites;
+    private final jakarta.validation.Validator validator;
+
+    /**
+     * @return request body validator charging validation to {@link ServerTiming.Phase#VALIDATION}
+     */
+    @Override
+    public Validator getValidator() {
+        return new SpringValidatorAdapter(new TimedValidator(validator));
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        rateLimitInterceptor.ifAvailable(registry::addInterceptor);
+        concurrencyLimitInterceptor.ifAvailable(interceptor ->
+                registry.addInterceptor(interceptor).addPathPatterns(API_V1 + "/**"));
+        registry.addInterceptor(hibernateRequestMetrics);
+        readYourWrites.ifAvailable(registry::addInterceptor);
+    }
+
+    /**
+     * Registers {@link ConcurrencyLimitInterceptor} for async requests as well, so streamed exports keep their permit
+     * until the async processing is over
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        concurrencyLimitInterceptor.ifAvailable(configurer::registerCallableInterceptors);
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.removeIf(MappingJackson2SmileHttpMessageConverter.class::isInstance);
+        converters.add(new MappingJackson2SmileHttpMessageConverter(JacksonConfiguration.smileMapper()));
+    }
+}
@@ -0,0 +1,336 @@
+package ua.anton.tsa.testassignment.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.data.web.SortDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ua.anton.tsa.testassignment.configuration.JacksonConfiguration;
+import ua.anton.tsa.testassignment.exceptions.InvalidCursorException;
+import ua.anton.tsa.testassignment.exceptions.InvalidPeriodException;
+import ua.anton.tsa.testassignment.model.User;
+import ua.anton.tsa.testassignment.service.ReactiveUsersService;
+import ua.anton.tsa.testassignment.validation.ModifyUser;
+import ua.anton.tsa.testassignment.wire.KeysetCursor;
+import ua.anton.tsa.testassignment.wire.request.CreateUserRequest;
+import ua.anton.tsa.testassignment.wire.request.CreateUsersBatchRequest;
+import ua.anton.tsa.testassignment.wire.request.ModifyUserRequest;
+import ua.anton.tsa.testassignment.wire.request.ReplaceUserRequest;
+import ua.anton.tsa.testassignment.wire.response.CreateUsersBatchResponse;
+import ua.anton.tsa.testassignment.wire.response.PageResponse;
+import ua.anton.tsa.testassignment.wire.response.RetrieveUsersResponse;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.LocalDate;
+import java.util.List;
+
+import static ua.anton.tsa.testassignment.Constants.API_V1;
+import static ua.anton.tsa.testassignment.Constants.MERGE_PATCH_JSON_VALUE;
+import static ua.anton.tsa.testassignment.Constants.REACTIVE_PROFILE;
+import static ua.anton.tsa.testassignment.Constants.SMILE_VALUE;
+import static ua.anton.tsa.testassignment.Constants.URL_SEPARATOR;
+import static ua.anton.tsa.testassignment.controller.UsersController.DEFAULT_PAGE_SIZE;
+import static ua.anton.tsa.testassignment.controller.UsersController.NDJSON_DELIMITER;
+import static ua.anton.tsa.testassignment.controller.UsersController.SMILE;
+import static ua.anton.tsa.testassignment.controller.UsersController.USERS_BATCH_ENDPOINT;
+import static ua.anton.tsa.testassignment.controller.UsersController.USERS_ENDPOINT;
+import static ua.anton.tsa.testassignment.controller.UsersController.USERS_EXPORT_ENDPOINT;
+import static ua.anton.tsa.testassignment.controller.UsersController.USER_ENDPOINT;
+import static ua.anton.tsa.testassignment.controller.UsersController.expectedVersion;
+import static ua.anton.tsa.testassignment.controller.UsersController.nextCursor;
+import static ua.anton.tsa.testassignment.controller.UsersController.eTag;
+
+/**
+ * Non-blocking entry point for Users endpoint APIs, active with "reactive" profile.
+ * Serves the same contract as {@link UsersController}.
+ */
+@Slf4j
+@Validated
+@RestController
+@Profile(REACTIVE_PROFILE)
+@RequiredArgsConstructor
+@RequestMapping(API_V1)
+public class ReactiveUsersController {
+    private final ObjectMapper smileMapper = JacksonConfiguration.smileMapper();
+    private final ReactiveUsersService usersService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * POST to create user
+     *
+     * @param createUserRequest - {@link CreateUserRequest} with body
+     * @param exchange          - {@link ServerWebExchange} with full request data
+     * @return {@link Mono} of {@link ResponseEntity} with location header
+     */
+    @PostMapping(path = USERS_ENDPOINT)
+    public Mono<ResponseEntity<URI>> create(
+            @Valid @RequestBody CreateUserRequest createUserRequest,
+            ServerWebExchange exchange
+    ) {
+        String path = exchange.getRequest().getPath().value();
+        return usersService.create(createUserRequest)
+                .map(id -> ResponseEntity.created(URI.create(path + URL_SEPARATOR + id)).build());
+    }
+
+    /**
+     * POST to create users in batch
+     *
+     * @param createUsersBatchRequest - {@link CreateUsersBatchRequest} with body
+     * @return {@link Mono} of {@link ResponseEntity} with ids of created users and errors of rejected ones
+     */
+    @PostMapping(path = USERS_BATCH_ENDPOINT)
+    public Mono<ResponseEntity<CreateUsersBatchResponse>> createAll(
+            @NotNull @RequestBody CreateUsersBatchRequest createUsersBatchRequest
+    ) {
+        return usersService.createAll(createUsersBatchRequest).map(ResponseEntity::ok);
+    }
+
+    /**
+     * PUT to update all user fields.
+     * When "If-Match" header is present, the user is replaced only if its version equals the given ETag.
+     *
+     * @param id                 - {@link Long} unique identifier
+     * @param replaceUserRequest - {@link ReplaceUserRequest} with body
+     * @param ifMatch            - {@link String} optional ETag of the user version
+     * @return {@link Mono} of {@link ResponseEntity} of {@link Void}
+     */
+    @PutMapping(path = USER_ENDPOINT)
+    public Mono<ResponseEntity<Void>> replace(
+            @PathVariable Long id,
+            @Valid @RequestBody ReplaceUserRequest replaceUserRequest,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
+        return usersService.replace(id, replaceUserRequest, expectedVersion(ifMatch))
+                .then(Mono.just(ResponseEntity.noContent().build()));
+    }
+
+    /**
+     * PATCH to update one/some user fields, the body is a JSON merge patch.
+     * When "If-Match" header is present, the user is modified only if its version equals the given ETag.
+     *
+     * @param id                - {@link Long} unique identifier
+     * @param modifyUserRequest - {@link ModifyUserRequest} with body
+     * @param ifMatch           - {@link String} optional ETag of the user version
+     * @return {@link Mono} of {@link ResponseEntity} of {@link Void}
+     */
+    @PatchMapping(
+            path = USER_ENDPOINT,
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MERGE_PATCH_JSON_VALUE, SMILE_VALUE}
+    )
+    public Mono<ResponseEntity<Void>> modify(
+            @PathVariable Long id,
+            @Valid @RequestBody @ModifyUser ModifyUserRequest modifyUserRequest,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
+        return usersService.modify(id, modifyUserRequest, expectedVersion(ifMatch))
+                .then(Mono.just(ResponseEntity.noContent().build()));
+    }
+
+    /**
+     * GET to retrieve one user.
+     * The version of the user is returned as strong ETag, answers with 304 when "If-None-Match" header holds it.
+     *
+     * @param id       - {@link Long} unique identifier
+     * @param exchange - {@link ServerWebExchange} to check conditional headers
+     * @return {@link Mono} of {@link ResponseEntity} with {@link RetrieveUsersResponse} object and ETag header
+     */
+    @GetMapping(path = USER_ENDPOINT)
+    public Mono<ResponseEntity<RetrieveUsersResponse>> retrieve(
+            @PathVariable @Positive Long id,
+            ServerWebExchange exchange
+    ) {
+        return usersService.retrieve(id)
+                .mapNotNull(user -> {
+                    String version = eTag(user.version(), accept(exchange));
+                    return checkNotModified(exchange, version) ? null : ResponseEntity.ok().eTag(version).body(user);
+                });
+    }
+
+    /**
+     * GET to retrieve users by birthdate range, see {@link UsersController#retrieve(LocalDate, LocalDate, String,
+     * boolean, Pageable, org.springframework.web.context.request.ServletWebRequest)}
+     *
+     * @param from     - {@link LocalDate} with minimum searchable date
+     * @param to       - {@link LocalDate} with maximum searchable date
+     * @param after    - {@link String} opaque cursor of the last seen user for keyset pagination
+     * @param count    - false to skip counting of total elements
+     * @param pageable - {@link Pageable} with page params
+     * @param exchange - {@link ServerWebExchange} to check conditional headers
+     * @return {@link Mono} of {@link ResponseEntity} with {@link Page} of {@link User} rows
+     */
+    @GetMapping(path = USERS_ENDPOINT)
+    public Mono<ResponseEntity<PageResponse<User>>> retrieve(
+            @RequestParam(name = "from") @NotNull @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(name = "to") @NotNull @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "count", defaultValue = "true") boolean count,
+            @PageableDefault(size = DEFAULT_PAGE_SIZE)
+            @SortDefault.SortDefaults(
+                    @SortDefault(sort = "id", direction = Sort.Direction.ASC)
+            ) Pageable pageable,
+            ServerWebExchange exchange
+    ) throws InvalidCursorException {
+        KeysetCursor cursor = after == null || after.isEmpty() ? null : KeysetCursor.decode(after);
+        return usersService.version().flatMap(changes -> {
+            String version = eTag(changes, accept(exchange));
+            if (checkNotModified(exchange, version)) {
+                return Mono.empty();
+            }
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(version);
+            if (after == null && count) {
+                return usersService.retrieve(pageable, from, to)
+                        .map(page -> response.body(new PageResponse<>(page)));
+            }
+            if (after == null) {
+                return usersService.retrieveSlice(pageable, from, to)
+                        .map(slice -> response.body(new PageResponse<>(slice, slice.isFirst(), null)));
+            }
+            return usersService.retrieve(pageable.getPageSize(), from, to, cursor)
+                    .map(slice -> response.body(PageResponse.keyset(slice, cursor == null, nextCursor(slice))));
+        });
+    }
+
+    /**
+     * GET to export users by birthdate range as newline-delimited JSON.
+     * Every user is written as soon as it is read, and rows are read only as fast as the client receives them.
+     *
+     * @param from     - {@link LocalDate} with minimum searchable date
+     * @param to       - {@link LocalDate} with maximum searchable date
+     * @param exchange - {@link ServerWebExchange} to allocate response buffers
+     * @return {@link ResponseEntity} with {@link Flux} of {@link RetrieveUsersResponse} lines
+     */
+    @GetMapping(path = USERS_EXPORT_ENDPOINT, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<Flux<DataBuffer>> export(
+            @RequestParam(name = "from") @NotNull @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(name = "to") @NotNull @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            ServerWebExchange exchange
+    ) throws InvalidPeriodException {
+        usersService.validatePeriod(from, to);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(export(objectMapper, from, to, exchange, true));
+    }
+
+    /**
+     * GET to export users by birthdate range as a sequence of Smile values, see
+     * {@link #export(LocalDate, LocalDate, ServerWebExchange)}
+     *
+     * @param from     - {@link LocalDate} with minimum searchable date
+     * @param to       - {@link LocalDate} with maximum searchable date
+     * @param exchange - {@link ServerWebExchange} to allocate response buffers
+     * @return {@link ResponseEntity} with {@link Flux} of {@link RetrieveUsersResponse} values
+     */
+    @GetMapping(path = USERS_EXPORT_ENDPOINT, produces = SMILE_VALUE)
+    public ResponseEntity<Flux<DataBuffer>> exportSmile(
+            @RequestParam(name = "from") @NotNull @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(name = "to") @NotNull @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            ServerWebExchange exchange
+    ) throws InvalidPeriodException {
+        usersService.validatePeriod(from, to);
+        return ResponseEntity.ok()
+                .contentType(SMILE)
+                .body(export(smileMapper, from, to, exchange, false));
+    }
+
+    /**
+     * DELETE to delete user
+     *
+     * @param id - {@link Long} unique identifier
+     * @return {@link Mono} of {@link ResponseEntity} without body
+     */
+    @DeleteMapping(path = USER_ENDPOINT)
+    public Mono<ResponseEntity<Void>> remove(@PathVariable @Positive Long id) {
+        return usersService.remove(id)
+                .then(Mono.just(ResponseEntity.noContent().build()));
+    }
+
+    private Flux<DataBuffer> export(ObjectMapper mapper, LocalDate from, LocalDate to, ServerWebExchange exchange,
+                                    boolean lines) {
+        ObjectWriter writer = mapper.writerFor(RetrieveUsersResponse.class)
+                .without(SerializationFeature.WRAP_ROOT_VALUE)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        DataBufferFactory bufferFactory = exchange.getResponse().bufferFactory();
+        return Flux.using(
+                () -> new ValueEncoder(mapper, writer, lines),
+                encoder -> usersService.export(from, to).map(user -> encoder.encode(bufferFactory, user)),
+                ValueEncoder::close
+        );
+    }
+
+    private static List<String> accept(ServerWebExchange exchange) {
+        return exchange.getRequest().getHeaders().getOrEmpty(HttpHeaders.ACCEPT);
+    }
+
+    private static boolean checkNotModified(ServerWebExchange exchange, String eTag) {
+        exchange.getResponse().getHeaders().set(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        return exchange.checkNotModified(eTag);
+    }
+
+    /**
+     * Writes the users of one export through a single generator, as {@link UsersController} does, so a Smile stream
+     * has one header and one shared-name table, and hands over the bytes of every user as soon as it is written
+     */
+    private static final class ValueEncoder {
+        private final ByteArrayBuilder bytes = new ByteArrayBuilder();
+        private final ObjectWriter writer;
+        private final JsonGenerator generator;
+        private final boolean lines;
+
+        private ValueEncoder(ObjectMapper mapper, ObjectWriter writer, boolean lines) throws IOException {
+            this.writer = writer;
+            this.generator = mapper.createGenerator(bytes);
+            this.lines = lines;
+            if (lines) {
+                generator.setRootValueSeparator(null);
+            }
+        }
+
+        private DataBuffer encode(DataBufferFactory bufferFactory, RetrieveUsersResponse user) {
+            try {
+                writer.writeValue(generator, user);
+                if (lines) {
+                    generator.writeRaw(NDJSON_DELIMITER);
+                }
+                generator.flush();
+                byte[] value = bytes.toByteArray();
+                bytes.reset();
+                return bufferFactory.wrap(value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void close() {
+            try {
+                generator.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+}
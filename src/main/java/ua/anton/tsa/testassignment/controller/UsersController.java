@@ -1,36 +1,65 @@
 package ua.anton.tsa.testassignment.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.data.web.SortDefault;
+import org.springframework.context.annotation.Profile;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.InvalidMimeTypeException;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ua.anton.tsa.testassignment.configuration.JacksonConfiguration;
+import ua.anton.tsa.testassignment.exceptions.InvalidCursorException;
 import ua.anton.tsa.testassignment.exceptions.InvalidPeriodException;
 import ua.anton.tsa.testassignment.exceptions.MinAgeException;
+import ua.anton.tsa.testassignment.model.User;
 import ua.anton.tsa.testassignment.service.UsersService;
-import ua.anton.tsa.testassignment.validation.BirthDate;
-import ua.anton.tsa.testassignment.validation.Email;
-import ua.anton.tsa.testassignment.validation.NotBlankNullable;
+import ua.anton.tsa.testassignment.validation.ModifyUser;
+import ua.anton.tsa.testassignment.wire.KeysetCursor;
 import ua.anton.tsa.testassignment.wire.request.CreateUserRequest;
+import ua.anton.tsa.testassignment.wire.request.CreateUsersBatchRequest;
 import ua.anton.tsa.testassignment.wire.request.ModifyUserRequest;
 import ua.anton.tsa.testassignment.wire.request.ReplaceUserRequest;
+import ua.anton.tsa.testassignment.wire.response.CreateUsersBatchResponse;
 import ua.anton.tsa.testassignment.wire.response.PageResponse;
 import ua.anton.tsa.testassignment.wire.response.RetrieveUsersResponse;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 
 import static ua.anton.tsa.testassignment.Constants.API_V1;
+import static ua.anton.tsa.testassignment.Constants.MERGE_PATCH_JSON_VALUE;
+import static ua.anton.tsa.testassignment.Constants.SERVLET_PROFILE;
+import static ua.anton.tsa.testassignment.Constants.SMILE_VALUE;
 import static ua.anton.tsa.testassignment.Constants.URL_SEPARATOR;
 
 /**
@@ -39,14 +68,27 @@ import static ua.anton.tsa.testassignment.Constants.URL_SEPARATOR;
 @Slf4j
 @Validated
 @RestController
+@Profile(SERVLET_PROFILE)
 @RequiredArgsConstructor
 @RequestMapping(API_V1)
 public class UsersController {
 
     public static final int DEFAULT_PAGE_SIZE = 3;
-    private static final String USERS_ENDPOINT = "/users";
-    private static final String USER_ENDPOINT = USERS_ENDPOINT + "/{id}";
+    static final String USERS_ENDPOINT = "/users";
+    static final String USER_ENDPOINT = USERS_ENDPOINT + "/{id}";
+    static final String USERS_EXPORT_ENDPOINT = USERS_ENDPOINT + ":export";
+    static final String USERS_BATCH_ENDPOINT = USERS_ENDPOINT + ":batch";
+    static final char NDJSON_DELIMITER = '\n';
+    private static final String ANY_ETAG = "*";
+    private static final String ETAG_QUOTE = "\"";
+    private static final String WEAK_ETAG_PREFIX = "W/";
+    private static final String ETAG_REPRESENTATION_DELIMITER = "-";
+    private static final String JSON_REPRESENTATION = "json";
+    private static final String SMILE_REPRESENTATION = "smile";
+    static final MediaType SMILE = MediaType.parseMediaType(SMILE_VALUE);
+    private final ObjectMapper smileMapper = JacksonConfiguration.smileMapper();
     private final UsersService usersService;
+    private final ObjectMapper objectMapper;
 
     /**
      * POST to create user
@@ -66,59 +108,160 @@ public class UsersController {
     }
 
     /**
-     * PUT to update all user fields
+     * POST to create users in batch
+     *
+     * @param createUsersBatchRequest - {@link CreateUsersBatchRequest} with body
+     * @return {@link ResponseEntity} with ids of created users and errors of rejected ones
+     */
+    @PostMapping(path = USERS_BATCH_ENDPOINT)
+    public ResponseEntity<CreateUsersBatchResponse> createAll(
+            @NotNull @RequestBody CreateUsersBatchRequest createUsersBatchRequest
+    ) {
+        return ResponseEntity.ok(usersService.createAll(createUsersBatchRequest));
+    }
+
+    /**
+     * PUT to update all user fields.
+     * When "If-Match" header is present, the user is replaced only if its version equals the given ETag.
      *
      * @param id                 - {@link Long} unique identifier
      * @param replaceUserRequest - {@link ReplaceUserRequest} with body
+     * @param ifMatch            - {@link String} optional ETag of the user version
      * @return {@link ResponseEntity} of {@link Void}
      */
     @PutMapping(path = USER_ENDPOINT)
     public ResponseEntity<Void> replace(
             @PathVariable Long id,
-            @Valid @RequestBody ReplaceUserRequest replaceUserRequest
+            @Valid @RequestBody ReplaceUserRequest replaceUserRequest,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) throws MinAgeException {
-        usersService.replace(id, replaceUserRequest);
+        usersService.replace(id, replaceUserRequest, expectedVersion(ifMatch));
         return ResponseEntity.noContent().build();
     }
 
 
     /**
-     * PATCH to update one/some user fields
+     * PATCH to update one/some user fields, the body is a JSON merge patch.
+     * When "If-Match" header is present, the user is modified only if its version equals the given ETag.
      *
      * @param id                - {@link Long} unique identifier
      * @param modifyUserRequest - {@link ModifyUserRequest} with body
+     * @param ifMatch           - {@link String} optional ETag of the user version
      * @return {@link ResponseEntity} of {@link Void}
      */
-    @PatchMapping( path = USER_ENDPOINT)
+    @PatchMapping(
+            path = USER_ENDPOINT,
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MERGE_PATCH_JSON_VALUE, SMILE_VALUE}
+    )
     public ResponseEntity<Void> modify(
             @PathVariable Long id,
-            @Valid @RequestBody @BirthDate @Email
-            @NotBlankNullable(keys = {"firstName", "lastName", "address", "phoneNumber"})
-            ModifyUserRequest modifyUserRequest
+            @Valid @RequestBody @ModifyUser ModifyUserRequest modifyUserRequest,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) throws MinAgeException {
-        log.info(String.valueOf(modifyUserRequest.entrySet().size()));
-        usersService.modify(id, modifyUserRequest);
+        usersService.modify(id, modifyUserRequest, expectedVersion(ifMatch));
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * GET to retrieve one user.
+     * The version of the user is returned as strong ETag, so it can be sent back in "If-Match" header of PUT and PATCH.
+     * Answers with 304 without serializing the user when "If-None-Match" header holds the same version.
+     *
+     * @param id         - {@link Long} unique identifier
+     * @param webRequest - {@link ServletWebRequest} to check conditional headers
+     * @return {@link ResponseEntity} with {@link RetrieveUsersResponse} object and ETag header
+     */
+    @GetMapping(path = USER_ENDPOINT)
+    public ResponseEntity<RetrieveUsersResponse> retrieve(@PathVariable @Positive Long id,
+                                                          ServletWebRequest webRequest) {
+        RetrieveUsersResponse user = usersService.retrieve(id);
+        String version = eTag(user.version(), accept(webRequest));
+        if (checkNotModified(webRequest, version)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(version).body(user);
+    }
+
     /**
      * GET to retrieve users by birthdate range.
+     * Uses offset pagination by default. When "after" param is present (empty for the first page), switches to
+     * keyset pagination ordered by (birthDate, id) and returns "next_cursor" for the following page.
+     * When "count" param is false, skips the count query and leaves the totals out of the response.
+     * Answers with 304 without querying storage when "If-None-Match" header holds the current storage version, which is
+     * returned as strong ETag.
      *
-     * @param from      - {@link LocalDate} with minimum searchable date
-     * @param to        - {@link LocalDate} with maximum searchable date
-     * @param pageable  - {@link Pageable} with page params
-     * @return {@link ResponseEntity} with {@link Page} of {@link RetrieveUsersResponse} objects
+     * @param from       - {@link LocalDate} with minimum searchable date
+     * @param to         - {@link LocalDate} with maximum searchable date
+     * @param after      - {@link String} opaque cursor of the last seen user for keyset pagination
+     * @param count      - false to skip counting of total elements
+     * @param pageable   - {@link Pageable} with page params
+     * @param webRequest - {@link ServletWebRequest} to check conditional headers
+     * @return {@link ResponseEntity} with {@link Page} of {@link User} rows and ETag header
      */
     @GetMapping(path = USERS_ENDPOINT)
-    public ResponseEntity<PageResponse<RetrieveUsersResponse>> retrieve(
+    public ResponseEntity<PageResponse<User>> retrieve(
             @RequestParam(name = "from") @NotNull @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
             @RequestParam(name = "to") @NotNull @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "count", defaultValue = "true") boolean count,
             @PageableDefault(size = DEFAULT_PAGE_SIZE)
             @SortDefault.SortDefaults(
                     @SortDefault(sort = "id", direction = Sort.Direction.ASC)
-            ) Pageable pageable
+            ) Pageable pageable,
+            ServletWebRequest webRequest
+    ) throws InvalidPeriodException, InvalidCursorException {
+        String version = eTag(usersService.version(), accept(webRequest));
+        if (checkNotModified(webRequest, version)) {
+            return null;
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(version);
+        if (after == null && count) {
+            return response.body(new PageResponse<>(usersService.retrieve(pageable, from, to)));
+        }
+        if (after == null) {
+            Slice<User> slice = usersService.retrieveSlice(pageable, from, to);
+            return response.body(new PageResponse<>(slice, slice.isFirst(), null));
+        }
+        KeysetCursor cursor = after.isEmpty() ? null : KeysetCursor.decode(after);
+        Slice<User> slice = usersService.retrieve(pageable.getPageSize(), from, to, cursor);
+        return response.body(PageResponse.keyset(slice, cursor == null, nextCursor(slice)));
+    }
+
+    /**
+     * GET to export users by birthdate range as newline-delimited JSON.
+     * Users are streamed from storage and written one per line, so memory does not depend on the range size.
+     *
+     * @param from - {@link LocalDate} with minimum searchable date
+     * @param to   - {@link LocalDate} with maximum searchable date
+     * @return {@link ResponseEntity} with {@link StreamingResponseBody} of {@link RetrieveUsersResponse} lines
+     */
+    @GetMapping(path = USERS_EXPORT_ENDPOINT, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(name = "from") @NotNull @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(name = "to") @NotNull @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
     ) throws InvalidPeriodException {
-        return ResponseEntity.ok(new PageResponse<>(usersService.retrieve(pageable, from, to)));
+        usersService.validatePeriod(from, to);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(outputStream -> write(objectMapper, from, to, outputStream, true));
+    }
+
+    /**
+     * GET to export users by birthdate range as a sequence of Smile values, see {@link #export(LocalDate, LocalDate)}
+     *
+     * @param from - {@link LocalDate} with minimum searchable date
+     * @param to   - {@link LocalDate} with maximum searchable date
+     * @return {@link ResponseEntity} with {@link StreamingResponseBody} of {@link RetrieveUsersResponse} values
+     */
+    @GetMapping(path = USERS_EXPORT_ENDPOINT, produces = SMILE_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportSmile(
+            @RequestParam(name = "from") @NotNull @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(name = "to") @NotNull @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) throws InvalidPeriodException {
+        usersService.validatePeriod(from, to);
+        return ResponseEntity.ok()
+                .contentType(SMILE)
+                .body(outputStream -> write(smileMapper, from, to, outputStream, false));
     }
 
     /**
@@ -134,4 +277,108 @@ public class UsersController {
 
     }
 
+    @SneakyThrows(InvalidPeriodException.class)
+    private void write(ObjectMapper mapper, LocalDate from, LocalDate to, OutputStream outputStream, boolean lines)
+            throws IOException {
+        ObjectWriter writer = mapper.writerFor(RetrieveUsersResponse.class)
+                .without(SerializationFeature.WRAP_ROOT_VALUE)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = mapper.createGenerator(outputStream)) {
+            if (lines) {
+                generator.setRootValueSeparator(null);
+            }
+            try {
+                usersService.export(from, to, user -> {
+                    try {
+                        writer.writeValue(generator, user);
+                        if (lines) {
+                            generator.writeRaw(NDJSON_DELIMITER);
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * ETags of GET responses are strong and specific to the representation chosen by "Accept" header, e.g. "3-json"
+     * and "3-smile", because JSON and Smile bodies of the same version are not byte-for-byte equal.
+     * Responses vary by "Accept" header, so caches keep the representations apart.
+     *
+     * @param version - version of the user or of the storage
+     * @param accept  - values of "Accept" header of the request
+     * @return strong ETag of the version in the accepted representation
+     */
+    static String eTag(Object version, List<String> accept) {
+        return ETAG_QUOTE + version + ETAG_REPRESENTATION_DELIMITER + representation(accept) + ETAG_QUOTE;
+    }
+
+    private static String representation(List<String> accept) {
+        List<MediaType> mediaTypes;
+        try {
+            mediaTypes = new ArrayList<>(MediaType.parseMediaTypes(accept));
+            MimeTypeUtils.sortBySpecificity(mediaTypes);
+        } catch (InvalidMediaTypeException | InvalidMimeTypeException e) {
+            return JSON_REPRESENTATION;
+        }
+        for (MediaType mediaType : mediaTypes) {
+            if (mediaType.equalsTypeAndSubtype(SMILE)) {
+                return SMILE_REPRESENTATION;
+            }
+            if (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return JSON_REPRESENTATION;
+            }
+        }
+        return JSON_REPRESENTATION;
+    }
+
+    private static List<String> accept(ServletWebRequest webRequest) {
+        String[] accept = webRequest.getHeaderValues(HttpHeaders.ACCEPT);
+        return accept == null ? List.of() : List.of(accept);
+    }
+
+    private static boolean checkNotModified(ServletWebRequest webRequest, String eTag) {
+        if (webRequest.getResponse() != null) {
+            webRequest.getResponse().setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        return webRequest.checkNotModified(eTag);
+    }
+
+    /**
+     * If-Match is compared strongly, so weak ETags never match and are rejected.
+     *
+     * @param ifMatch - "If-Match" header with the strong ETag of the user version in any representation
+     * @return expected version of the user, null when any version is expected
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ANY_ETAG.equals(ifMatch.trim())) {
+            return null;
+        }
+        String eTag = ifMatch.trim();
+        String value = StringUtils.removeEnd(StringUtils.removeStart(eTag, ETAG_QUOTE), ETAG_QUOTE);
+        String representation = StringUtils.substringAfter(value, ETAG_REPRESENTATION_DELIMITER);
+        if (!eTag.startsWith(WEAK_ETAG_PREFIX) && (representation.isEmpty()
+                || JSON_REPRESENTATION.equals(representation) || SMILE_REPRESENTATION.equals(representation))) {
+            try {
+                return Long.valueOf(StringUtils.substringBefore(value, ETAG_REPRESENTATION_DELIMITER));
+            } catch (NumberFormatException ignored) {
+                // rejected below
+            }
+        }
+        throw new HttpClientErrorException(HttpStatus.PRECONDITION_FAILED,
+                "If-Match must be a strong ETag returned by GET");
+    }
+
+    static String nextCursor(Slice<User> slice) {
+        if (!slice.hasNext() || !slice.hasContent()) {
+            return null;
+        }
+        User last = slice.getContent().getLast();
+        return new KeysetCursor(last.getBirthDate(), last.getId()).encode();
+    }
+
 }
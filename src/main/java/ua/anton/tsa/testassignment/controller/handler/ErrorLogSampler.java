@@ -0,0 +1,66 @@
+package ua.anton.tsa.testassignment.controller.handler;
+
+import ua.anton.tsa.testassignment.configuration.DiagnosticsProperties;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounds error log lines per error type: at most "diagnostics.error-log.client-errors" lines for 4xx errors and
+ * "diagnostics.error-log.server-errors" lines for 5xx errors of the same exception class per
+ * "diagnostics.error-log.interval". Errors over the limit are only counted, and reported with the next logged line.
+ * Lock free, so an error storm does not serialize request threads on logging.
+ */
+class ErrorLogSampler {
+    static final long SUPPRESSED = -1;
+
+    private final long intervalNanos;
+    private final int clientErrors;
+    private final int serverErrors;
+    private final Map<Class<?>, Window> windows = new ConcurrentHashMap<>();
+
+    ErrorLogSampler(DiagnosticsProperties.ErrorLog errorLog) {
+        this.intervalNanos = errorLog.interval().toNanos();
+        this.clientErrors = errorLog.clientErrors();
+        this.serverErrors = errorLog.serverErrors();
+    }
+
+    /**
+     * @param type        - exception class of the error
+     * @param serverError - true for 5xx errors
+     * @return number of errors of the type suppressed since the previous logged line, or {@link #SUPPRESSED} if the
+     * error must not be logged
+     */
+    long acquire(Class<?> type, boolean serverError) {
+        return windows.computeIfAbsent(type, key -> new Window(System.nanoTime()))
+                .acquire(System.nanoTime(), serverError ? serverErrors : clientErrors);
+    }
+
+    /**
+     * Log lines of one error type in the current interval
+     */
+    private class Window {
+        private final AtomicLong start;
+        private final AtomicInteger logged = new AtomicInteger();
+        private final LongAdder suppressed = new LongAdder();
+
+        private Window(long start) {
+            this.start = new AtomicLong(start);
+        }
+
+        private long acquire(long now, int limit) {
+            long current = start.get();
+            if (now - current >= intervalNanos && start.compareAndSet(current, now)) {
+                logged.set(0);
+            }
+            if (logged.get() < limit && logged.incrementAndGet() <= limit) {
+                return suppressed.sumThenReset();
+            }
+            suppressed.increment();
+            return SUPPRESSED;
+        }
+    }
+}
@@ -1,22 +1,34 @@
 package ua.anton.tsa.testassignment.controller.handler;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.validation.ConstraintViolationException;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.codec.DecodingException;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.validation.BindingResult;
 import org.springframework.web.HttpMediaTypeNotSupportedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.bind.support.WebExchangeBindException;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebInputException;
 import ua.anton.tsa.testassignment.Constants;
+import ua.anton.tsa.testassignment.configuration.DiagnosticsProperties;
+import ua.anton.tsa.testassignment.exceptions.ConcurrencyLimitException;
+import ua.anton.tsa.testassignment.exceptions.InvalidCursorException;
 import ua.anton.tsa.testassignment.exceptions.InvalidPeriodException;
 import ua.anton.tsa.testassignment.exceptions.MinAgeException;
+import ua.anton.tsa.testassignment.exceptions.RateLimitException;
 import ua.anton.tsa.testassignment.wire.response.RestContractExceptionResponse;
 
 import java.util.Map;
@@ -25,20 +37,32 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
- * Global Rest Controllers exception handler (WebMVC).
+ * Global Rest Controllers exception handler (WebMVC and WebFlux).
+ * Every handled error is counted by "api.errors" counter tagged with the exception class and response status, while
+ * log lines are sampled by {@link ErrorLogSampler}: client errors are logged at WARN level without stack trace,
+ * server errors at ERROR level with it.
  */
 @Slf4j
-@RequiredArgsConstructor
 @ControllerAdvice(basePackages = {Constants.ROOT_PACKAGE + ".controller"})
 public class GlobalExceptionHandler {
 
     private static final String REASON_DELIMITER = ": ";
     private static final String MULTIPLE_ERRORS_DELIMITER = ", ";
+    private static final String ERRORS_METER = "api.errors";
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
 
     private static final Map<Class<? extends Exception>, HttpStatus> EXCEPTION_MAPPING = Map.of(
             HttpMediaTypeNotSupportedException.class, HttpStatus.UNSUPPORTED_MEDIA_TYPE
     );
 
+    private final MeterRegistry meterRegistry;
+    private final ErrorLogSampler errorLogSampler;
+
+    public GlobalExceptionHandler(MeterRegistry meterRegistry, DiagnosticsProperties diagnosticsProperties) {
+        this.meterRegistry = meterRegistry;
+        this.errorLogSampler = new ErrorLogSampler(diagnosticsProperties.errorLog());
+    }
+
     /**
      * Handler for HTTP status code exceptions.
      *
@@ -60,19 +84,61 @@ public class GlobalExceptionHandler {
     @ExceptionHandler
     @SuppressWarnings("unused")
     public ResponseEntity<RestContractExceptionResponse> handleBindException(MethodArgumentNotValidException exception) {
-        log.info(exception.getMessage());
+        return map(fieldErrors(exception.getBindingResult()), exception);
+    }
+
+    /**
+     * Binding results for Request Body exception handler (WebFlux).
+     *
+     * @param exception {@link WebExchangeBindException} to catch and extract error messages from fields
+     * @return {@link ResponseEntity} with status {@link HttpStatus#BAD_REQUEST},
+     */
+    @ExceptionHandler
+    @SuppressWarnings("unused")
+    public ResponseEntity<RestContractExceptionResponse> handleBindException(WebExchangeBindException exception) {
+        return map(fieldErrors(exception.getBindingResult()), exception);
+    }
+
+    /**
+     * Not readable request data and method argument mismatch exception handler (WebFlux).
+     *
+     * @param exception {@link ServerWebInputException} to catch and extract meaningful response
+     * @return {@link ResponseEntity} with status {@link HttpStatus#BAD_REQUEST}
+     */
+    @ExceptionHandler
+    @SuppressWarnings("unused")
+    public ResponseEntity<RestContractExceptionResponse> handleBindException(ServerWebInputException exception) {
+        if (exception.getCause() instanceof TypeMismatchException typeMismatch) {
+            return map(
+                    Stream.concat(
+                            Stream.of(Optional.ofNullable(exception.getMethodParameter())
+                                    .map(MethodParameter::getParameterName)
+                                    .orElse(typeMismatch.getPropertyName()) + REASON_DELIMITER + "provided wrong type"),
+                            Stream.ofNullable(typeMismatch.getRequiredType())
+                                    .map(Class::getSimpleName)
+                                    .map("expected type is "::concat)
+                    ),
+                    exception
+            );
+        }
+        return map(
+                HttpStatus.BAD_REQUEST,
+                exception.getCause() instanceof DecodingException ? "Invalid request body received" : exception.getReason(),
+                exception);
+    }
+
+    /**
+     * Exception handler for statuses raised by the WebFlux infrastructure, e.g. unsupported media type.
+     *
+     * @param exception {@link ResponseStatusException} to catch and extract status and reason
+     * @return {@link ResponseEntity} with status of the exception
+     */
+    @ExceptionHandler
+    @SuppressWarnings("unused")
+    public ResponseEntity<RestContractExceptionResponse> handleBindException(ResponseStatusException exception) {
         return map(
-                exception.getBindingResult()
-                        .getFieldErrors()
-                        .stream()
-                        .map(fieldError ->
-                                fieldError.getField() +
-                                        Optional.ofNullable(fieldError.getDefaultMessage())
-                                                .map(REASON_DELIMITER::concat)
-                                                .orElse(StringUtils.EMPTY)
-                        )
-                        .distinct()
-                        .sorted(),
+                HttpStatus.valueOf(exception.getStatusCode().value()),
+                exception.getReason(),
                 exception
         );
     }
@@ -125,6 +191,22 @@ public class GlobalExceptionHandler {
         );
     }
 
+    /**
+     * Exception handler for malformed keyset pagination cursors.
+     *
+     * @param exception {@link InvalidCursorException} to catch and extract error message
+     * @return {@link ResponseEntity} with status {@link HttpStatus#BAD_REQUEST},
+     */
+    @ExceptionHandler
+    @SuppressWarnings("unused")
+    public ResponseEntity<RestContractExceptionResponse> handleBindException(InvalidCursorException exception) {
+        return map(
+                HttpStatus.BAD_REQUEST,
+                exception.getMessage(),
+                exception
+        );
+    }
+
     /**
      * Exception handler for empty results in storage.
      *
@@ -141,6 +223,43 @@ public class GlobalExceptionHandler {
         );
     }
 
+    /**
+     * Exception handler for requests over the rate limit of a client.
+     *
+     * @param exception {@link RateLimitException} to catch and extract error message and retry delay
+     * @return {@link ResponseEntity} with status {@link HttpStatus#TOO_MANY_REQUESTS} and "Retry-After" header in
+     * seconds
+     */
+    @ExceptionHandler
+    @SuppressWarnings("unused")
+    public ResponseEntity<RestContractExceptionResponse> handleBindException(RateLimitException exception) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER,
+                String.valueOf(exception.getRetryAfter().plusNanos(NANOS_PER_SECOND - 1).toSeconds()));
+        return map(
+                HttpStatus.TOO_MANY_REQUESTS,
+                exception.getMessage(),
+                exception,
+                headers
+        );
+    }
+
+    /**
+     * Exception handler for requests shed over the concurrency limit.
+     *
+     * @param exception {@link ConcurrencyLimitException} to catch and extract error message
+     * @return {@link ResponseEntity} with status {@link HttpStatus#SERVICE_UNAVAILABLE}
+     */
+    @ExceptionHandler
+    @SuppressWarnings("unused")
+    public ResponseEntity<RestContractExceptionResponse> handleBindException(ConcurrencyLimitException exception) {
+        return map(
+                HttpStatus.SERVICE_UNAVAILABLE,
+                exception.getMessage(),
+                exception
+        );
+    }
+
     /**
      * Method argument mismatch exception handler.
      *
@@ -191,6 +310,25 @@ public class GlobalExceptionHandler {
         );
     }
 
+    /**
+     * Collects field errors of the binding result in "field: reason" format.
+     *
+     * @param bindingResult {@link BindingResult} of the request body
+     * @return stream of sorted distinct messages
+     */
+    private Stream<String> fieldErrors(BindingResult bindingResult) {
+        return bindingResult.getFieldErrors()
+                .stream()
+                .map(fieldError ->
+                        fieldError.getField() +
+                                Optional.ofNullable(fieldError.getDefaultMessage())
+                                        .map(REASON_DELIMITER::concat)
+                                        .orElse(StringUtils.EMPTY)
+                )
+                .distinct()
+                .sorted();
+    }
+
     /**
      * Converts specific exceptions to meaningful response.
      *
@@ -215,9 +353,31 @@ public class GlobalExceptionHandler {
             HttpStatus httpStatus,
             String message,
             Throwable throwable) {
+        return map(httpStatus, message, throwable, HttpHeaders.EMPTY);
+    }
+
+    /**
+     * Converts specific exceptions to meaningful response.
+     *
+     * @param httpStatus generic error code
+     * @param message    descriptive message of an error
+     * @param throwable  cause
+     * @param headers    additional response headers
+     * @return {@link ResponseEntity} with status, header and body
+     */
+    private ResponseEntity<RestContractExceptionResponse> map(
+            HttpStatus httpStatus,
+            String message,
+            Throwable throwable,
+            HttpHeaders headers) {
         var reasonPhrase = httpStatus.getReasonPhrase();
-        log.error("Error: {}, Message: {}, Cause: {}", reasonPhrase, message, throwable.toString());
+        meterRegistry.counter(ERRORS_METER,
+                        "exception", throwable.getClass().getSimpleName(),
+                        "status", String.valueOf(httpStatus.value()))
+                .increment();
+        log(httpStatus, message, throwable);
         return ResponseEntity.status(httpStatus)
+                .headers(headers)
                 .body(RestContractExceptionResponse.builder()
                         .statusCode(httpStatus.value())
                         .reasonPhrase(reasonPhrase)
@@ -226,4 +386,28 @@ public class GlobalExceptionHandler {
                         .build());
     }
 
-}
\ No newline at end of file
+    /**
+     * Logs the error unless the limit of its type is reached.
+     *
+     * @param httpStatus generic error code
+     * @param message    descriptive message of an error
+     * @param throwable  cause
+     */
+    private void log(HttpStatus httpStatus, String message, Throwable throwable) {
+        boolean serverError = httpStatus.is5xxServerError();
+        if (serverError ? !log.isErrorEnabled() : !log.isWarnEnabled()) {
+            return;
+        }
+        long suppressed = errorLogSampler.acquire(throwable.getClass(), serverError);
+        if (suppressed == ErrorLogSampler.SUPPRESSED) {
+            return;
+        }
+        if (serverError) {
+            log.error("Error: {}, Message: {}, Suppressed: {}", httpStatus.getReasonPhrase(), message, suppressed,
+                    throwable);
+        } else {
+            log.warn("Error: {}, Message: {}, Cause: {}, Suppressed: {}", httpStatus.getReasonPhrase(), message,
+                    throwable.toString(), suppressed);
+        }
+    }
+}
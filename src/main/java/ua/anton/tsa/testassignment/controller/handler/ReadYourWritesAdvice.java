@@ -0,0 +1,46 @@
+package ua.anton.tsa.testassignment.controller.handler;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+import ua.anton.tsa.testassignment.Constants;
+import ua.anton.tsa.testassignment.configuration.ReadYourWrites;
+import ua.anton.tsa.testassignment.configuration.ReplicationProperties;
+
+import static ua.anton.tsa.testassignment.Constants.SERVLET_REPLICAS_PROFILE;
+
+/**
+ * Issues the read-your-writes session token of {@link ReadYourWrites} with responses to writes.
+ * The response is written after the service call, so the token is never older than the commit.
+ */
+@Profile(SERVLET_REPLICAS_PROFILE)
+@ControllerAdvice(basePackages = {Constants.ROOT_PACKAGE + ".controller"})
+public class ReadYourWritesAdvice implements ResponseBodyAdvice<Object> {
+    private final String sessionHeader;
+
+    public ReadYourWritesAdvice(ReplicationProperties replicationProperties) {
+        this.sessionHeader = replicationProperties.sessionHeader();
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        HttpMethod method = request.getMethod();
+        if (method != HttpMethod.GET && method != HttpMethod.HEAD) {
+            response.getHeaders().set(sessionHeader, ReadYourWrites.token());
+        }
+        return body;
+    }
+}
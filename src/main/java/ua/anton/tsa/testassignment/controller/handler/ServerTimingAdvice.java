@@ -0,0 +1,73 @@
+package ua.anton.tsa.testassignment.controller.handler;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+import ua.anton.tsa.testassignment.Constants;
+import ua.anton.tsa.testassignment.configuration.ServerTiming;
+import ua.anton.tsa.testassignment.configuration.ServerTiming.Phase;
+
+import java.lang.reflect.Type;
+
+import static ua.anton.tsa.testassignment.Constants.SERVLET_PROFILE;
+
+/**
+ * Charges reading and writing of Rest Controllers bodies to {@link Phase#SERIALIZATION} and writes the
+ * "Server-Timing" header with the phases of the request when it is asked for by the "X-Server-Timing" header.
+ * Writing of the body itself happens after the header and is published in metrics only.
+ */
+@Profile(SERVLET_PROFILE)
+@ControllerAdvice(basePackages = {Constants.ROOT_PACKAGE + ".controller"})
+public class ServerTimingAdvice extends RequestBodyAdviceAdapter implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+                            Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public HttpInputMessage beforeBodyRead(HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                           Class<? extends HttpMessageConverter<?>> converterType) {
+        ServerTiming.enter(Phase.SERIALIZATION);
+        return inputMessage;
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                Class<? extends HttpMessageConverter<?>> converterType) {
+        ServerTiming.enter(Phase.OTHER);
+        return body;
+    }
+
+    @Override
+    public Object handleEmptyBody(Object body, HttpInputMessage inputMessage, MethodParameter parameter,
+                                  Type targetType, Class<? extends HttpMessageConverter<?>> converterType) {
+        ServerTiming.enter(Phase.OTHER);
+        return body;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        ServerTiming timing = ServerTiming.current();
+        if (timing != null && request.getHeaders().containsKey(ServerTiming.REQUEST_HEADER)) {
+            response.getHeaders().add(ServerTiming.RESPONSE_HEADER, timing.header());
+        }
+        ServerTiming.enter(Phase.SERIALIZATION);
+        return body;
+    }
+}
@@ -0,0 +1,11 @@
+package ua.anton.tsa.testassignment.exceptions;
+
+/**
+ * Exception thrown when the request is shed because the concurrency limit is reached.
+ * Thrown for every rejected request, so the stack trace is not filled in.
+ */
+public class ConcurrencyLimitException extends Exception {
+    public ConcurrencyLimitException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,10 @@
+package ua.anton.tsa.testassignment.exceptions;
+
+/**
+ * Exception thrown in case of malformed keyset pagination cursor
+ */
+public class InvalidCursorException extends Exception{
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
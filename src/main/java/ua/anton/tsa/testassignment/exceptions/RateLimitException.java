@@ -0,0 +1,19 @@
+package ua.anton.tsa.testassignment.exceptions;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Exception thrown when a client exceeds the rate limit of an endpoint.
+ * Thrown for every rejected request, so the stack trace is not filled in.
+ */
+@Getter
+public class RateLimitException extends Exception {
+    private final Duration retryAfter;
+
+    public RateLimitException(String message, Duration retryAfter) {
+        super(message, null, false, false);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -25,7 +25,8 @@ public class User implements Serializable {
     @Id
     @SequenceGenerator(
             name = "user_id_sequence",
-            sequenceName = "user_id_sequence"
+            sequenceName = "user_id_sequence",
+            allocationSize = 50
     )
     @GeneratedValue(
             strategy = SEQUENCE,
@@ -42,5 +43,7 @@ public class User implements Serializable {
     private LocalDate birthDate;
     private String address;
     private String phoneNumber;
+    @Version
+    private Long version;
 
 }
@@ -0,0 +1,176 @@
+package ua.anton.tsa.testassignment.repo;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongPredicate;
+
+/**
+ * Sorted index of users by birthdate for {@link InMemoryUsersRepository}.
+ * Every entry is a single long key with the epoch day of the birthdate in the high 32 bits and the user id in the low
+ * 32 bits, so keys sort by (birthDate, id) like the keyset pages of the database.
+ * Keys are split into segments of 2^{@link #SEGMENT_SHIFT} days. A segment is a sorted long[] which is copied with
+ * the change and republished under the lock of the segment, so writers of different segments do not contend and
+ * readers scan the published arrays without locking.
+ */
+final class BirthDateIndex {
+    static final long MAX_ID = 0xFFFFFFFFL;
+    private static final int SEGMENT_SHIFT = 6;
+    private static final long[] NO_KEYS = new long[0];
+
+    private final ReentrantLock directoryLock = new ReentrantLock();
+    private volatile Directory directory = new Directory(new int[0], new Segment[0]);
+
+    static long key(int epochDay, long id) {
+        return (long) epochDay << Integer.SIZE | id;
+    }
+
+    static int epochDay(long key) {
+        return (int) (key >> Integer.SIZE);
+    }
+
+    static long id(long key) {
+        return key & MAX_ID;
+    }
+
+    void add(int epochDay, long id) {
+        segment(epochDay >> SEGMENT_SHIFT).add(key(epochDay, id));
+    }
+
+    void remove(int epochDay, long id) {
+        Directory current = directory;
+        int index = Arrays.binarySearch(current.numbers(), epochDay >> SEGMENT_SHIFT);
+        if (index >= 0) {
+            current.segments()[index].remove(key(epochDay, id));
+        }
+    }
+
+    /**
+     * @return number of keys with epoch days in [fromDay, toDay]
+     */
+    long count(int fromDay, int toDay) {
+        long start = key(fromDay, 0);
+        long end = key(toDay + 1, 0);
+        Directory current = directory;
+        long count = 0;
+        for (int i = lowerBound(current.numbers(), fromDay >> SEGMENT_SHIFT);
+             i < current.numbers().length && current.numbers()[i] <= toDay >> SEGMENT_SHIFT; i++) {
+            long[] keys = current.segments()[i].keys;
+            count += lowerBound(keys, end) - lowerBound(keys, start);
+        }
+        return count;
+    }
+
+    /**
+     * Visits keys with epoch days in [fromDay, toDay] that are not less than fromKey in key order, after skipping the
+     * first "skip" of them, until the visitor returns false. Skipped segments are not read.
+     */
+    void scan(int fromDay, int toDay, long fromKey, long skip, LongPredicate visitor) {
+        long start = Math.max(key(fromDay, 0), fromKey);
+        long end = key(toDay + 1, 0);
+        Directory current = directory;
+        for (int i = lowerBound(current.numbers(), epochDay(start) >> SEGMENT_SHIFT);
+             i < current.numbers().length && current.numbers()[i] <= toDay >> SEGMENT_SHIFT; i++) {
+            long[] keys = current.segments()[i].keys;
+            int from = lowerBound(keys, start);
+            int to = lowerBound(keys, end);
+            if (to - from <= skip) {
+                skip -= to - from;
+                continue;
+            }
+            from += (int) skip;
+            skip = 0;
+            for (int k = from; k < to; k++) {
+                if (!visitor.test(keys[k])) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private Segment segment(int number) {
+        Directory current = directory;
+        int index = Arrays.binarySearch(current.numbers(), number);
+        if (index >= 0) {
+            return current.segments()[index];
+        }
+        directoryLock.lock();
+        try {
+            current = directory;
+            index = Arrays.binarySearch(current.numbers(), number);
+            if (index >= 0) {
+                return current.segments()[index];
+            }
+            index = -index - 1;
+            int length = current.numbers().length;
+            int[] numbers = new int[length + 1];
+            Segment[] segments = new Segment[length + 1];
+            System.arraycopy(current.numbers(), 0, numbers, 0, index);
+            System.arraycopy(current.segments(), 0, segments, 0, index);
+            System.arraycopy(current.numbers(), index, numbers, index + 1, length - index);
+            System.arraycopy(current.segments(), index, segments, index + 1, length - index);
+            numbers[index] = number;
+            segments[index] = new Segment();
+            directory = new Directory(numbers, segments);
+            return segments[index];
+        } finally {
+            directoryLock.unlock();
+        }
+    }
+
+    private static int lowerBound(int[] values, int value) {
+        int index = Arrays.binarySearch(values, value);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private static int lowerBound(long[] values, long value) {
+        int index = Arrays.binarySearch(values, value);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * Segment numbers in ascending order and their segments, replaced as a whole when a segment is added
+     */
+    private record Directory(int[] numbers, Segment[] segments) {
+    }
+
+    private static final class Segment {
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile long[] keys = NO_KEYS;
+
+        void add(long key) {
+            lock.lock();
+            try {
+                long[] current = keys;
+                int index = Arrays.binarySearch(current, key);
+                if (index >= 0) {
+                    return;
+                }
+                index = -index - 1;
+                long[] updated = new long[current.length + 1];
+                System.arraycopy(current, 0, updated, 0, index);
+                System.arraycopy(current, index, updated, index + 1, current.length - index);
+                updated[index] = key;
+                keys = updated;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void remove(long key) {
+            lock.lock();
+            try {
+                long[] current = keys;
+                int index = Arrays.binarySearch(current, key);
+                if (index < 0) {
+                    return;
+                }
+                long[] updated = new long[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, index);
+                System.arraycopy(current, index + 1, updated, index, updated.length - index);
+                keys = updated;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,495 @@
+package ua.anton.tsa.testassignment.repo;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PropertyReferenceException;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.data.util.TypeInformation;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+import ua.anton.tsa.testassignment.model.User;
+import ua.anton.tsa.testassignment.wire.request.ModifyUserRequest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static ua.anton.tsa.testassignment.Constants.SERVLET_MEMORY_PROFILE;
+
+/**
+ * Embedded {@link UsersStorage} of users in the memory of the instance, used instead of JPA in "memory" profile.
+ * Users are addressed by id in chunks of {@link #CHUNK_SIZE} slots, ids are issued by a counter of the instance and
+ * must fit in 32 bits. Birthdate ranges are served from {@link BirthDateIndex}: pages ordered by (birthDate, id),
+ * unsorted pages and keyset pages seek straight to their first row, pages ordered by id walk the ids while that is
+ * cheaper than selecting the first ids of the range from the index, any other order sorts the range.
+ * Reads do not lock, writes lock one of {@link #STRIPES} stripes by id. Stored users are never changed, every write
+ * replaces the stored copy, and users are copied on the way in and out, so returned users need no detaching.
+ * Every write is applied at once, there are no transactions to roll back.
+ */
+@Component
+@Profile(SERVLET_MEMORY_PROFILE)
+public class InMemoryUsersRepository implements UsersStorage {
+    private static final int CHUNK_SHIFT = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int STRIPES = 64;
+    private static final int EXPORT_CHUNK_SIZE = Integer.parseInt(UsersRepository.EXPORT_FETCH_SIZE);
+    private static final String ID = "id";
+    private static final String BIRTH_DATE = "birthDate";
+    private static final Map<String, Comparator<User>> ATTRIBUTES = Map.of(
+            ID, attribute(User::getId),
+            ModifyUserRequest.EMAIL, attribute(User::getEmail),
+            ModifyUserRequest.FIRST_NAME, attribute(User::getFirstName),
+            ModifyUserRequest.LAST_NAME, attribute(User::getLastName),
+            ModifyUserRequest.BIRTH_DATE, attribute(User::getBirthDate),
+            ModifyUserRequest.ADDRESS, attribute(User::getAddress),
+            ModifyUserRequest.PHONE_NUMBER, attribute(User::getPhoneNumber),
+            "version", attribute(User::getVersion)
+    );
+
+    private final BirthDateIndex index = new BirthDateIndex();
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final ReentrantLock chunksLock = new ReentrantLock();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong size = new AtomicLong();
+    private final AtomicLong changes = new AtomicLong();
+    @SuppressWarnings("unchecked")
+    private volatile AtomicReferenceArray<User>[] chunks = new AtomicReferenceArray[0];
+
+    public InMemoryUsersRepository() {
+        Arrays.setAll(stripes, stripe -> new ReentrantLock());
+    }
+
+    @Override
+    public <S extends User> S save(S entity) {
+        Assert.notNull(entity, "Entity must not be null");
+        long id = checkId(entity.getId() == null ? sequence.incrementAndGet() : entity.getId());
+        sequence.accumulateAndGet(id, Math::max);
+        ReentrantLock lock = lock(id);
+        lock.lock();
+        try {
+            User stored = find(id);
+            if (stored != null && entity.getVersion() != null && !entity.getVersion().equals(stored.getVersion())) {
+                throw new OptimisticLockingFailureException("User " + id + " has been changed by another request");
+            }
+            entity.setId(id);
+            entity.setVersion(stored == null ? 0L : stored.getVersion() + 1);
+            store(id, stored, copy(entity));
+            return entity;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public <S extends User> List<S> saveAllAndFlush(Iterable<S> entities) {
+        Assert.notNull(entities, "Entities must not be null");
+        List<S> saved = new ArrayList<>();
+        entities.forEach(entity -> saved.add(save(entity)));
+        return saved;
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        return Optional.ofNullable(find(id)).map(InMemoryUsersRepository::copy);
+    }
+
+    @Override
+    public Optional<Long> findVersionById(Long id) {
+        return Optional.ofNullable(find(id)).map(User::getVersion);
+    }
+
+    @Override
+    public Page<User> findAllByBirthDateBetween(LocalDate from, LocalDate to, Pageable pageable) {
+        int fromDay = epochDay(from);
+        int toDay = epochDay(to);
+        long total = index.count(fromDay, toDay);
+        List<User> users = select(fromDay, toDay, total, pageable, limit(pageable, 0));
+        return PageableExecutionUtils.getPage(users, pageable, () -> total);
+    }
+
+    @Override
+    public Slice<User> findSliceByBirthDateBetween(LocalDate from, LocalDate to, Pageable pageable) {
+        int fromDay = epochDay(from);
+        int toDay = epochDay(to);
+        int limit = limit(pageable, 0);
+        List<User> users = select(fromDay, toDay, -1, pageable, limit(pageable, 1));
+        boolean hasNext = users.size() > limit;
+        return new SliceImpl<>(hasNext ? users.subList(0, limit) : users, pageable, hasNext);
+    }
+
+    @Override
+    public List<User> findKeysetPage(LocalDate from, LocalDate to, int limit) {
+        return scan(epochDay(from), epochDay(to), Long.MIN_VALUE, 0, limit);
+    }
+
+    @Override
+    public List<User> findKeysetPageAfter(LocalDate from, LocalDate to, LocalDate birthDate, Long id, int limit) {
+        long after = BirthDateIndex.key(epochDay(birthDate), Math.clamp(id, 0, BirthDateIndex.MAX_ID));
+        return scan(epochDay(from), epochDay(to), after + 1, 0, limit);
+    }
+
+    /**
+     * Reads the range by keyset pages of {@link UsersRepository#EXPORT_FETCH_SIZE} users, so only one page is held
+     * at a time
+     */
+    @Override
+    public Stream<User> streamAllByBirthDateBetweenOrderByBirthDateAscIdAsc(LocalDate from, LocalDate to) {
+        return Stream.iterate(
+                findKeysetPage(from, to, EXPORT_CHUNK_SIZE),
+                users -> !users.isEmpty(),
+                users -> {
+                    User last = users.get(users.size() - 1);
+                    return users.size() < EXPORT_CHUNK_SIZE
+                            ? List.of()
+                            : findKeysetPageAfter(from, to, last.getBirthDate(), last.getId(), EXPORT_CHUNK_SIZE);
+                }
+        ).flatMap(List::stream);
+    }
+
+    @Override
+    public int replaceIfChanged(User user, Long expectedVersion) {
+        long id = user.getId();
+        ReentrantLock lock = lock(id);
+        lock.lock();
+        try {
+            User stored = find(id);
+            if (stored == null || expectedVersion != null && !expectedVersion.equals(stored.getVersion())
+                    || sameAttributes(stored, user)) {
+                return 0;
+            }
+            User replaced = copy(user);
+            replaced.setVersion(stored.getVersion() + 1);
+            store(id, stored, replaced);
+            return 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int updateAttributes(Long id, ModifyUserRequest modifyUserRequest, Long expectedVersion) {
+        ReentrantLock lock = lock(id);
+        lock.lock();
+        try {
+            User stored = find(id);
+            if (stored == null || expectedVersion != null && !expectedVersion.equals(stored.getVersion())) {
+                return 0;
+            }
+            User updated = copy(stored);
+            updated.setEmail(patch(modifyUserRequest.email(), stored.getEmail()));
+            updated.setFirstName(patch(modifyUserRequest.firstName(), stored.getFirstName()));
+            updated.setLastName(patch(modifyUserRequest.lastName(), stored.getLastName()));
+            updated.setBirthDate(patch(modifyUserRequest.birthDate(), stored.getBirthDate()));
+            updated.setAddress(patch(modifyUserRequest.address(), stored.getAddress()));
+            updated.setPhoneNumber(patch(modifyUserRequest.phoneNumber(), stored.getPhoneNumber()));
+            updated.setVersion(stored.getVersion() + 1);
+            store(id, stored, updated);
+            return 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int deleteUserById(Long id) {
+        ReentrantLock lock = lock(id);
+        lock.lock();
+        try {
+            User stored = find(id);
+            if (stored == null) {
+                return 0;
+            }
+            store(id, stored, null);
+            return 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long countChanges() {
+        return changes.get();
+    }
+
+    /**
+     * Selects a page of the range in the order of the pageable
+     *
+     * @param total - number of users in the range, or a negative number when it is not counted yet
+     * @param limit - max number of users to select from the page offset
+     */
+    private List<User> select(int fromDay, int toDay, long total, Pageable pageable, int limit) {
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        List<Sort.Order> orders = pageable.getSort().toList();
+        if (orders.isEmpty() || isIndexOrder(orders)) {
+            return scan(fromDay, toDay, Long.MIN_VALUE, offset, limit);
+        }
+        if (orders.size() == 1 && ID.equals(orders.get(0).getProperty())) {
+            long matching = total < 0 ? index.count(fromDay, toDay) : total;
+            boolean ascending = orders.get(0).isAscending();
+            // Users of the range are met every (size / matching) ids on average
+            return (double) (offset + limit) * size.get() / Math.max(matching, 1) < matching
+                    ? walk(fromDay, toDay, ascending, offset, limit)
+                    : top(fromDay, toDay, ascending, offset, (int) Math.min(offset + limit, matching));
+        }
+        List<User> users = scan(fromDay, toDay, Long.MIN_VALUE, 0, Integer.MAX_VALUE);
+        users.sort(comparator(pageable.getSort()));
+        return page(users, offset, limit);
+    }
+
+    /**
+     * Reads users of the range in (birthDate, id) order from the index
+     */
+    private List<User> scan(int fromDay, int toDay, long fromKey, long skip, int limit) {
+        List<User> users = new ArrayList<>(Math.min(limit, CHUNK_SIZE));
+        if (limit > 0) {
+            index.scan(fromDay, toDay, fromKey, skip, key -> {
+                User user = find(BirthDateIndex.id(key));
+                // The key of a user is replaced after the user, the other key is skipped until then
+                if (user != null && epochDay(user.getBirthDate()) == BirthDateIndex.epochDay(key)) {
+                    users.add(copy(user));
+                }
+                return users.size() < limit;
+            });
+        }
+        return users;
+    }
+
+    /**
+     * Reads users of the range in id order by walking the ids
+     */
+    private List<User> walk(int fromDay, int toDay, boolean ascending, long skip, int limit) {
+        List<User> users = new ArrayList<>(Math.min(limit, CHUNK_SIZE));
+        long last = sequence.get();
+        for (long id = ascending ? 1 : last; id >= 1 && id <= last && users.size() < limit; id += ascending ? 1 : -1) {
+            User user = find(id);
+            if (user == null) {
+                continue;
+            }
+            int epochDay = epochDay(user.getBirthDate());
+            if (epochDay < fromDay || epochDay > toDay) {
+                continue;
+            }
+            if (skip > 0) {
+                skip--;
+            } else {
+                users.add(copy(user));
+            }
+        }
+        return users;
+    }
+
+    /**
+     * Reads users of the range in id order by selecting the first ids from the index keys
+     *
+     * @param count - number of ids to select, including the skipped ones
+     */
+    private List<User> top(int fromDay, int toDay, boolean ascending, long skip, int count) {
+        TopIds top = new TopIds(count);
+        // Descending order is selected as ascending order of negated ids
+        index.scan(fromDay, toDay, Long.MIN_VALUE, 0, key -> {
+            top.offer(ascending ? BirthDateIndex.id(key) : -BirthDateIndex.id(key));
+            return true;
+        });
+        long[] ids = top.sorted();
+        List<User> users = new ArrayList<>(Math.max(ids.length - (int) skip, 0));
+        for (int i = (int) skip; i < ids.length; i++) {
+            User user = find(Math.abs(ids[i]));
+            if (user != null && epochDay(user.getBirthDate()) >= fromDay && epochDay(user.getBirthDate()) <= toDay) {
+                users.add(copy(user));
+            }
+        }
+        return users;
+    }
+
+    private User find(long id) {
+        if (id < 1 || id > BirthDateIndex.MAX_ID) {
+            return null;
+        }
+        AtomicReferenceArray<User>[] current = chunks;
+        int number = (int) (id >>> CHUNK_SHIFT);
+        return number < current.length && current[number] != null
+                ? current[number].get((int) id & CHUNK_MASK)
+                : null;
+    }
+
+    /**
+     * Replaces the stored user and its index key, must be called under the lock of the id
+     *
+     * @param stored  - currently stored {@link User}, null to insert
+     * @param updated - new {@link User}, null to delete
+     */
+    private void store(long id, User stored, User updated) {
+        chunk(id).set((int) id & CHUNK_MASK, updated);
+        boolean moved = stored == null || updated == null || !stored.getBirthDate().equals(updated.getBirthDate());
+        if (moved && updated != null) {
+            index.add(epochDay(updated.getBirthDate()), id);
+        }
+        if (moved && stored != null) {
+            index.remove(epochDay(stored.getBirthDate()), id);
+        }
+        if (stored == null) {
+            size.incrementAndGet();
+        } else if (updated == null) {
+            size.decrementAndGet();
+        }
+        changes.incrementAndGet();
+    }
+
+    /**
+     * @return chunk of the id, the chunk and the chunk directory are allocated when missing
+     */
+    private AtomicReferenceArray<User> chunk(long id) {
+        int number = (int) (id >>> CHUNK_SHIFT);
+        AtomicReferenceArray<User>[] current = chunks;
+        if (number < current.length && current[number] != null) {
+            return current[number];
+        }
+        chunksLock.lock();
+        try {
+            current = chunks;
+            if (number < current.length && current[number] != null) {
+                return current[number];
+            }
+            AtomicReferenceArray<User>[] updated = Arrays.copyOf(current, Math.max(number + 1, current.length));
+            updated[number] = new AtomicReferenceArray<>(CHUNK_SIZE);
+            chunks = updated;
+            return updated[number];
+        } finally {
+            chunksLock.unlock();
+        }
+    }
+
+    private ReentrantLock lock(long id) {
+        return stripes[(int) id & (STRIPES - 1)];
+    }
+
+    private static long checkId(long id) {
+        if (id < 1 || id > BirthDateIndex.MAX_ID) {
+            throw new IllegalArgumentException("User id " + id + " is out of the in-memory storage range");
+        }
+        return id;
+    }
+
+    private static int epochDay(LocalDate date) {
+        return Math.clamp(date.toEpochDay(), Integer.MIN_VALUE, Integer.MAX_VALUE - 1);
+    }
+
+    private static boolean isIndexOrder(List<Sort.Order> orders) {
+        return orders.size() <= 2
+                && orders.get(0).isAscending() && BIRTH_DATE.equals(orders.get(0).getProperty())
+                && (orders.size() == 1 || orders.get(1).isAscending() && ID.equals(orders.get(1).getProperty()));
+    }
+
+    private static int limit(Pageable pageable, int extra) {
+        return pageable.isPaged() ? pageable.getPageSize() + extra : Integer.MAX_VALUE - 1;
+    }
+
+    private static List<User> page(List<User> users, long offset, int limit) {
+        int from = (int) Math.min(offset, users.size());
+        return new ArrayList<>(users.subList(from, (int) Math.min((long) from + limit, users.size())));
+    }
+
+    private static Comparator<User> comparator(Sort sort) {
+        Comparator<User> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<User> attribute = ATTRIBUTES.get(order.getProperty());
+            if (attribute == null) {
+                throw new PropertyReferenceException(order.getProperty(), TypeInformation.of(User.class), List.of());
+            }
+            attribute = order.isAscending() ? attribute : attribute.reversed();
+            comparator = comparator == null ? attribute : comparator.thenComparing(attribute);
+        }
+        return comparator;
+    }
+
+    /**
+     * Nulls sort after values in ascending order, like in PostgreSQL
+     */
+    private static <T extends Comparable<? super T>> Comparator<User> attribute(Function<User, T> getter) {
+        return Comparator.comparing(getter, Comparator.nullsLast(Comparator.naturalOrder()));
+    }
+
+    private static boolean sameAttributes(User stored, User user) {
+        return Objects.equals(stored.getEmail(), user.getEmail())
+                && Objects.equals(stored.getFirstName(), user.getFirstName())
+                && Objects.equals(stored.getLastName(), user.getLastName())
+                && Objects.equals(stored.getBirthDate(), user.getBirthDate())
+                && Objects.equals(stored.getAddress(), user.getAddress())
+                && Objects.equals(stored.getPhoneNumber(), user.getPhoneNumber());
+    }
+
+    @SuppressWarnings("OptionalUsedAsFieldOrParameterType")
+    private static <T> T patch(Optional<T> value, T current) {
+        return value == null ? current : value.orElse(null);
+    }
+
+    private static User copy(User user) {
+        return User.builder()
+                .id(user.getId())
+                .email(user.getEmail())
+                .firstName(user.getFirstName())
+                .lastName(user.getLastName())
+                .birthDate(user.getBirthDate())
+                .address(user.getAddress())
+                .phoneNumber(user.getPhoneNumber())
+                .version(user.getVersion())
+                .build();
+    }
+
+    /**
+     * The smallest of the offered ids, kept in a bounded max-heap, so most ids are rejected by a single comparison
+     */
+    private static final class TopIds {
+        private final long[] heap;
+        private int size;
+
+        TopIds(int capacity) {
+            heap = new long[capacity];
+        }
+
+        void offer(long id) {
+            if (size < heap.length) {
+                int child = size++;
+                while (child > 0 && heap[(child - 1) / 2] < id) {
+                    heap[child] = heap[(child - 1) / 2];
+                    child = (child - 1) / 2;
+                }
+                heap[child] = id;
+            } else if (size > 0 && id < heap[0]) {
+                int parent = 0;
+                for (int child = 1; child < size; parent = child, child = 2 * child + 1) {
+                    if (child + 1 < size && heap[child + 1] > heap[child]) {
+                        child++;
+                    }
+                    if (heap[child] <= id) {
+                        break;
+                    }
+                    heap[parent] = heap[child];
+                }
+                heap[parent] = id;
+            }
+        }
+
+        long[] sorted() {
+            long[] ids = Arrays.copyOf(heap, size);
+            Arrays.sort(ids);
+            return ids;
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package ua.anton.tsa.testassignment.repo;
+
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PropertyReferenceException;
+import org.springframework.data.util.TypeInformation;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ua.anton.tsa.testassignment.model.User;
+import ua.anton.tsa.testassignment.wire.request.ModifyUserRequest;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static ua.anton.tsa.testassignment.Constants.REACTIVE_PROFILE;
+
+/**
+ * Reactive Users Repository over R2DBC.
+ * Mirrors the queries of {@link UsersRepository}, every statement is one round trip and rows are emitted on demand.
+ */
+@Repository
+@Profile(REACTIVE_PROFILE)
+@RequiredArgsConstructor
+public class ReactiveUsersRepository {
+    public static final int EXPORT_FETCH_SIZE = Integer.parseInt(UsersRepository.EXPORT_FETCH_SIZE);
+
+    private static final Map<String, String> COLUMNS = Map.of(
+            "id", "id",
+            "email", "email",
+            "firstName", "first_name",
+            "lastName", "last_name",
+            "birthDate", "birth_date",
+            "address", "address",
+            "phoneNumber", "phone_number"
+    );
+    private static final String SELECT = """
+            SELECT id, email, first_name, last_name, birth_date, address, phone_number, version
+            FROM usr""";
+    private static final String IN_RANGE = " WHERE birth_date BETWEEN :from AND :to";
+    private static final String KEYSET_ORDER = " ORDER BY birth_date, id LIMIT :limit";
+    private static final String INSERT = """
+            INSERT INTO usr (id, email, first_name, last_name, birth_date, address, phone_number)
+            VALUES (nextval('user_id_sequence'), :email, :firstName, :lastName, :birthDate, :address, :phoneNumber)
+            RETURNING id""";
+    private static final String REPLACE = """
+            UPDATE usr
+            SET email = :email,
+                first_name = :firstName,
+                last_name = :lastName,
+                birth_date = :birthDate,
+                address = :address,
+                phone_number = :phoneNumber,
+                version = version + 1
+            WHERE id = :id
+              AND (email IS DISTINCT FROM :email
+                OR first_name IS DISTINCT FROM :firstName
+                OR last_name IS DISTINCT FROM :lastName
+                OR birth_date IS DISTINCT FROM :birthDate
+                OR address IS DISTINCT FROM :address
+                OR phone_number IS DISTINCT FROM :phoneNumber)""";
+    private static final String VERSION_MATCHES = " AND version = :expectedVersion";
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Inserts new User entry
+     *
+     * @param user - {@link User} object without unique identifier
+     * @return {@link Mono} of {@link Long} unique identifier of the inserted entry
+     */
+    public Mono<Long> insert(User user) {
+        return bindValues(databaseClient.sql(INSERT), user)
+                .map(row -> row.get("id", Long.class))
+                .one();
+    }
+
+    /**
+     * Retrieves one User entry
+     *
+     * @param id - {@link Long} unique entry identifier
+     * @return {@link Mono} of {@link User}, empty if the entry does not exist
+     */
+    public Mono<User> findById(Long id) {
+        return databaseClient.sql(SELECT + " WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveUsersRepository::toUser)
+                .one();
+    }
+
+    /**
+     * Retrieves the version of the User entry
+     *
+     * @param id - {@link Long} unique entry identifier
+     * @return {@link Mono} of {@link Long} version, empty if the entry does not exist
+     */
+    public Mono<Long> findVersionById(Long id) {
+        return databaseClient.sql("SELECT version FROM usr WHERE id = :id")
+                .bind("id", id)
+                .map(row -> row.get("version", Long.class))
+                .one();
+    }
+
+    /**
+     * Counts statements that wrote usr, the counter is maintained by the trigger of V4__count_usr_changes.sql
+     *
+     * @return {@link Mono} of {@link Long} number of committed writes
+     */
+    public Mono<Long> countChanges() {
+        return databaseClient.sql("SELECT CAST(coalesce(sum(changes), 0) AS BIGINT) AS changes FROM usr_changes")
+                .map(row -> row.get("changes", Long.class))
+                .one();
+    }
+
+    /**
+     * Counts users in the birthdate range
+     *
+     * @param from - {@link LocalDate} param of min date
+     * @param to   - {@link LocalDate} param of max date
+     * @return {@link Mono} of {@link Long} number of users
+     */
+    public Mono<Long> countByBirthDateBetween(LocalDate from, LocalDate to) {
+        return databaseClient.sql("SELECT count(*) AS total FROM usr" + IN_RANGE)
+                .bind("from", from)
+                .bind("to", to)
+                .map(row -> row.get("total", Long.class))
+                .one();
+    }
+
+    /**
+     * Retrieves users in the birthdate range by offset pagination
+     *
+     * @param from     - {@link LocalDate} param of min date
+     * @param to       - {@link LocalDate} param of max date
+     * @param pageable - {@link Pageable} with page params and sort by {@link User} properties
+     * @param limit    - max number of rows to fetch, may exceed the page size to find out whether the next page exists
+     * @return {@link Flux} of {@link User} objects
+     */
+    public Flux<User> findByBirthDateBetween(LocalDate from, LocalDate to, Pageable pageable, int limit) {
+        return databaseClient.sql(SELECT + IN_RANGE + orderBy(pageable.getSort()) + " LIMIT :limit OFFSET :offset")
+                .bind("from", from)
+                .bind("to", to)
+                .bind("limit", limit)
+                .bind("offset", pageable.getOffset())
+                .map(ReactiveUsersRepository::toUser)
+                .all();
+    }
+
+    /**
+     * Retrieves the keyset page ordered by (birthDate, id), see {@link UsersRepository#findKeysetPageAfter}
+     *
+     * @param from      - {@link LocalDate} param of min date
+     * @param to        - {@link LocalDate} param of max date
+     * @param birthDate - {@link LocalDate} birthdate of the last seen row, or null for the first page
+     * @param id        - {@link Long} unique identifier of the last seen row, or null for the first page
+     * @param limit     - max number of rows to fetch
+     * @return {@link Flux} of {@link User} objects
+     */
+    public Flux<User> findKeysetPage(LocalDate from, LocalDate to, LocalDate birthDate, Long id, int limit) {
+        if (birthDate == null) {
+            return databaseClient.sql(SELECT + IN_RANGE + KEYSET_ORDER)
+                    .bind("from", from)
+                    .bind("to", to)
+                    .bind("limit", limit)
+                    .map(ReactiveUsersRepository::toUser)
+                    .all();
+        }
+        return databaseClient.sql(SELECT + IN_RANGE + " AND (birth_date, id) > (:birthDate, :id)" + KEYSET_ORDER)
+                .bind("from", from)
+                .bind("to", to)
+                .bind("birthDate", birthDate)
+                .bind("id", id)
+                .bind("limit", limit)
+                .map(ReactiveUsersRepository::toUser)
+                .all();
+    }
+
+    /**
+     * Streams all users in the birthdate range ordered by (birthDate, id).
+     * Rows are fetched from the server in chunks of {@link #EXPORT_FETCH_SIZE} as the subscriber requests them,
+     * so a slow consumer holds back the query instead of buffering the range.
+     *
+     * @param from - {@link LocalDate} param of min date
+     * @param to   - {@link LocalDate} param of max date
+     * @return {@link Flux} of {@link User} objects
+     */
+    public Flux<User> streamByBirthDateBetween(LocalDate from, LocalDate to) {
+        return databaseClient.sql(SELECT + IN_RANGE + " ORDER BY birth_date, id")
+                .filter(statement -> statement.fetchSize(EXPORT_FETCH_SIZE))
+                .bind("from", from)
+                .bind("to", to)
+                .map(ReactiveUsersRepository::toUser)
+                .all();
+    }
+
+    /**
+     * Overwrites all columns of the User entry, see {@link UsersRepository#replaceIfChanged}
+     *
+     * @param user            - {@link User} object with the unique identifier and new values
+     * @param expectedVersion - nullable {@link Long} version the entry must have to be updated
+     * @return {@link Mono} of number of updated rows
+     */
+    public Mono<Long> replaceIfChanged(User user, Long expectedVersion) {
+        GenericExecuteSpec spec = bindValues(
+                databaseClient.sql(expectedVersion == null ? REPLACE : REPLACE + VERSION_MATCHES), user)
+                .bind("id", user.getId());
+        return bindVersion(spec, expectedVersion).fetch().rowsUpdated();
+    }
+
+    /**
+     * Updates only the members of a merge patch of one User, see {@link UsersRepositoryCustom#updateAttributes}
+     *
+     * @param id                - {@link Long} unique identifier of the User
+     * @param modifyUserRequest - {@link ModifyUserRequest} with new values, null members remove the values
+     * @param expectedVersion   - nullable {@link Long} version the User must have to be updated
+     * @return {@link Mono} of number of updated rows
+     */
+    public Mono<Long> updateAttributes(Long id, ModifyUserRequest modifyUserRequest, Long expectedVersion) {
+        StringBuilder sql = new StringBuilder("UPDATE usr SET ");
+        Map<String, Optional<?>> attributes = new LinkedHashMap<>();
+        attributes.put(ModifyUserRequest.EMAIL, modifyUserRequest.email());
+        attributes.put(ModifyUserRequest.FIRST_NAME, modifyUserRequest.firstName());
+        attributes.put(ModifyUserRequest.LAST_NAME, modifyUserRequest.lastName());
+        attributes.put(ModifyUserRequest.BIRTH_DATE, modifyUserRequest.birthDate());
+        attributes.put(ModifyUserRequest.ADDRESS, modifyUserRequest.address());
+        attributes.put(ModifyUserRequest.PHONE_NUMBER, modifyUserRequest.phoneNumber());
+        attributes.values().removeIf(Objects::isNull);
+        attributes.keySet().forEach(attribute -> sql.append(column(attribute)).append(" = :").append(attribute)
+                .append(", "));
+        sql.append("version = version + 1 WHERE id = :id");
+        if (expectedVersion != null) {
+            sql.append(VERSION_MATCHES);
+        }
+        GenericExecuteSpec spec = databaseClient.sql(sql.toString()).bind("id", id);
+        for (Map.Entry<String, Optional<?>> attribute : attributes.entrySet()) {
+            Optional<?> value = attribute.getValue();
+            spec = value.isPresent()
+                    ? spec.bind(attribute.getKey(), value.get())
+                    : spec.bindNull(attribute.getKey(), String.class);
+        }
+        return bindVersion(spec, expectedVersion).fetch().rowsUpdated();
+    }
+
+    /**
+     * Removes the User entry
+     *
+     * @param id - {@link Long} unique entry identifier
+     * @return {@link Mono} of number of deleted rows
+     */
+    public Mono<Long> deleteById(Long id) {
+        return databaseClient.sql("DELETE FROM usr WHERE id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private static GenericExecuteSpec bindValues(GenericExecuteSpec spec, User user) {
+        return bindNullable(bindNullable(spec, "address", user.getAddress()), "phoneNumber", user.getPhoneNumber())
+                .bind("email", user.getEmail())
+                .bind("firstName", user.getFirstName())
+                .bind("lastName", user.getLastName())
+                .bind("birthDate", user.getBirthDate());
+    }
+
+    private static GenericExecuteSpec bindNullable(GenericExecuteSpec spec, String name, String value) {
+        return value == null ? spec.bindNull(name, String.class) : spec.bind(name, value);
+    }
+
+    private static GenericExecuteSpec bindVersion(GenericExecuteSpec spec, Long expectedVersion) {
+        return expectedVersion == null ? spec : spec.bind("expectedVersion", expectedVersion);
+    }
+
+    private static String orderBy(Sort sort) {
+        if (sort.isUnsorted()) {
+            return "";
+        }
+        return sort.stream()
+                .map(order -> column(order.getProperty()) + " " + order.getDirection().name())
+                .collect(Collectors.joining(", ", " ORDER BY ", ""));
+    }
+
+    private static String column(String property) {
+        String column = COLUMNS.get(property);
+        if (column == null) {
+            throw new PropertyReferenceException(property, TypeInformation.of(User.class), List.of());
+        }
+        return column;
+    }
+
+    private static User toUser(Readable row) {
+        return User.builder()
+                .id(row.get("id", Long.class))
+                .email(row.get("email", String.class))
+                .firstName(row.get("first_name", String.class))
+                .lastName(row.get("last_name", String.class))
+                .birthDate(row.get("birth_date", LocalDate.class))
+                .address(row.get("address", String.class))
+                .phoneNumber(row.get("phone_number", String.class))
+                .version(row.get("version", Long.class))
+                .build();
+    }
+}
@@ -1,17 +1,158 @@
 package ua.anton.tsa.testassignment.repo;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import ua.anton.tsa.testassignment.model.User;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
- * Users Repository
+ * Users Repository, the JPA {@link UsersStorage}
  */
 @Repository
-public interface UsersRepository extends JpaRepository<User, Long> {
+public interface UsersRepository extends JpaRepository<User, Long>, UsersRepositoryCustom, UsersStorage {
+    String EXPORT_FETCH_SIZE = "1000";
+
+    @Override
+    <S extends User> S save(S user);
+
+    @Override
+    <S extends User> List<S> saveAllAndFlush(Iterable<S> users);
+
+    @Override
+    Optional<User> findById(Long id);
+
+    @Override
+    void detach(User user);
+
     Page<User> findAllByBirthDateBetween(LocalDate from, LocalDate to, Pageable pageable);
+
+    /**
+     * Retrieves a page without running the count query.
+     * Fetches (page size + 1) rows to find out whether the next page exists.
+     *
+     * @param from     - {@link LocalDate} param of min date
+     * @param to       - {@link LocalDate} param of max date
+     * @param pageable - {@link Pageable} with page params
+     * @return {@link Slice} of {@link User} objects
+     */
+    Slice<User> findSliceByBirthDateBetween(LocalDate from, LocalDate to, Pageable pageable);
+
+    /**
+     * Retrieves the first keyset page ordered by (birthDate, id)
+     *
+     * @param from  - {@link LocalDate} param of min date
+     * @param to    - {@link LocalDate} param of max date
+     * @param limit - max number of rows to fetch
+     * @return {@link List} of {@link User} objects
+     */
+    @Query(value = """
+            SELECT * FROM usr
+            WHERE birth_date BETWEEN :from AND :to
+            ORDER BY birth_date, id
+            LIMIT :limit""",
+            nativeQuery = true)
+    List<User> findKeysetPage(LocalDate from, LocalDate to, int limit);
+
+    /**
+     * Retrieves the keyset page that follows (birthDate, id) pair, ordered by (birthDate, id).
+     * Uses a row-value seek predicate, so the cost does not depend on how deep the page is.
+     *
+     * @param from      - {@link LocalDate} param of min date
+     * @param to        - {@link LocalDate} param of max date
+     * @param birthDate - {@link LocalDate} birthdate of the last seen row
+     * @param id        - {@link Long} unique identifier of the last seen row
+     * @param limit     - max number of rows to fetch
+     * @return {@link List} of {@link User} objects
+     */
+    @Query(value = """
+            SELECT * FROM usr
+            WHERE birth_date BETWEEN :from AND :to
+              AND (birth_date, id) > (:birthDate, :id)
+            ORDER BY birth_date, id
+            LIMIT :limit""",
+            nativeQuery = true)
+    List<User> findKeysetPageAfter(LocalDate from, LocalDate to, LocalDate birthDate, Long id, int limit);
+
+    /**
+     * Streams all users in the birthdate range ordered by (birthDate, id).
+     * Rows are fetched from the JDBC cursor in chunks of {@link #EXPORT_FETCH_SIZE}, the stream must be consumed
+     * and closed inside a transaction.
+     *
+     * @param from - {@link LocalDate} param of min date
+     * @param to   - {@link LocalDate} param of max date
+     * @return {@link Stream} of {@link User} objects
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<User> streamAllByBirthDateBetweenOrderByBirthDateAscIdAsc(LocalDate from, LocalDate to);
+
+    /**
+     * Retrieves the version of the User entry
+     *
+     * @param id - {@link Long} unique entry identifier
+     * @return {@link Optional} of {@link Long} version, empty if the entry does not exist
+     */
+    @Query("SELECT u.version FROM User u WHERE u.id = :id")
+    Optional<Long> findVersionById(Long id);
+
+    /**
+     * Overwrites all columns of the User entry by a single UPDATE statement without loading the entity.
+     * The row is not touched when the stored values are identical to the given ones. The version of the entry is
+     * incremented and, when expected version is given, checked by the same statement.
+     *
+     * @param user            - {@link User} object with the unique identifier and new values
+     * @param expectedVersion - nullable {@link Long} version the entry must have to be updated
+     * @return number of updated rows, 0 if the entry does not exist, has another version or nothing has changed
+     */
+    @Modifying
+    @Query("""
+            UPDATE User u
+            SET u.email = :#{#user.email},
+                u.firstName = :#{#user.firstName},
+                u.lastName = :#{#user.lastName},
+                u.birthDate = :#{#user.birthDate},
+                u.address = :#{#user.address},
+                u.phoneNumber = :#{#user.phoneNumber},
+                u.version = u.version + 1
+            WHERE u.id = :#{#user.id}
+              AND (:expectedVersion IS NULL OR u.version = :expectedVersion)
+              AND (u.email IS DISTINCT FROM :#{#user.email}
+                OR u.firstName IS DISTINCT FROM :#{#user.firstName}
+                OR u.lastName IS DISTINCT FROM :#{#user.lastName}
+                OR u.birthDate IS DISTINCT FROM :#{#user.birthDate}
+                OR u.address IS DISTINCT FROM :#{#user.address}
+                OR u.phoneNumber IS DISTINCT FROM :#{#user.phoneNumber})""")
+    int replaceIfChanged(User user, Long expectedVersion);
+
+    /**
+     * Removes the User entry by a single DELETE statement without loading the entity.
+     *
+     * @param id - {@link Long} unique entry identifier
+     * @return number of deleted rows, 0 if the entry does not exist
+     */
+    @Modifying
+    @Query("DELETE FROM User u WHERE u.id = :id")
+    int deleteUserById(Long id);
+
+    /**
+     * Counts statements that wrote usr, the counter is maintained by the trigger of V4__count_usr_changes.sql
+     *
+     * @return number of committed writes
+     */
+    @Query(value = "SELECT CAST(coalesce(sum(changes), 0) AS BIGINT) FROM usr_changes", nativeQuery = true)
+    long countChanges();
 }
@@ -0,0 +1,28 @@
+package ua.anton.tsa.testassignment.repo;
+
+import ua.anton.tsa.testassignment.model.User;
+import ua.anton.tsa.testassignment.wire.request.ModifyUserRequest;
+
+/**
+ * Users Repository operations that are not covered by Spring Data query derivation
+ */
+public interface UsersRepositoryCustom {
+
+    /**
+     * Removes the entity from the persistence context, so long-running reads do not accumulate managed entities
+     *
+     * @param user - {@link User} object to detach
+     */
+    void detach(User user);
+
+    /**
+     * Updates only the members of a merge patch of one User with a single UPDATE statement, without loading the entity.
+     * The version of the User is incremented and, when expected version is given, checked by the same statement.
+     *
+     * @param id                - {@link Long} unique identifier of the User
+     * @param modifyUserRequest - {@link ModifyUserRequest} with new values, null members remove the values
+     * @param expectedVersion   - nullable {@link Long} version the User must have to be updated
+     * @return number of updated rows, 0 if there is no User with given id and version
+     */
+    int updateAttributes(Long id, ModifyUserRequest modifyUserRequest, Long expectedVersion);
+}
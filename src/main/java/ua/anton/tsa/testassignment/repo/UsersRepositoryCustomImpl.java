@@ -0,0 +1,66 @@
+package ua.anton.tsa.testassignment.repo;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.transaction.annotation.Transactional;
+import ua.anton.tsa.testassignment.model.User;
+import ua.anton.tsa.testassignment.wire.request.ModifyUserRequest;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * JPA implementation of {@link UsersRepositoryCustom}
+ */
+public class UsersRepositoryCustomImpl implements UsersRepositoryCustom {
+    private static final String ID = "id";
+    private static final String VERSION = "version";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void detach(User user) {
+        entityManager.detach(user);
+    }
+
+    @Override
+    @Transactional
+    public int updateAttributes(Long id, ModifyUserRequest modifyUserRequest, Long expectedVersion) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<User> update = criteriaBuilder.createCriteriaUpdate(User.class);
+        Root<User> root = update.from(User.class);
+        Path<Long> version = root.get(VERSION);
+        set(update, root, criteriaBuilder, ModifyUserRequest.EMAIL, String.class, modifyUserRequest.email());
+        set(update, root, criteriaBuilder, ModifyUserRequest.FIRST_NAME, String.class, modifyUserRequest.firstName());
+        set(update, root, criteriaBuilder, ModifyUserRequest.LAST_NAME, String.class, modifyUserRequest.lastName());
+        set(update, root, criteriaBuilder, ModifyUserRequest.BIRTH_DATE, LocalDate.class,
+                modifyUserRequest.birthDate());
+        set(update, root, criteriaBuilder, ModifyUserRequest.ADDRESS, String.class, modifyUserRequest.address());
+        set(update, root, criteriaBuilder, ModifyUserRequest.PHONE_NUMBER, String.class,
+                modifyUserRequest.phoneNumber());
+        update.set(version, criteriaBuilder.sum(version, 1L));
+        Predicate predicate = criteriaBuilder.equal(root.get(ID), id);
+        if (expectedVersion != null) {
+            predicate = criteriaBuilder.and(predicate, criteriaBuilder.equal(version, expectedVersion));
+        }
+        update.where(predicate);
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    @SuppressWarnings("OptionalUsedAsFieldOrParameterType")
+    private static <T> void set(CriteriaUpdate<User> update, Root<User> root, CriteriaBuilder criteriaBuilder,
+                                String attribute, Class<T> type, Optional<T> value) {
+        if (value != null) {
+            Path<T> path = root.get(attribute);
+            update.set(path, value.isPresent()
+                    ? criteriaBuilder.literal(value.get())
+                    : criteriaBuilder.nullLiteral(type));
+        }
+    }
+}
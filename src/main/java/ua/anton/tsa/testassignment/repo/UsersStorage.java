@@ -0,0 +1,119 @@
+package ua.anton.tsa.testassignment.repo;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import ua.anton.tsa.testassignment.model.User;
+import ua.anton.tsa.testassignment.wire.request.ModifyUserRequest;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Storage of users used by {@link ua.anton.tsa.testassignment.service.UsersService}.
+ * Implemented by {@link UsersRepository} on top of JPA, and by {@link InMemoryUsersRepository} in "memory" profile.
+ */
+public interface UsersStorage {
+
+    /**
+     * @param user - {@link User} object to insert, or to update when it has an identifier
+     * @return saved {@link User} object with the identifier and the version
+     */
+    <S extends User> S save(S user);
+
+    /**
+     * @param users - {@link Iterable} of {@link User} objects to insert
+     * @return {@link List} of saved {@link User} objects, written to the storage by the time it returns
+     */
+    <S extends User> List<S> saveAllAndFlush(Iterable<S> users);
+
+    /**
+     * Releases the user read or saved by the storage, so long-running operations do not accumulate them.
+     * Storages that do not track returned users ignore it.
+     *
+     * @param user - {@link User} object to release
+     */
+    default void detach(User user) {
+    }
+
+    /**
+     * @param id - {@link Long} unique entry identifier
+     * @return {@link Optional} of {@link User}, empty if the entry does not exist
+     */
+    Optional<User> findById(Long id);
+
+    /**
+     * @param id - {@link Long} unique entry identifier
+     * @return {@link Optional} of {@link Long} version, empty if the entry does not exist
+     */
+    Optional<Long> findVersionById(Long id);
+
+    /**
+     * @param from     - {@link LocalDate} param of min date
+     * @param to       - {@link LocalDate} param of max date
+     * @param pageable - {@link Pageable} with page params
+     * @return {@link Page} of {@link User} objects with the total count
+     */
+    Page<User> findAllByBirthDateBetween(LocalDate from, LocalDate to, Pageable pageable);
+
+    /**
+     * @param from     - {@link LocalDate} param of min date
+     * @param to       - {@link LocalDate} param of max date
+     * @param pageable - {@link Pageable} with page params
+     * @return {@link Slice} of {@link User} objects without the total count
+     */
+    Slice<User> findSliceByBirthDateBetween(LocalDate from, LocalDate to, Pageable pageable);
+
+    /**
+     * @param from  - {@link LocalDate} param of min date
+     * @param to    - {@link LocalDate} param of max date
+     * @param limit - max number of rows to fetch
+     * @return {@link List} of the first {@link User} objects of the range ordered by (birthDate, id)
+     */
+    List<User> findKeysetPage(LocalDate from, LocalDate to, int limit);
+
+    /**
+     * @param from      - {@link LocalDate} param of min date
+     * @param to        - {@link LocalDate} param of max date
+     * @param birthDate - {@link LocalDate} birthdate of the last seen row
+     * @param id        - {@link Long} unique identifier of the last seen row
+     * @param limit     - max number of rows to fetch
+     * @return {@link List} of {@link User} objects following the last seen row, ordered by (birthDate, id)
+     */
+    List<User> findKeysetPageAfter(LocalDate from, LocalDate to, LocalDate birthDate, Long id, int limit);
+
+    /**
+     * @param from - {@link LocalDate} param of min date
+     * @param to   - {@link LocalDate} param of max date
+     * @return {@link Stream} of all {@link User} objects of the range ordered by (birthDate, id), to be closed
+     */
+    Stream<User> streamAllByBirthDateBetweenOrderByBirthDateAscIdAsc(LocalDate from, LocalDate to);
+
+    /**
+     * @param user            - {@link User} object with the unique identifier and new values
+     * @param expectedVersion - nullable {@link Long} version the entry must have to be replaced
+     * @return number of replaced entries, 0 if the entry does not exist, has another version or nothing has changed
+     */
+    int replaceIfChanged(User user, Long expectedVersion);
+
+    /**
+     * @param id                - {@link Long} unique identifier of the User
+     * @param modifyUserRequest - {@link ModifyUserRequest} with new values, null members remove the values
+     * @param expectedVersion   - nullable {@link Long} version the User must have to be updated
+     * @return number of updated entries, 0 if there is no User with given id and version
+     */
+    int updateAttributes(Long id, ModifyUserRequest modifyUserRequest, Long expectedVersion);
+
+    /**
+     * @param id - {@link Long} unique entry identifier
+     * @return number of deleted entries, 0 if the entry does not exist
+     */
+    int deleteUserById(Long id);
+
+    /**
+     * @return number of committed writes of the storage, the same for every instance sharing the storage
+     */
+    long countChanges();
+}
@@ -0,0 +1,262 @@
+package ua.anton.tsa.testassignment.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.web.client.HttpClientErrorException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ua.anton.tsa.testassignment.exceptions.InvalidPeriodException;
+import ua.anton.tsa.testassignment.mapper.UserMapper;
+import ua.anton.tsa.testassignment.model.User;
+import ua.anton.tsa.testassignment.repo.ReactiveUsersRepository;
+import ua.anton.tsa.testassignment.wire.KeysetCursor;
+import ua.anton.tsa.testassignment.wire.request.CreateUserRequest;
+import ua.anton.tsa.testassignment.wire.request.ModifyUserRequest;
+import ua.anton.tsa.testassignment.wire.request.ReplaceUserRequest;
+import ua.anton.tsa.testassignment.wire.response.CreateUsersBatchResponse;
+import ua.anton.tsa.testassignment.wire.response.RetrieveUsersResponse;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static ua.anton.tsa.testassignment.Constants.REACTIVE_PROFILE;
+import static ua.anton.tsa.testassignment.service.UsersService.KEYSET_SORT;
+
+/**
+ * Reactive User Service, the non-blocking counterpart of {@link UsersService} with the same business rules.
+ * Nothing is executed until the returned publisher is subscribed.
+ */
+@Slf4j
+@Service
+@Profile(REACTIVE_PROFILE)
+@RequiredArgsConstructor
+public class ReactiveUsersService {
+    private static final String NOT_FOUND_MESSAGE = "User with given id is not found";
+
+    private final ReactiveUsersRepository usersRepository;
+    private final UserMapper userMapper;
+    private final UserRules userRules;
+    private final TransactionalOperator transactionalOperator;
+
+    /**
+     * Creates new User entry in storage.
+     *
+     * @param createUserRequest - {@link CreateUserRequest} create request object
+     * @return {@link Mono} of {@link Long} unique id of the User in storage
+     */
+    public Mono<Long> create(CreateUserRequest createUserRequest) {
+        return Mono.fromCallable(() -> {
+                    User user = userMapper.toUser(createUserRequest);
+                    userRules.checkMinAge(user.getBirthDate());
+                    return user;
+                })
+                .flatMap(usersRepository::insert);
+    }
+
+    /**
+     * Creates new User entries in storage within one transaction.
+     * Every item is validated on its own, so one invalid item does not reject the whole batch.
+     * Valid items are inserted one after another over the same connection.
+     *
+     * @param createUserRequests - {@link List} of {@link CreateUserRequest} create request objects
+     * @return {@link Mono} of {@link CreateUsersBatchResponse} with ids of created Users and errors of rejected ones
+     */
+    public Mono<CreateUsersBatchResponse> createAll(List<CreateUserRequest> createUserRequests) {
+        List<CreateUsersBatchResponse.Error> errors = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>(createUserRequests.size());
+        for (int index = 0; index < createUserRequests.size(); index++) {
+            String error = userRules.validate(createUserRequests.get(index));
+            if (error != null) {
+                errors.add(new CreateUsersBatchResponse.Error(index, error));
+            } else {
+                indexes.add(index);
+            }
+        }
+        return Flux.fromIterable(indexes)
+                .concatMap(index -> usersRepository.insert(userMapper.toUser(createUserRequests.get(index)))
+                        .map(id -> new CreateUsersBatchResponse.Created(index, id)))
+                .collectList()
+                .as(transactionalOperator::transactional)
+                .map(created -> CreateUsersBatchResponse.builder()
+                        .created(created)
+                        .errors(errors)
+                        .build());
+    }
+
+    /**
+     * Replaces e.g. Updates User entry by a single UPDATE statement, see {@link UsersService#replace}
+     *
+     * @param id                 - {@link Long} unique id of the User in storage
+     * @param replaceUserRequest - {@link ReplaceUserRequest} replace request object
+     * @param expectedVersion    - nullable {@link Long} version the User must have to be replaced
+     * @return empty {@link Mono} completed when the User is replaced
+     */
+    public Mono<Void> replace(Long id, ReplaceUserRequest replaceUserRequest, Long expectedVersion) {
+        return Mono.fromCallable(() -> {
+                    userRules.checkMinAge(replaceUserRequest.birthDate());
+                    return userMapper.toUser(id, replaceUserRequest);
+                })
+                .flatMap(user -> usersRepository.replaceIfChanged(user, expectedVersion))
+                .flatMap(updated -> updated > 0 ? Mono.<Void>empty() : checkNotUpdated(id, expectedVersion));
+    }
+
+    /**
+     * Partially Updates User entry by a single UPDATE statement, see {@link UsersService#modify}
+     *
+     * @param id                - {@link Long} unique id of the User in storage
+     * @param modifyUserRequest - {@link ModifyUserRequest} modify request object
+     * @param expectedVersion   - nullable {@link Long} version the User must have to be modified
+     * @return empty {@link Mono} completed when the User is modified
+     */
+    public Mono<Void> modify(Long id, ModifyUserRequest modifyUserRequest, Long expectedVersion) {
+        return Mono.fromCallable(() -> {
+                    userRules.checkMinAge(modifyUserRequest);
+                    return modifyUserRequest;
+                })
+                .flatMap(request -> request.isEmpty()
+                        ? Mono.just(0L)
+                        : usersRepository.updateAttributes(id, request, expectedVersion))
+                .flatMap(updated -> updated > 0 ? Mono.<Void>empty() : checkNotUpdated(id, expectedVersion));
+    }
+
+    /**
+     * Retrieves one User by unique identifier.
+     *
+     * @param id - {@link Long} unique entry identifier
+     * @return {@link Mono} of {@link RetrieveUsersResponse} object
+     */
+    public Mono<RetrieveUsersResponse> retrieve(Long id) {
+        return usersRepository.findById(id)
+                .map(userMapper::toRetrieveUsersResponse)
+                .switchIfEmpty(Mono.error(() -> new HttpClientErrorException(HttpStatus.NOT_FOUND, NOT_FOUND_MESSAGE)));
+    }
+
+    /**
+     * Retrieves users by offset pagination, the page and the count are queried concurrently.
+     *
+     * @param pageable - {@link Pageable}
+     * @param from     - {@link LocalDate} param of min date
+     * @param to       - {@link LocalDate} param of max date
+     * @return {@link Mono} of {@link Page} of {@link User} objects
+     */
+    public Mono<Page<User>> retrieve(Pageable pageable, LocalDate from, LocalDate to) {
+        return validated(from, to)
+                .then(Mono.zip(
+                        usersRepository.findByBirthDateBetween(from, to, pageable, pageable.getPageSize())
+                                .collectList(),
+                        usersRepository.countByBirthDateBetween(from, to)))
+                .map(page -> new PageImpl<>(page.getT1(), pageable, page.getT2()));
+    }
+
+    /**
+     * Retrieves users by offset pagination without counting total elements.
+     *
+     * @param pageable - {@link Pageable}
+     * @param from     - {@link LocalDate} param of min date
+     * @param to       - {@link LocalDate} param of max date
+     * @return {@link Mono} of {@link Slice} of {@link User} objects
+     */
+    public Mono<Slice<User>> retrieveSlice(Pageable pageable, LocalDate from, LocalDate to) {
+        return validated(from, to)
+                .thenMany(usersRepository.findByBirthDateBetween(from, to, pageable, pageable.getPageSize() + 1))
+                .collectList()
+                .map(users -> slice(users, pageable));
+    }
+
+    /**
+     * Retrieves users by keyset (seek) pagination ordered by (birthDate, id).
+     *
+     * @param size  - page size
+     * @param from  - {@link LocalDate} param of min date
+     * @param to    - {@link LocalDate} param of max date
+     * @param after - {@link KeysetCursor} of the last seen row, or null for the first page
+     * @return {@link Mono} of {@link Slice} of {@link User} objects
+     */
+    public Mono<Slice<User>> retrieve(int size, LocalDate from, LocalDate to, KeysetCursor after) {
+        return validated(from, to)
+                .thenMany(after == null
+                        ? usersRepository.findKeysetPage(from, to, null, null, size + 1)
+                        : usersRepository.findKeysetPage(from, to, after.birthDate(), after.id(), size + 1))
+                .collectList()
+                .map(users -> slice(users, PageRequest.of(0, size, KEYSET_SORT)));
+    }
+
+    /**
+     * Streams all users in the birthdate range ordered by (birthDate, id).
+     * Rows are pulled from storage only as fast as the subscriber consumes them.
+     *
+     * @param from - {@link LocalDate} param of min date
+     * @param to   - {@link LocalDate} param of max date
+     * @return {@link Flux} of {@link RetrieveUsersResponse} objects
+     */
+    public Flux<RetrieveUsersResponse> export(LocalDate from, LocalDate to) {
+        return validated(from, to)
+                .thenMany(usersRepository.streamByBirthDateBetween(from, to))
+                .map(userMapper::toRetrieveUsersResponse);
+    }
+
+    /**
+     * Remove one User by unique identifier
+     *
+     * @param id - {@link Long} unique entry identifier
+     * @return empty {@link Mono} completed when the User is removed
+     */
+    public Mono<Void> remove(Long id) {
+        return usersRepository.deleteById(id)
+                .flatMap(deleted -> deleted == 0
+                        ? Mono.error(new HttpClientErrorException(HttpStatus.NOT_FOUND, NOT_FOUND_MESSAGE))
+                        : Mono.<Void>empty());
+    }
+
+    /**
+     * Returns the current version of the users storage, it changes after every committed write of any instance.
+     *
+     * @return {@link Mono} of {@link String} version usable as an entity tag
+     */
+    public Mono<String> version() {
+        return usersRepository.countChanges().map(String::valueOf);
+    }
+
+    /**
+     * Checks that the birthdate range is not reversed
+     *
+     * @param from - {@link LocalDate} param of min date
+     * @param to   - {@link LocalDate} param of max date
+     */
+    public void validatePeriod(LocalDate from, LocalDate to) throws InvalidPeriodException {
+        userRules.validatePeriod(from, to);
+    }
+
+    private Mono<Void> validated(LocalDate from, LocalDate to) {
+        return Mono.fromCallable(() -> {
+            userRules.validatePeriod(from, to);
+            return Boolean.TRUE;
+        }).then();
+    }
+
+    private Mono<Void> checkNotUpdated(Long id, Long expectedVersion) {
+        return usersRepository.findVersionById(id)
+                .switchIfEmpty(Mono.error(() -> new HttpClientErrorException(HttpStatus.NOT_FOUND, NOT_FOUND_MESSAGE)))
+                .flatMap(version -> expectedVersion != null && !expectedVersion.equals(version)
+                        ? Mono.error(new HttpClientErrorException(
+                                HttpStatus.PRECONDITION_FAILED, "User has been changed by another request"))
+                        : Mono.empty());
+    }
+
+    private static Slice<User> slice(List<User> users, Pageable pageable) {
+        int size = pageable.getPageSize();
+        boolean hasNext = users.size() > size;
+        return new SliceImpl<>(hasNext ? users.subList(0, size) : users, pageable, hasNext);
+    }
+}
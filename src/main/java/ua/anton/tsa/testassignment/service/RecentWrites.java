@@ -0,0 +1,60 @@
+package ua.anton.tsa.testassignment.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.CollectionUtils;
+import ua.anton.tsa.testassignment.configuration.ReplicationProperties;
+
+import static ua.anton.tsa.testassignment.Constants.SERVLET_PROFILE;
+
+/**
+ * Ids of users written through this instance within "replication.max-lag" when replicas are configured.
+ * A replica may still serve the old row of such a user, so {@link UsersService} does not cache it until the lag has
+ * passed. Without replicas nothing is recorded.
+ */
+@Component
+@Profile(SERVLET_PROFILE)
+public class RecentWrites {
+    private final boolean enabled;
+    private final Cache<Long, Boolean> ids;
+
+    public RecentWrites(ReplicationProperties replicationProperties) {
+        this.enabled = !CollectionUtils.isEmpty(replicationProperties.replicas());
+        this.ids = Caffeine.newBuilder()
+                .expireAfterWrite(replicationProperties.maxLag())
+                .build();
+    }
+
+    /**
+     * Records a write of the user. Inside a transaction the write is recorded again when the transaction is
+     * committed, so the lag is counted from the commit.
+     *
+     * @param id - {@link Long} unique identifier of the written user
+     */
+    public void record(Long id) {
+        if (!enabled) {
+            return;
+        }
+        ids.put(id, Boolean.TRUE);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    ids.put(id, Boolean.TRUE);
+                }
+            });
+        }
+    }
+
+    /**
+     * @param id - {@link Long} unique identifier of the user
+     * @return true if the user was written within the lag
+     */
+    public boolean contains(Long id) {
+        return enabled && ids.getIfPresent(id) != null;
+    }
+}
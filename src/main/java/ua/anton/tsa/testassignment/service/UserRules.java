@@ -0,0 +1,93 @@
+package ua.anton.tsa.testassignment.service;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ua.anton.tsa.testassignment.configuration.UserProperties;
+import ua.anton.tsa.testassignment.exceptions.InvalidPeriodException;
+import ua.anton.tsa.testassignment.exceptions.MinAgeException;
+import ua.anton.tsa.testassignment.wire.request.CreateUserRequest;
+import ua.anton.tsa.testassignment.wire.request.ModifyUserRequest;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Business rules of User entries shared by servlet and reactive services
+ */
+@Component
+@RequiredArgsConstructor
+public class UserRules {
+    private static final String REASON_DELIMITER = ": ";
+    private static final String MULTIPLE_ERRORS_DELIMITER = ", ";
+    private static final String NULL_ITEM_MESSAGE = "item: must not be null";
+
+    private final UserProperties userProperties;
+    private final Validator validator;
+
+    /**
+     * Checks the birthdate against "user.age.min" property
+     *
+     * @param birthDate - {@link LocalDate} birthdate of the User
+     */
+    public void checkMinAge(LocalDate birthDate) throws MinAgeException {
+        if (!isOldEnough(birthDate)) {
+            throw new MinAgeException(minAgeMessage());
+        }
+    }
+
+    /**
+     * Checks that the birthdate range is not reversed
+     *
+     * @param from - {@link LocalDate} param of min date
+     * @param to   - {@link LocalDate} param of max date
+     */
+    public void validatePeriod(LocalDate from, LocalDate to) throws InvalidPeriodException {
+        if (to.isBefore(from)) {
+            throw new InvalidPeriodException("from date must be less than to date");
+        }
+    }
+
+    /**
+     * Validates one item of a batch create request, including "user.age.min" property
+     *
+     * @param createUserRequest - nullable {@link CreateUserRequest} create request object, null items are rejected
+     * @return {@link String} error message, or null if the request is valid
+     */
+    public String validate(CreateUserRequest createUserRequest) {
+        if (createUserRequest == null) {
+            return NULL_ITEM_MESSAGE;
+        }
+        Set<ConstraintViolation<CreateUserRequest>> violations = validator.validate(createUserRequest);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(violation -> violation.getPropertyPath() + REASON_DELIMITER + violation.getMessage())
+                    .distinct()
+                    .sorted()
+                    .collect(Collectors.joining(MULTIPLE_ERRORS_DELIMITER));
+        }
+        return isOldEnough(createUserRequest.birthDate()) ? null : minAgeMessage();
+    }
+
+    /**
+     * Checks the birthdate of a modify request, if it is supplied, against "user.age.min" property
+     *
+     * @param modifyUserRequest - {@link ModifyUserRequest} modify request object
+     */
+    public void checkMinAge(ModifyUserRequest modifyUserRequest) throws MinAgeException {
+        if (modifyUserRequest.birthDate() != null && modifyUserRequest.birthDate().isPresent()) {
+            checkMinAge(modifyUserRequest.birthDate().get());
+        }
+    }
+
+    private boolean isOldEnough(LocalDate birthDate) {
+        return Period.between(birthDate, LocalDate.now()).getYears() >= userProperties.age().min();
+    }
+
+    private String minAgeMessage() {
+        return "User must be older than " + userProperties.age().min();
+    }
+}
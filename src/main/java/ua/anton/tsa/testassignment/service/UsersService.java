@@ -2,35 +2,59 @@ package ua.anton.tsa.testassignment.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.HttpClientErrorException;
-import ua.anton.tsa.testassignment.configuration.UserProperties;
+import ua.anton.tsa.testassignment.configuration.ReadYourWrites;
 import ua.anton.tsa.testassignment.exceptions.InvalidPeriodException;
 import ua.anton.tsa.testassignment.exceptions.MinAgeException;
 import ua.anton.tsa.testassignment.mapper.UserMapper;
 import ua.anton.tsa.testassignment.model.User;
-import ua.anton.tsa.testassignment.repo.UsersRepository;
+import ua.anton.tsa.testassignment.repo.UsersStorage;
+import ua.anton.tsa.testassignment.wire.KeysetCursor;
 import ua.anton.tsa.testassignment.wire.request.CreateUserRequest;
 import ua.anton.tsa.testassignment.wire.request.ModifyUserRequest;
 import ua.anton.tsa.testassignment.wire.request.ReplaceUserRequest;
+import ua.anton.tsa.testassignment.wire.response.CreateUsersBatchResponse;
 import ua.anton.tsa.testassignment.wire.response.RetrieveUsersResponse;
 
 import java.time.LocalDate;
-import java.time.Period;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static ua.anton.tsa.testassignment.Constants.SERVLET_PROFILE;
+import static ua.anton.tsa.testassignment.configuration.CacheConfiguration.USERS_CACHE;
 
 /**
  * User Service to realize business logic while working with @{@link User} object
+ * Reads run in read-only transactions, which are served by replicas in "replicas" profile.
  */
 @Slf4j
 @Service
+@Profile(SERVLET_PROFILE)
 @RequiredArgsConstructor
 public class UsersService {
-    private final UsersRepository usersRepository;
+    static final Sort KEYSET_SORT = Sort.by("birthDate", "id");
+    private static final int BATCH_SIZE = 50;
+    private static final String CACHEABLE = "!T(ua.anton.tsa.testassignment.configuration.ReadYourWrites).isPinned()"
+            + " && !@recentWrites.contains(#id)";
+
+    private final UsersStorage usersStorage;
     private final UserMapper userMapper;
-    private final UserProperties userProperties;
+    private final UserRules userRules;
+    private final RecentWrites recentWrites;
 
     /**
      * Creates new User entry in storage.
@@ -40,65 +64,180 @@ public class UsersService {
      */
     public Long create(CreateUserRequest createUserRequest) throws MinAgeException {
         User user = userMapper.toUser(createUserRequest);
-        if(Period.between(user.getBirthDate(), LocalDate.now()).getYears() >= userProperties.age().min()) {
-            return usersRepository.save(user).getId();
-        } else {
-            throw new MinAgeException("User must be older than " + userProperties.age().min());
+        userRules.checkMinAge(user.getBirthDate());
+        return usersStorage.save(user).getId();
+    }
+
+    /**
+     * Creates new User entries in storage.
+     * Every item is validated and checked against "user.age.min" property on its own, so one invalid item does not
+     * reject the whole batch. Valid items are inserted with JDBC batching in chunks of {@link #BATCH_SIZE}.
+     *
+     * @param createUserRequests - {@link List} of {@link CreateUserRequest} create request objects
+     * @return {@link CreateUsersBatchResponse} with unique ids of created Users and errors of rejected ones
+     */
+    @Transactional
+    public CreateUsersBatchResponse createAll(List<CreateUserRequest> createUserRequests) {
+        List<CreateUsersBatchResponse.Error> errors = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>(createUserRequests.size());
+        List<User> users = new ArrayList<>(createUserRequests.size());
+        for (int index = 0; index < createUserRequests.size(); index++) {
+            CreateUserRequest createUserRequest = createUserRequests.get(index);
+            String error = userRules.validate(createUserRequest);
+            if (error != null) {
+                errors.add(new CreateUsersBatchResponse.Error(index, error));
+            } else {
+                indexes.add(index);
+                users.add(userMapper.toUser(createUserRequest));
+            }
         }
+
+        List<CreateUsersBatchResponse.Created> created = new ArrayList<>(users.size());
+        for (int from = 0; from < users.size(); from += BATCH_SIZE) {
+            List<User> chunk = usersStorage.saveAllAndFlush(
+                    users.subList(from, Math.min(from + BATCH_SIZE, users.size())));
+            for (int i = 0; i < chunk.size(); i++) {
+                created.add(new CreateUsersBatchResponse.Created(indexes.get(from + i), chunk.get(i).getId()));
+                usersStorage.detach(chunk.get(i));
+            }
+        }
+        return CreateUsersBatchResponse.builder()
+                .created(created)
+                .errors(errors)
+                .build();
     }
 
     /**
      * Replaces e.g. Updates User entry.
+     * The entry is written by a single UPDATE statement which also checks the expected version and is skipped by
+     * the storage when nothing has changed, so the entry is only looked up separately when no row was updated.
      *
      * @param id                 - {@link Long} unique id of the User in storage
      * @param replaceUserRequest - {@link ReplaceUserRequest} replace request object
+     * @param expectedVersion    - nullable {@link Long} version the User must have to be replaced
      */
-    public void replace(Long id, ReplaceUserRequest replaceUserRequest) throws MinAgeException {
-        if (!usersRepository.existsById(id)) {
-            throw new HttpClientErrorException(HttpStatus.NOT_FOUND, "User with given id is not found");
-        }
-        if(Period.between(replaceUserRequest.birthDate(), LocalDate.now()).getYears() < userProperties.age().min()) {
-            throw new MinAgeException("User must be older than " + userProperties.age().min());
+    @Transactional
+    @CacheEvict(cacheNames = USERS_CACHE, key = "#id")
+    public void replace(Long id, ReplaceUserRequest replaceUserRequest, Long expectedVersion) throws MinAgeException {
+        userRules.checkMinAge(replaceUserRequest.birthDate());
+        if (usersStorage.replaceIfChanged(userMapper.toUser(id, replaceUserRequest), expectedVersion) > 0) {
+            recentWrites.record(id);
+        } else {
+            checkNotUpdated(id, expectedVersion);
         }
-        usersRepository.save(userMapper.toUser(id, replaceUserRequest));
     }
 
     /**
      * Partially Updates User entry.
+     * Only supplied attributes are written by a single UPDATE statement which also checks the expected version,
+     * the entity is not loaded.
      *
      * @param id                - {@link Long} unique id of the Host in storage
      * @param modifyUserRequest - {@link ModifyUserRequest} modify request object
+     * @param expectedVersion   - nullable {@link Long} version the User must have to be modified
      */
-
-    public void modify(Long id, ModifyUserRequest modifyUserRequest) throws MinAgeException {
-        if(modifyUserRequest.containsKey("birthDate") &&
-                Period.between(
-                        LocalDate.parse(modifyUserRequest.get("birthDate")),
-                        LocalDate.now()
-                ).getYears() < userProperties.age().min()) {
-            throw new MinAgeException("User must be older than " + userProperties.age().min());
+    @Transactional
+    @CacheEvict(cacheNames = USERS_CACHE, key = "#id")
+    public void modify(Long id, ModifyUserRequest modifyUserRequest, Long expectedVersion) throws MinAgeException {
+        userRules.checkMinAge(modifyUserRequest);
+        if (!modifyUserRequest.isEmpty()
+                && usersStorage.updateAttributes(id, modifyUserRequest, expectedVersion) > 0) {
+            recentWrites.record(id);
+        } else {
+            checkNotUpdated(id, expectedVersion);
         }
-        usersRepository.save(userMapper.toUser(
-                usersRepository.findById(id)
-                        .orElseThrow(() -> new HttpClientErrorException(HttpStatus.NOT_FOUND, "User with given id is not found")),
-                modifyUserRequest));
     }
 
     /**
+     * Retrieves one User by unique identifier.
+     * Found users are cached, concurrent misses for the same id are loaded from storage only once. Users written
+     * within "replication.max-lag" are not cached while replicas are configured, see {@link RecentWrites}, so a row
+     * evicted by the write is not cached again from a lagging replica. Requests pinned to the primary by
+     * {@link ReadYourWrites} bypass the cache.
+     *
+     * @param id - {@link Long} unique entry identifier
+     * @return {@link RetrieveUsersResponse} object
+     */
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = USERS_CACHE, key = "#id", sync = true, condition = CACHEABLE)
+    public RetrieveUsersResponse retrieve(Long id) {
+        return usersStorage.findById(id)
+                .map(userMapper::toRetrieveUsersResponse)
+                .orElseThrow(() -> new HttpClientErrorException(HttpStatus.NOT_FOUND, "User with given id is not found"));
+    }
+
+    /**
+     * Retrieves users by offset pagination.
+     * Entries are returned as they are, rows are written to the response straight from them.
      *
      * @param pageable - {@link Pageable}
      * @param from     - {@link LocalDate} param of min date
      * @param to       - {@link LocalDate} param of max date
-     * @return {@link Page} of {@link RetrieveUsersResponse} objects
+     * @return {@link Page} of {@link User} objects
      */
-    public Page<RetrieveUsersResponse> retrieve(Pageable pageable, LocalDate from, LocalDate to)
+    @Transactional(readOnly = true)
+    public Page<User> retrieve(Pageable pageable, LocalDate from, LocalDate to)
             throws InvalidPeriodException {
-        if(to.isBefore(from)) {
-            throw new InvalidPeriodException("from date must be less than to date");
-        } else {
-            return usersRepository
-                    .findAllByBirthDateBetween(from, to, pageable)
-                    .map(userMapper::toRetrieveUsersResponse);
+        validatePeriod(from, to);
+        return usersStorage.findAllByBirthDateBetween(from, to, pageable);
+    }
+
+    /**
+     * Retrieves users by offset pagination without counting total elements.
+     *
+     * @param pageable - {@link Pageable}
+     * @param from     - {@link LocalDate} param of min date
+     * @param to       - {@link LocalDate} param of max date
+     * @return {@link Slice} of {@link User} objects
+     */
+    @Transactional(readOnly = true)
+    public Slice<User> retrieveSlice(Pageable pageable, LocalDate from, LocalDate to)
+            throws InvalidPeriodException {
+        validatePeriod(from, to);
+        return usersStorage.findSliceByBirthDateBetween(from, to, pageable);
+    }
+
+    /**
+     * Retrieves users by keyset (seek) pagination ordered by (birthDate, id).
+     * Fetches one extra row to find out whether the next page exists.
+     *
+     * @param size  - page size
+     * @param from  - {@link LocalDate} param of min date
+     * @param to    - {@link LocalDate} param of max date
+     * @param after - {@link KeysetCursor} of the last seen row, or null for the first page
+     * @return {@link Slice} of {@link User} objects
+     */
+    @Transactional(readOnly = true)
+    public Slice<User> retrieve(int size, LocalDate from, LocalDate to, KeysetCursor after)
+            throws InvalidPeriodException {
+        validatePeriod(from, to);
+        List<User> users = after == null
+                ? usersStorage.findKeysetPage(from, to, size + 1)
+                : usersStorage.findKeysetPageAfter(from, to, after.birthDate(), after.id(), size + 1);
+        boolean hasNext = users.size() > size;
+        return new SliceImpl<>(
+                hasNext ? users.subList(0, size) : users,
+                PageRequest.of(0, size, KEYSET_SORT),
+                hasNext);
+    }
+
+    /**
+     * Streams all users in the birthdate range ordered by (birthDate, id) to the consumer.
+     * Every user is detached right after it has been consumed, so memory does not depend on the range size.
+     *
+     * @param from     - {@link LocalDate} param of min date
+     * @param to       - {@link LocalDate} param of max date
+     * @param consumer - {@link Consumer} of {@link RetrieveUsersResponse} objects
+     */
+    @Transactional(readOnly = true)
+    public void export(LocalDate from, LocalDate to, Consumer<RetrieveUsersResponse> consumer)
+            throws InvalidPeriodException {
+        validatePeriod(from, to);
+        try (Stream<User> users = usersStorage.streamAllByBirthDateBetweenOrderByBirthDateAscIdAsc(from, to)) {
+            users.forEach(user -> {
+                consumer.accept(userMapper.toRetrieveUsersResponse(user));
+                usersStorage.detach(user);
+            });
         }
     }
 
@@ -107,11 +246,41 @@ public class UsersService {
      *
      * @param id - {@link Long} unique entry identifier
      */
+    @Transactional
+    @CacheEvict(cacheNames = USERS_CACHE, key = "#id")
     public void remove(Long id) {
+        if (usersStorage.deleteUserById(id) == 0) {
+            throw new HttpClientErrorException(HttpStatus.NOT_FOUND, "User with given id is not found");
+        }
+        recentWrites.record(id);
+    }
+
+    /**
+     * Returns the current version of the users storage, it changes after every committed write of any instance.
+     * The version is the number of writes counted by the storage, so instances sharing the storage agree on it.
+     *
+     * @return {@link String} version usable as an entity tag
+     */
+    @Transactional(readOnly = true)
+    public String version() {
+        return Long.toString(usersStorage.countChanges());
+    }
 
-        usersRepository.delete(
-                usersRepository.findById(id)
-                        .orElseThrow(() -> new HttpClientErrorException(HttpStatus.NOT_FOUND, "User with given id is not found"))
-        );
+    /**
+     * Checks that the birthdate range is not reversed
+     *
+     * @param from - {@link LocalDate} param of min date
+     * @param to   - {@link LocalDate} param of max date
+     */
+    public void validatePeriod(LocalDate from, LocalDate to) throws InvalidPeriodException {
+        userRules.validatePeriod(from, to);
+    }
+
+    private void checkNotUpdated(Long id, Long expectedVersion) {
+        Long version = usersStorage.findVersionById(id)
+                .orElseThrow(() -> new HttpClientErrorException(HttpStatus.NOT_FOUND, "User with given id is not found"));
+        if (expectedVersion != null && !expectedVersion.equals(version)) {
+            throw new HttpClientErrorException(HttpStatus.PRECONDITION_FAILED, "User has been changed by another request");
+        }
     }
 }
@@ -4,21 +4,17 @@ import jakarta.validation.Constraint;
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
 import jakarta.validation.Payload;
-import ua.anton.tsa.testassignment.wire.request.ModifyUserRequest;
 
 import java.lang.annotation.*;
 import java.util.regex.Pattern;
 
 /**
  * An annotation for email validation
- * The annotated element must be (or contain) a not blank well-formed email address.
- * Accepts {@link CharSequence} or {@link ModifyUserRequest}
+ * The annotated element must be a not blank well-formed email address.
+ * Accepts {@link CharSequence}
  */
 @Documented
-@Constraint(validatedBy = {
-        Email.EmailValidator.class,
-        Email.EmailMapValidator.class
-})
+@Constraint(validatedBy = Email.EmailValidator.class)
 @Target({
         ElementType.METHOD,
         ElementType.FIELD,
@@ -30,7 +26,10 @@ import java.util.regex.Pattern;
 @Retention(RetentionPolicy.RUNTIME)
 public @interface Email {
 
-    String message() default "must be a not blank well-formed email address";
+    String MESSAGE = "must be a not blank well-formed email address";
+    Pattern PATTERN = Pattern.compile("^[a-zA-Z0-9_!#$%&’*+=?`{|}~^.-]+@[a-zA-Z0-9.-]+$");
+
+    String message() default MESSAGE;
 
     Class<?>[] groups() default {};
 
@@ -44,35 +43,9 @@ public @interface Email {
 
         @Override
         public boolean isValid(CharSequence value, ConstraintValidatorContext constraintValidatorContext) {
-            return value != null && Pattern.matches(
-                    "^[a-zA-Z0-9_!#$%&’*+=?`{|}~^.-]+@[a-zA-Z0-9.-]+$",
-                    value);
+            return value != null && PATTERN.matcher(value).matches();
         }
 
     }
 
-    /**
-     * Validator for {@link ModifyUserRequest} object.
-     * Checks if the object contains a key "email" with the value matches pattern.
-     */
-    class EmailMapValidator implements ConstraintValidator<Email, ModifyUserRequest> {
-
-        @Override
-        public boolean isValid(ModifyUserRequest modifyUserRequest, ConstraintValidatorContext context) {
-            if (modifyUserRequest != null && modifyUserRequest.containsKey("email")) {
-                boolean isValid = Pattern.matches(
-                        "^[a-zA-Z0-9_!#$%&’*+=?`{|}~^.-]+@[a-zA-Z0-9.-]+$",
-                        modifyUserRequest.get("email"));
-
-                if (!isValid) {
-                    context.disableDefaultConstraintViolation();
-                    context.buildConstraintViolationWithTemplate(context.getDefaultConstraintMessageTemplate())
-                            .addPropertyNode("email")
-                            .addConstraintViolation();
-                    return false;
-                }
-            }
-            return true;
-        }
-    }
 }
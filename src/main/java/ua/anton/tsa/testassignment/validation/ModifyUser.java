@@ -0,0 +1,107 @@
+package ua.anton.tsa.testassignment.validation;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+import jakarta.validation.Payload;
+import ua.anton.tsa.testassignment.wire.request.ModifyUserRequest;
+
+import java.lang.annotation.*;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * An annotation for PATCH body validation
+ * Applies {@link Email}, {@link BirthDate} and {@link NotBlankNullable} checks to the members of
+ * {@link ModifyUserRequest} in one pass. Accepts {@link ModifyUserRequest}
+ */
+@Documented
+@Constraint(validatedBy = ModifyUser.ModifyUserValidator.class)
+@Target({
+        ElementType.METHOD,
+        ElementType.FIELD,
+        ElementType.ANNOTATION_TYPE,
+        ElementType.CONSTRUCTOR,
+        ElementType.PARAMETER,
+        ElementType.TYPE_USE
+})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ModifyUser {
+
+    String message() default "must be a valid set of User attributes";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+
+    /**
+     * Validator for {@link ModifyUserRequest} object.
+     * Checks "email" against the precompiled {@link Email#PATTERN}, checks that "birthDate" is before the current date,
+     * and that "firstName", "lastName", "address" and "phoneNumber" are not blank. Absent members are skipped, null
+     * is accepted only for "address" and "phoneNumber", which may be removed.
+     */
+    class ModifyUserValidator implements ConstraintValidator<ModifyUser, ModifyUserRequest> {
+
+        private static final List<String> NOT_BLANK_KEYS =
+                List.of(ModifyUserRequest.FIRST_NAME, ModifyUserRequest.LAST_NAME, ModifyUserRequest.ADDRESS,
+                        ModifyUserRequest.PHONE_NUMBER);
+        private static final String NOT_BLANK_MESSAGE = " must not be blank";
+        private static final String MULTIPLE_ERRORS_DELIMITER = ", ";
+
+        @Override
+        public boolean isValid(ModifyUserRequest modifyUserRequest, ConstraintValidatorContext context) {
+            if (modifyUserRequest == null) {
+                return true;
+            }
+            boolean isValid = true;
+            Optional<String> email = modifyUserRequest.email();
+            if (email != null && !email.map(value -> Email.PATTERN.matcher(value).matches()).orElse(false)) {
+                isValid = violation(context, ModifyUserRequest.EMAIL, Email.MESSAGE);
+            }
+            Optional<LocalDate> birthDate = modifyUserRequest.birthDate();
+            if (birthDate != null && !birthDate.map(value -> value.isBefore(LocalDate.now())).orElse(false)) {
+                isValid = violation(context, ModifyUserRequest.BIRTH_DATE, BirthDate.MESSAGE);
+            }
+            int blank = blank(modifyUserRequest.firstName(), false, 0)
+                    | blank(modifyUserRequest.lastName(), false, 1)
+                    | blank(modifyUserRequest.address(), true, 2)
+                    | blank(modifyUserRequest.phoneNumber(), true, 3);
+            if (blank != 0) {
+                isValid = blankViolation(context, blank);
+            }
+            return isValid;
+        }
+
+        private static int blank(Optional<String> value, boolean nullable, int index) {
+            if (value == null || value.isEmpty() && nullable || value.isPresent() && !value.get().isBlank()) {
+                return 0;
+            }
+            return 1 << index;
+        }
+
+        private static boolean violation(ConstraintValidatorContext context, String key, String message) {
+            context.disableDefaultConstraintViolation();
+            context.buildConstraintViolationWithTemplate(message)
+                    .addPropertyNode(key)
+                    .addConstraintViolation();
+            return false;
+        }
+
+        private static boolean blankViolation(ConstraintValidatorContext context, int blank) {
+            StringBuilder errors = new StringBuilder();
+            for (int index = 0; index < NOT_BLANK_KEYS.size(); index++) {
+                if ((blank & 1 << index) != 0) {
+                    if (!errors.isEmpty()) {
+                        errors.append(MULTIPLE_ERRORS_DELIMITER);
+                    }
+                    errors.append(NOT_BLANK_KEYS.get(index)).append(NOT_BLANK_MESSAGE);
+                }
+            }
+            context.disableDefaultConstraintViolation();
+            context.buildConstraintViolationWithTemplate(errors.toString())
+                    .addConstraintViolation();
+            return false;
+        }
+    }
+}
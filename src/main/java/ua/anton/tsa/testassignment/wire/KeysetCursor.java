@@ -0,0 +1,49 @@
+package ua.anton.tsa.testassignment.wire;
+
+import ua.anton.tsa.testassignment.exceptions.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+/**
+ * An opaque cursor for keyset (seek) pagination.
+ * Encodes the last seen (birthDate, id) pair as a URL-safe Base64 token, so clients never depend on its format.
+ *
+ * @param birthDate - a {@link LocalDate} birthdate of the last seen user
+ * @param id        - a {@link Long} unique identifier of the last seen user
+ */
+public record KeysetCursor(LocalDate birthDate, Long id) {
+
+    private static final String DELIMITER = ":";
+
+    /**
+     * Decodes a cursor previously produced by {@link #encode()}
+     *
+     * @param token - {@link String} opaque token
+     * @return {@link KeysetCursor} object
+     * @throws InvalidCursorException if the token is malformed
+     */
+    public static KeysetCursor decode(String token) throws InvalidCursorException {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(DELIMITER);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException(token);
+            }
+            return new KeysetCursor(LocalDate.parse(parts[0]), Long.valueOf(parts[1]));
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException("after must be a cursor returned by a previous page");
+        }
+    }
+
+    /**
+     * Encodes the cursor to an opaque token
+     *
+     * @return {@link String} URL-safe token
+     */
+    public String encode() {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString((birthDate + DELIMITER + id).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,21 @@
+package ua.anton.tsa.testassignment.wire.request;
+
+import com.fasterxml.jackson.annotation.JsonRootName;
+import lombok.NoArgsConstructor;
+import ua.anton.tsa.testassignment.wire.Request;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * A DTO for batch POST requests
+ * Extends {@link ArrayList} object and contains {@link CreateUserRequest} items, which are validated one by one
+ */
+@NoArgsConstructor
+@JsonRootName("data")
+public class CreateUsersBatchRequest extends ArrayList<CreateUserRequest> implements Request {
+
+    public CreateUsersBatchRequest(Collection<CreateUserRequest> items) {
+        super(items);
+    }
+}
@@ -1,21 +1,153 @@
 package ua.anton.tsa.testassignment.wire.request;
 
 import com.fasterxml.jackson.annotation.JsonRootName;
-import lombok.NoArgsConstructor;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import lombok.Builder;
 import ua.anton.tsa.testassignment.wire.Request;
 
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
 
 /**
- * A DTO for PATCH requests
- * Extends {@link LinkedHashMap} object and contains {@link String} fields as keys and {@link String} values as values
+ * A DTO for PATCH requests in JSON Merge Patch (RFC 7396) format
+ * Every field is tri-state: null when the member is absent and the attribute stays unchanged, empty {@link Optional}
+ * when the member is JSON null and the attribute is removed, or the new value. Members are read straight from the
+ * token stream into typed values, unknown members are ignored.
+ *
+ * @param email       - an optional {@link String} field for an email
+ * @param firstName   - an optional {@link String} field for a firstname
+ * @param lastName    - an optional {@link String} field for a lastname
+ * @param birthDate   - an optional {@link LocalDate} field for a birthdate
+ * @param address     - an optional {@link String} field for address
+ * @param phoneNumber - an optional {@link String} field for phone number
  */
-@NoArgsConstructor
+@Builder
 @JsonRootName("data")
-public class ModifyUserRequest extends LinkedHashMap<String, String> implements Request {
+@JsonSerialize(using = ModifyUserRequest.Serializer.class)
+@JsonDeserialize(using = ModifyUserRequest.Deserializer.class)
+@SuppressWarnings("OptionalUsedAsFieldOrParameterType")
+public record ModifyUserRequest(
+        Optional<String> email,
+        Optional<String> firstName,
+        Optional<String> lastName,
+        Optional<LocalDate> birthDate,
+        Optional<String> address,
+        Optional<String> phoneNumber
+) implements Request {
+    public static final String EMAIL = "email";
+    public static final String FIRST_NAME = "firstName";
+    public static final String LAST_NAME = "lastName";
+    public static final String BIRTH_DATE = "birthDate";
+    public static final String ADDRESS = "address";
+    public static final String PHONE_NUMBER = "phoneNumber";
 
-    public ModifyUserRequest( Map<String, String> map) {
-        super(map);
+    /**
+     * @return true if the patch has no members, e.g. changes nothing
+     */
+    public boolean isEmpty() {
+        return email == null && firstName == null && lastName == null && birthDate == null && address == null
+                && phoneNumber == null;
+    }
+
+    /**
+     * Reads the merge patch object member by member
+     */
+    static class Deserializer extends StdDeserializer<ModifyUserRequest> {
+
+        Deserializer() {
+            super(ModifyUserRequest.class);
+        }
+
+        @Override
+        public ModifyUserRequest deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (!parser.isExpectedStartObjectToken()) {
+                return (ModifyUserRequest) context.handleUnexpectedToken(ModifyUserRequest.class, parser);
+            }
+            ModifyUserRequestBuilder builder = builder();
+            for (String name = parser.nextFieldName(); name != null; name = parser.nextFieldName()) {
+                parser.nextToken();
+                switch (name) {
+                    case EMAIL -> builder.email(text(parser, context));
+                    case FIRST_NAME -> builder.firstName(text(parser, context));
+                    case LAST_NAME -> builder.lastName(text(parser, context));
+                    case BIRTH_DATE -> builder.birthDate(date(parser, context));
+                    case ADDRESS -> builder.address(text(parser, context));
+                    case PHONE_NUMBER -> builder.phoneNumber(text(parser, context));
+                    default -> parser.skipChildren();
+                }
+            }
+            return builder.build();
+        }
+
+        private static Optional<String> text(JsonParser parser, DeserializationContext context) throws IOException {
+            JsonToken token = parser.currentToken();
+            if (token == JsonToken.VALUE_NULL) {
+                return Optional.empty();
+            }
+            if (!token.isScalarValue()) {
+                context.handleUnexpectedToken(String.class, parser);
+            }
+            return Optional.of(parser.getText());
+        }
+
+        private static Optional<LocalDate> date(JsonParser parser, DeserializationContext context) throws IOException {
+            JsonToken token = parser.currentToken();
+            if (token == JsonToken.VALUE_NULL) {
+                return Optional.empty();
+            }
+            if (token != JsonToken.VALUE_STRING) {
+                context.handleUnexpectedToken(LocalDate.class, parser);
+            }
+            try {
+                return Optional.of(LocalDate.parse(parser.getText()));
+            } catch (DateTimeParseException e) {
+                throw context.weirdStringException(parser.getText(), LocalDate.class, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Writes only the members of the merge patch
+     */
+    static class Serializer extends StdSerializer<ModifyUserRequest> {
+
+        Serializer() {
+            super(ModifyUserRequest.class);
+        }
+
+        @Override
+        public void serialize(ModifyUserRequest value, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            generator.writeStartObject(value);
+            write(generator, EMAIL, value.email());
+            write(generator, FIRST_NAME, value.firstName());
+            write(generator, LAST_NAME, value.lastName());
+            write(generator, BIRTH_DATE, value.birthDate());
+            write(generator, ADDRESS, value.address());
+            write(generator, PHONE_NUMBER, value.phoneNumber());
+            generator.writeEndObject();
+        }
+
+        private static void write(JsonGenerator generator, String name, Optional<?> value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            generator.writeFieldName(name);
+            if (value.isPresent()) {
+                generator.writeString(value.get().toString());
+            } else {
+                generator.writeNull();
+            }
+        }
     }
 }
@@ -0,0 +1,39 @@
+package ua.anton.tsa.testassignment.wire.response;
+
+import com.fasterxml.jackson.annotation.JsonRootName;
+import lombok.Builder;
+import lombok.extern.jackson.Jacksonized;
+import ua.anton.tsa.testassignment.wire.Response;
+
+import java.util.List;
+
+/**
+ * A DTO for batch POST responses
+ *
+ * @param created - a {@link List} of created items with their unique identifiers
+ * @param errors  - a {@link List} of rejected items with their error messages
+ */
+@Builder
+@Jacksonized
+@JsonRootName("response")
+public record CreateUsersBatchResponse(
+        List<Created> created,
+        List<Error> errors
+) implements Response {
+
+    /**
+     * Created item
+     *
+     * @param index - position of the item in the request
+     * @param id    - a {@link Long} unique identifier of the created user
+     */
+    public record Created(int index, Long id) {}
+
+    /**
+     * Rejected item
+     *
+     * @param index - position of the item in the request
+     * @param error - a {@link String} error message
+     */
+    public record Error(int index, String error) {}
+}
@@ -2,18 +2,31 @@ package ua.anton.tsa.testassignment.wire.response;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonRootName;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.extern.jackson.Jacksonized;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import ua.anton.tsa.testassignment.model.User;
 import ua.anton.tsa.testassignment.wire.Response;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
  * A class for formatting GET response
+ * Totals are omitted for pages that were retrieved without counting, e.g. slices and keyset pages, and the page number
+ * is omitted for keyset pages, which are addressed by cursor.
+ * Rows are written one by one by {@link Serializer} with the serializer of their class, and {@link User} rows with
+ * {@link UserRowSerializer}, so a page of entities is written without an intermediate list of DTOs.
  *
  * @param <T> - param of the response
  */
@@ -21,24 +34,146 @@ import java.util.List;
 @Builder
 @Jacksonized
 @JsonRootName("response")
+@JsonSerialize(using = PageResponse.Serializer.class)
 @AllArgsConstructor
 @NoArgsConstructor
 public class PageResponse<T> implements Response {
     @JsonProperty("data") private List<T> content;
-    @JsonProperty("page_info") private Object pageable;
+    @JsonProperty("page_info") private PageInfo pageable;
     private boolean first;
     private boolean last;
-    private long totalElements;
-    private int totalPages;
+    @JsonProperty("has_next") private boolean hasNext;
+    private Long totalElements;
+    private Integer totalPages;
     private int numberOfElements;
+    @JsonProperty("next_cursor") private String nextCursor;
 
     public PageResponse(Page<T> page) {
         this.content = page.getContent();
-        this.pageable = page.getPageable();
+        this.pageable = PageInfo.of(page.getPageable());
         this.first = page.isFirst();
         this.last = page.isLast();
+        this.hasNext = page.hasNext();
         this.totalElements = page.getTotalElements();
         this.totalPages = page.getTotalPages();
         this.numberOfElements = page.getNumberOfElements();
     }
+
+    public PageResponse(Slice<T> slice, boolean first, String nextCursor) {
+        this.content = slice.getContent();
+        this.pageable = PageInfo.of(slice.getPageable());
+        this.first = first;
+        this.last = !slice.hasNext();
+        this.hasNext = slice.hasNext();
+        this.numberOfElements = slice.getNumberOfElements();
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * @return response of a keyset page, its "page_info" has no page number
+     */
+    public static <T> PageResponse<T> keyset(Slice<T> slice, boolean first, String nextCursor) {
+        PageResponse<T> response = new PageResponse<>(slice, first, nextCursor);
+        if (response.pageable != null) {
+            response.pageable = new PageInfo(null, response.pageable.size(), response.pageable.sort());
+        }
+        return response;
+    }
+
+    /**
+     * Compact form of the requested {@link Pageable}
+     *
+     * @param number - requested page number, null for keyset pages
+     * @param size   - requested page size
+     * @param sort   - {@link List} of "property,direction" orders, the same as "sort" request params
+     */
+    public record PageInfo(Integer number, int size, List<String> sort) {
+
+        private static PageInfo of(Pageable pageable) {
+            if (pageable.isUnpaged()) {
+                return null;
+            }
+            return new PageInfo(
+                    pageable.getPageNumber(),
+                    pageable.getPageSize(),
+                    pageable.getSort().stream()
+                            .map(order -> order.getProperty() + "," + order.getDirection())
+                            .toList());
+        }
+    }
+
+    /**
+     * Writes the page with a fixed set of fields, absent totals, page info and cursor are omitted.
+     * The row serializer is looked up once per row class, not per row.
+     */
+    static class Serializer extends StdSerializer<PageResponse<?>> {
+        @SuppressWarnings("unchecked")
+        private static final JsonSerializer<Object> USER_ROW_SERIALIZER =
+                (JsonSerializer<Object>) (JsonSerializer<?>) UserRowSerializer.INSTANCE;
+
+        Serializer() {
+            super(PageResponse.class, false);
+        }
+
+        @Override
+        public void serialize(PageResponse<?> value, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            generator.writeStartObject(value);
+            generator.writeFieldName("data");
+            writeContent(value.getContent(), generator, provider);
+            if (value.getPageable() != null) {
+                PageInfo pageInfo = value.getPageable();
+                generator.writeObjectFieldStart("page_info");
+                if (pageInfo.number() != null) {
+                    generator.writeNumberField("number", pageInfo.number());
+                }
+                generator.writeNumberField("size", pageInfo.size());
+                generator.writeArrayFieldStart("sort");
+                for (String order : pageInfo.sort()) {
+                    generator.writeString(order);
+                }
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+            generator.writeBooleanField("first", value.isFirst());
+            generator.writeBooleanField("last", value.isLast());
+            generator.writeBooleanField("has_next", value.isHasNext());
+            if (value.getTotalElements() != null) {
+                generator.writeNumberField("totalElements", value.getTotalElements());
+            }
+            if (value.getTotalPages() != null) {
+                generator.writeNumberField("totalPages", value.getTotalPages());
+            }
+            generator.writeNumberField("numberOfElements", value.getNumberOfElements());
+            if (value.getNextCursor() != null) {
+                generator.writeStringField("next_cursor", value.getNextCursor());
+            }
+            generator.writeEndObject();
+        }
+
+        private static void writeContent(List<?> content, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            if (content == null) {
+                generator.writeNull();
+                return;
+            }
+            generator.writeStartArray(content, content.size());
+            Class<?> rowClass = null;
+            JsonSerializer<Object> rowSerializer = null;
+            for (Object row : content) {
+                if (row == null) {
+                    provider.defaultSerializeNull(generator);
+                    continue;
+                }
+                if (row.getClass() != rowClass) {
+                    rowClass = row.getClass();
+                    rowSerializer = row instanceof User
+                            ? USER_ROW_SERIALIZER
+                            : provider.findValueSerializer(rowClass);
+                }
+                rowSerializer.serialize(row, generator, provider);
+            }
+            generator.writeEndArray();
+        }
+    }
 }
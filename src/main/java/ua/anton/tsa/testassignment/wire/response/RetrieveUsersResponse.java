@@ -1,5 +1,6 @@
 package ua.anton.tsa.testassignment.wire.response;
 
+import com.fasterxml.jackson.annotation.JsonRootName;
 import lombok.Builder;
 import lombok.extern.jackson.Jacksonized;
 import ua.anton.tsa.testassignment.wire.Response;
@@ -15,9 +16,11 @@ import java.time.LocalDate;
  * @param birthDate   - a {@link LocalDate} field for a birthdate
  * @param address     - a nullable {@link String} field for address
  * @param phoneNumber - a nullable {@link String} field for phone number
+ * @param version     - a {@link Long} version of the object, changed by every update
  */
 @Builder
 @Jacksonized
+@JsonRootName("response")
 public record RetrieveUsersResponse (
         Long id,
         String email,
@@ -25,5 +28,6 @@ public record RetrieveUsersResponse (
         String lastName,
         LocalDate birthDate,
         String address,
-        String phoneNumber
+        String phoneNumber,
+        Long version
 ) implements Response {}
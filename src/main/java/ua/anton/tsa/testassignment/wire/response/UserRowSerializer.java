@@ -0,0 +1,43 @@
+package ua.anton.tsa.testassignment.wire.response;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import ua.anton.tsa.testassignment.model.User;
+
+import java.io.IOException;
+
+/**
+ * Writes {@link User} rows of {@link PageResponse} in the JSON form of {@link RetrieveUsersResponse}, field by field,
+ * so rows of a page are serialized straight from the entities without mapping them to DTOs first.
+ * It is used by {@link PageResponse.Serializer} only, the entity itself has no JSON form.
+ */
+final class UserRowSerializer extends StdSerializer<User> {
+    static final UserRowSerializer INSTANCE = new UserRowSerializer();
+
+    private UserRowSerializer() {
+        super(User.class);
+    }
+
+    @Override
+    public void serialize(User user, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeStartObject(user);
+        writeNumber(generator, "id", user.getId());
+        generator.writeStringField("email", user.getEmail());
+        generator.writeStringField("firstName", user.getFirstName());
+        generator.writeStringField("lastName", user.getLastName());
+        provider.defaultSerializeField("birthDate", user.getBirthDate(), generator);
+        generator.writeStringField("address", user.getAddress());
+        generator.writeStringField("phoneNumber", user.getPhoneNumber());
+        writeNumber(generator, "version", user.getVersion());
+        generator.writeEndObject();
+    }
+
+    private static void writeNumber(JsonGenerator generator, String name, Long value) throws IOException {
+        if (value == null) {
+            generator.writeNullField(name);
+        } else {
+            generator.writeNumberField(name, value);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+CREATE SEQUENCE IF NOT EXISTS user_id_sequence START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS usr
+(
+    id           BIGINT       NOT NULL PRIMARY KEY,
+    email        VARCHAR(255) NOT NULL,
+    first_name   VARCHAR(255) NOT NULL,
+    last_name    VARCHAR(255) NOT NULL,
+    birth_date   DATE         NOT NULL,
+    address      VARCHAR(255),
+    phone_number VARCHAR(255)
+);
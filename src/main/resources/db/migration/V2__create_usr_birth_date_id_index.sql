@@ -0,0 +1,2 @@
+-- Serves birth-date range filters, the (birth_date, id) keyset order and index-only range counts
+CREATE INDEX IF NOT EXISTS usr_birth_date_id_idx ON usr (birth_date, id);
@@ -0,0 +1,2 @@
+-- Optimistic locking counter, incremented by every UPDATE of the row and exposed as the user ETag
+ALTER TABLE usr ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
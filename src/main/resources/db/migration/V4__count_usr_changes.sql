@@ -0,0 +1,28 @@
+-- Number of statements that wrote usr, exposed as the version of user pages and shared by all instances.
+-- Spread over 16 rows picked by the backend, so concurrent writers rarely wait for each other on one row.
+CREATE TABLE IF NOT EXISTS usr_changes
+(
+    shard   SMALLINT NOT NULL PRIMARY KEY,
+    changes BIGINT   NOT NULL DEFAULT 0
+);
+
+INSERT INTO usr_changes (shard)
+SELECT generate_series(0, 15)
+ON CONFLICT DO NOTHING;
+
+-- Counted in the writing transaction, so the count never runs ahead of committed rows. Statements which change
+-- no rows are counted as well, they only cost a spurious change of the version.
+CREATE OR REPLACE FUNCTION count_usr_change() RETURNS TRIGGER AS
+$$
+BEGIN
+    UPDATE usr_changes SET changes = changes + 1 WHERE shard = pg_backend_pid() % 16;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS usr_changes_trigger ON usr;
+CREATE TRIGGER usr_changes_trigger
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE
+    ON usr
+    FOR EACH STATEMENT
+EXECUTE FUNCTION count_usr_change();
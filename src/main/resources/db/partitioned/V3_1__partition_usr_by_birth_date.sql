@@ -0,0 +1,48 @@
+-- Range partitions of usr by birth_date decade, so birth-date range queries scan only the decades they cover.
+-- The primary key must contain the partition key, by-id lookups probe the (id, birth_date) index of every decade.
+
+-- Creates the missing decade partitions from the decade of from_date up to the decade of to_date
+CREATE OR REPLACE FUNCTION create_usr_partitions(from_date DATE, to_date DATE) RETURNS VOID AS
+$$
+DECLARE
+    decade DATE := make_date(extract(YEAR FROM from_date)::INT / 10 * 10, 1, 1);
+BEGIN
+    WHILE decade <= to_date
+        LOOP
+            EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF usr FOR VALUES FROM (%L) TO (%L)',
+                           'usr_' || to_char(decade, 'YYYY') || 's',
+                           decade,
+                           (decade + INTERVAL '10 years')::DATE);
+            decade := (decade + INTERVAL '10 years')::DATE;
+        END LOOP;
+END
+$$ LANGUAGE plpgsql;
+
+ALTER TABLE usr RENAME TO usr_unpartitioned;
+ALTER TABLE usr_unpartitioned RENAME CONSTRAINT usr_pkey TO usr_unpartitioned_pkey;
+ALTER INDEX usr_birth_date_id_idx RENAME TO usr_unpartitioned_birth_date_id_idx;
+
+CREATE TABLE usr
+(
+    id           BIGINT       NOT NULL,
+    email        VARCHAR(255) NOT NULL,
+    first_name   VARCHAR(255) NOT NULL,
+    last_name    VARCHAR(255) NOT NULL,
+    birth_date   DATE         NOT NULL,
+    address      VARCHAR(255),
+    phone_number VARCHAR(255),
+    version      BIGINT       NOT NULL DEFAULT 0,
+    PRIMARY KEY (id, birth_date)
+) PARTITION BY RANGE (birth_date);
+
+-- Created on every partition, serves range filters and the (birth_date, id) keyset order inside a decade
+CREATE INDEX usr_birth_date_id_idx ON usr (birth_date, id);
+
+CREATE TABLE usr_before_1900s PARTITION OF usr FOR VALUES FROM (MINVALUE) TO ('1900-01-01');
+SELECT create_usr_partitions('1900-01-01', current_date);
+
+INSERT INTO usr (id, email, first_name, last_name, birth_date, address, phone_number, version)
+SELECT id, email, first_name, last_name, birth_date, address, phone_number, version
+FROM usr_unpartitioned;
+
+DROP TABLE usr_unpartitioned;
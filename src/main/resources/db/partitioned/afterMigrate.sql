@@ -0,0 +1,16 @@
+-- Runs on every start: keeps partitions of the current and the next decade, birth dates never lie further ahead
+SELECT create_usr_partitions(current_date, (current_date + INTERVAL '10 years')::DATE);
+
+-- The change counter of V4 is lost when V3_1 replaces usr, applied out of order on a database migrated before
+DO
+$$
+BEGIN
+    IF NOT EXISTS(SELECT FROM pg_trigger WHERE tgrelid = 'usr'::REGCLASS AND tgname = 'usr_changes_trigger') THEN
+        CREATE TRIGGER usr_changes_trigger
+            AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE
+            ON usr
+            FOR EACH STATEMENT
+        EXECUTE FUNCTION count_usr_change();
+    END IF;
+END
+$$;
@@ -2,17 +2,23 @@ package ua.anton.tsa.testassignment;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import ua.anton.tsa.testassignment.model.User;
+import ua.anton.tsa.testassignment.wire.KeysetCursor;
 import ua.anton.tsa.testassignment.wire.request.CreateUserRequest;
+import ua.anton.tsa.testassignment.wire.request.CreateUsersBatchRequest;
 import ua.anton.tsa.testassignment.wire.request.ModifyUserRequest;
 import ua.anton.tsa.testassignment.wire.request.ReplaceUserRequest;
+import ua.anton.tsa.testassignment.wire.response.CreateUsersBatchResponse;
 import ua.anton.tsa.testassignment.wire.response.PageResponse;
 import ua.anton.tsa.testassignment.wire.response.RetrieveUsersResponse;
 
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
 
 public class UserFixture {
 
@@ -48,6 +54,7 @@ public class UserFixture {
             .birthDate(LocalDate.parse("1993-01-01"))
             .phoneNumber("+380931254556")
             .address("Valid Address")
+            .version(3L)
             .build();
 
     public static final User SECOND_USER = User.builder()
@@ -58,6 +65,7 @@ public class UserFixture {
             .birthDate(LocalDate.parse("1995-01-01"))
             .phoneNumber("+380931254556")
             .address("Valid Address")
+            .version(0L)
             .build();
 
     public static final List<User> USERS_LIST = List.of(
@@ -72,6 +80,8 @@ public class UserFixture {
             USERS_PAGE
     );
 
+    public static final PageResponse.PageInfo USERS_PAGE_INFO = new PageResponse.PageInfo(0, 3, List.of("id,ASC"));
+
     // USERS MAPPED
     public static final User USER_MAPPED_VALID = User.builder()
             .id(1L)
@@ -119,6 +129,16 @@ public class UserFixture {
             .address("Valid Address")
             .build();
 
+    // CREATE USERS BATCH REQUESTS
+    public static final CreateUsersBatchRequest CREATE_USERS_BATCH_REQUEST = new CreateUsersBatchRequest(List.of(
+            CREATE_USER_REQUEST_VALID,
+            CREATE_USER_REQUEST_INVALID,
+            CREATE_USER_REQUEST_INVALID_AGE
+    ));
+
+    public static final CreateUsersBatchRequest CREATE_USERS_BATCH_REQUEST_NULL_ITEM = new CreateUsersBatchRequest(
+            Arrays.asList(CREATE_USER_REQUEST_VALID, null));
+
     // REPLACE USER REQUESTS
     public static final ReplaceUserRequest REPLACE_USER_REQUEST_VALID = ReplaceUserRequest.builder()
             .email("Valid.email@gmail.com")
@@ -145,24 +165,49 @@ public class UserFixture {
             .build();
 
     // MODIFY USER REQUESTS
-    public static final ModifyUserRequest MODIFY_USER_REQUEST_VALID = new ModifyUserRequest(
-            Map.of("email", "Valid.Email@gmail.com")
-    );
+    public static final ModifyUserRequest MODIFY_USER_REQUEST_VALID = ModifyUserRequest.builder()
+            .email(Optional.of("Valid.Email@gmail.com"))
+            .build();
 
-    public static final ModifyUserRequest MODIFY_USER_REQUEST_INVALID = new ModifyUserRequest(
-            Map.of("birthDate", "2025-02-04", "email", "Invalid Email")
-    );
+    public static final ModifyUserRequest MODIFY_USER_REQUEST_BIRTH_DATE = ModifyUserRequest.builder()
+            .birthDate(Optional.of(LocalDate.parse("1970-01-01")))
+            .firstName(Optional.of("Firstname"))
+            .build();
 
-    public static final ModifyUserRequest MODIFY_USER_REQUEST_INVALID_AGE = new ModifyUserRequest(
-            Map.of(
-                    "birthDate", "2022-02-04",
-                    "firstName", "",
-                    "lastName", "",
-                    "email", "Invalid Email",
-                    "address", "",
-                    "phoneNumber", ""
-            )
-    );
+    public static final ModifyUserRequest MODIFY_USER_REQUEST_REMOVE_ADDRESS = ModifyUserRequest.builder()
+            .address(Optional.empty())
+            .build();
+
+    public static final ModifyUserRequest MODIFY_USER_REQUEST_INVALID = ModifyUserRequest.builder()
+            .birthDate(Optional.of(LocalDate.parse("2025-02-04")))
+            .email(Optional.of("Invalid Email"))
+            .build();
+
+    public static final ModifyUserRequest MODIFY_USER_REQUEST_INVALID_AGE = ModifyUserRequest.builder()
+            .birthDate(Optional.of(LocalDate.parse("2022-02-04")))
+            .firstName(Optional.of(""))
+            .lastName(Optional.of(""))
+            .email(Optional.of("Invalid Email"))
+            .address(Optional.of(""))
+            .phoneNumber(Optional.of(""))
+            .build();
+
+    // CREATE USERS BATCH RESPONSES
+    public static final CreateUsersBatchResponse CREATE_USERS_BATCH_RESPONSE = CreateUsersBatchResponse.builder()
+            .created(List.of(new CreateUsersBatchResponse.Created(0, 1L)))
+            .errors(List.of(
+                    new CreateUsersBatchResponse.Error(1, "address: must contain at least one non-whitespace character, " +
+                            "address: size must be between 1 and 255, birthDate: must be a valid local date earlier than current day, " +
+                            "email: must be a not blank well-formed email address, firstName: must not be blank, lastName: must not be blank, " +
+                            "phoneNumber: must contain at least one non-whitespace character, phoneNumber: size must be between 1 and 15"),
+                    new CreateUsersBatchResponse.Error(2, "User must be older than 18")
+            ))
+            .build();
+
+    public static final CreateUsersBatchResponse CREATE_USERS_BATCH_NULL_ITEM_RESPONSE = CreateUsersBatchResponse.builder()
+            .created(List.of(new CreateUsersBatchResponse.Created(0, 1L)))
+            .errors(List.of(new CreateUsersBatchResponse.Error(1, "item: must not be null")))
+            .build();
 
     // RETRIEVE USER REQUESTS
     public static final RetrieveUsersResponse FIRST_RETRIEVE_USER_RESPONSE = RetrieveUsersResponse.builder()
@@ -173,6 +218,7 @@ public class UserFixture {
             .birthDate(LocalDate.parse("1993-01-01"))
             .phoneNumber("+380931254556")
             .address("Valid Address")
+            .version(3L)
             .build();
 
     public static final RetrieveUsersResponse SECOND_RETRIEVE_USER_RESPONSE = RetrieveUsersResponse.builder()
@@ -183,6 +229,7 @@ public class UserFixture {
             .birthDate(LocalDate.parse("1995-01-01"))
             .phoneNumber("+380931254556")
             .address("Valid Address")
+            .version(0L)
             .build();
 
     public static final List<RetrieveUsersResponse> RETRIEVE_USERS_RESPONSE = List.of(
@@ -190,12 +237,27 @@ public class UserFixture {
             SECOND_RETRIEVE_USER_RESPONSE
     );
 
-    public static final PageResponseTest<RetrieveUsersResponse> RETRIEVE_USERS_RESPONSE_PAGEABLE = new PageResponseTest<>(
-            RETRIEVE_USERS_RESPONSE,
-            PAGE_REQUEST
+    public static final Page<User> USERS_EMPTY_PAGE = new PageResponseTest<>(List.of(), PAGE_REQUEST);
+
+    // SLICES
+    public static final Slice<User> USERS_SLICE = new SliceImpl<>(USERS_LIST, PAGE_REQUEST, false);
+
+    // KEYSET PAGINATION
+    public static final int KEYSET_PAGE_SIZE = 1;
+
+    public static final KeysetCursor KEYSET_CURSOR = new KeysetCursor(LocalDate.parse("1993-01-01"), 2L);
+
+    public static final Slice<User> USERS_KEYSET_FIRST_PAGE = new SliceImpl<>(
+            List.of(FIRST_USER),
+            PageRequest.of(0, KEYSET_PAGE_SIZE, Sort.by("birthDate", "id")),
+            true
     );
 
-    public static final PageResponseTest<RetrieveUsersResponse> RETRIEVE_USERS_EMPTY_RESPONSE_PAGEABLE = new PageResponseTest<>(List.of(), PAGE_REQUEST);
+    public static final Slice<User> USERS_KEYSET_LAST_PAGE = new SliceImpl<>(
+            List.of(SECOND_USER),
+            PageRequest.of(0, KEYSET_PAGE_SIZE, Sort.by("birthDate", "id")),
+            false
+    );
 
     public static final LocalDate FROM_VALID = LocalDate.parse("1992-01-01");
     public static final LocalDate TO_VALID = LocalDate.parse("1996-03-06");
@@ -209,10 +271,30 @@ public class UserFixture {
     public static final Long USER_ID_NEGATIVE = -42L;
     public static final String USER_ID_MALFORMED = "MALFORMED_ID";
 
+    // VERSIONS
+
+    public static final long WRITE_CHANGES = 42L;
+    public static final String WRITE_VERSION = Long.toString(WRITE_CHANGES);
+    public static final String WRITE_VERSION_ETAG = "\"" + WRITE_VERSION + "-json\"";
+    public static final String WRITE_VERSION_SMILE_ETAG = "\"" + WRITE_VERSION + "-smile\"";
+    public static final String WRITE_VERSION_STALE_ETAG = "\"41-json\"";
+    public static final Long USER_VERSION = 3L;
+    public static final Long USER_VERSION_STALE = 2L;
+    public static final String USER_VERSION_ETAG = "\"3-json\"";
+    public static final String USER_VERSION_WEAK_ETAG = "W/\"3-json\"";
+    public static final String USER_VERSION_STALE_ETAG = "\"2-smile\"";
+    public static final String USER_VERSION_MALFORMED_ETAG = "\"lx9k2c1b-7\"";
+    public static final String PRECONDITION_FAILED_EXCEPTION_MESSAGE = "User has been changed by another request";
+    public static final String API_KEY_HEADER = "X-Api-Key";
+    public static final String CLIENT_PRINCIPAL_VALID = "valid-client";
+    public static final String CLIENT_ADDRESS_LIMITED = "10.0.0.1";
+    public static final String CLIENT_ADDRESS_VALID = "10.0.0.2";
+
     // EXCEPTIONS' MESSAGES
 
     public static final String STORAGE_EXCEPTION_MESSAGE = "Connection Error";
     public static final String NOT_FOUND_EXCEPTION_MESSAGE = "NOT_FOUND";
+    public static final String USER_NOT_FOUND_EXCEPTION_MESSAGE = "User with given id is not found";
     public static final String INVALID_REQUEST_BODY_MESSAGE = "Invalid request body received";
     public static final String NEGATIVE_ID_EXCEPTION_MESSAGE = "remove.id: must be greater than 0";
     public static final String CREATE_USER_RESPONSE_BAD_REQUEST_MESSAGE = "address: must contain at least one non-whitespace character, " +
@@ -228,6 +310,9 @@ public class UserFixture {
     public static final String MODIFY_USER_RESPONSE_BAD_REQUEST_MESSAGE_BIRTHDATE = "birthDate: must be a valid local date earlier than current day";
     public static final String RETRIEVE_USERS_RESPONSE_BAD_REQUEST_MESSAGE = "\"User must be older than ";
     public static final String INVALID_PERIOD_EXCEPTION_MESSAGE = "from date must be less than to date";
+    public static final String INVALID_CURSOR_EXCEPTION_MESSAGE = "after must be a cursor returned by a previous page";
+    public static final String RATE_LIMIT_EXCEEDED_MESSAGE = "Rate limit of POST /api/v1/users is exceeded";
+    public static final String CONCURRENCY_LIMIT_EXCEPTION_MESSAGE = "Service is overloaded, concurrency limit is reached";
     public static final String DELETE_USER_RESPONSE_BAD_REQUEST_MESSAGE = "id: provided wrong type, expected type is Long";
 
     // URLS
@@ -236,6 +321,13 @@ public class UserFixture {
     public static final String USERS_URL_VALID = API_V1 + "/users";
     public static final String USERS_URL_VALID_REQUEST_PARAMS = USERS_URL_VALID + "?from=1992-01-01&to=1996-03-06";
     public static final String USERS_URL_INVALID_REQUEST_PARAMS = USERS_URL_VALID + "?from=1996-01-01&to=1992-03-06";
+    public static final String USERS_URL_VALID_WITHOUT_COUNT = USERS_URL_VALID_REQUEST_PARAMS + "&count=false";
+    public static final String USERS_URL_KEYSET_FIRST_PAGE = USERS_URL_VALID_REQUEST_PARAMS + "&size=1&after=";
+    public static final String USERS_URL_KEYSET_NEXT_PAGE = USERS_URL_KEYSET_FIRST_PAGE + KEYSET_CURSOR.encode();
+    public static final String USERS_URL_KEYSET_INVALID_CURSOR = USERS_URL_KEYSET_FIRST_PAGE + "MALFORMED_CURSOR";
+    public static final String USERS_EXPORT_URL_VALID_REQUEST_PARAMS = USERS_URL_VALID + ":export?from=1992-01-01&to=1996-03-06";
+    public static final String USERS_EXPORT_URL_INVALID_REQUEST_PARAMS = USERS_URL_VALID + ":export?from=1996-01-01&to=1992-03-06";
+    public static final String USERS_BATCH_URL_VALID = USERS_URL_VALID + ":batch";
     public static final String USER_URL_VALID = USERS_URL_VALID + "/{id}";
     private static final String URL_PATH_SEPARATOR = "/";
     public static final String EXPECTED_CREATED_URL = USERS_URL_VALID + URL_PATH_SEPARATOR + USER_ID_VALID;
@@ -0,0 +1,81 @@
+package ua.anton.tsa.testassignment.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import ua.anton.tsa.testassignment.configuration.JacksonConfiguration;
+import ua.anton.tsa.testassignment.model.User;
+import ua.anton.tsa.testassignment.wire.response.PageResponse;
+import ua.anton.tsa.testassignment.wire.response.RetrieveUsersResponse;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static ua.anton.tsa.testassignment.UserFixture.PAGE_REQUEST;
+
+/**
+ * Microbenchmark of the GET users page in JSON and in Smile, both with the {@link JacksonConfiguration} settings.
+ * Encoding writes the page from entities, decoding reads it back the way a client does. The encoded size is
+ * printed once per fork.
+ */
+@Fork(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ContentNegotiationBenchmark {
+
+    @Param({"json", "smile"})
+    private String format;
+
+    @Param({"1000"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+    private ObjectReader pageReader;
+    private PageResponse<User> pageResponse;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = "smile".equals(format)
+                ? JacksonConfiguration.smileMapper()
+                : new JacksonConfiguration().objectMapper();
+        pageReader = objectMapper.readerFor(new TypeReference<PageResponse<RetrieveUsersResponse>>() {
+        });
+        List<User> users = LongStream.rangeClosed(1, pageSize)
+                .mapToObj(id -> User.builder()
+                        .id(id)
+                        .email("user" + id + ".email@gmail.com")
+                        .firstName("Firstname" + id)
+                        .lastName("Lastname" + id)
+                        .birthDate(LocalDate.parse("1970-01-01").plusDays(id))
+                        .phoneNumber("+380931254556")
+                        .address("Valid Address " + id)
+                        .version(0L)
+                        .build())
+                .toList();
+        Page<User> page = new PageImpl<>(users, PageRequest.of(0, pageSize, PAGE_REQUEST.getSort()), pageSize * 10L);
+        pageResponse = new PageResponse<>(page);
+        payload = objectMapper.writeValueAsBytes(pageResponse);
+        System.out.printf("%n%s page of %d rows: %d bytes%n", format, pageSize, payload.length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return objectMapper.writeValueAsBytes(pageResponse);
+    }
+
+    @Benchmark
+    public PageResponse<RetrieveUsersResponse> decode() throws IOException {
+        return pageReader.readValue(payload);
+    }
+}
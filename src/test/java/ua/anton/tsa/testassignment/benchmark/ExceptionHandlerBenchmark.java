@@ -0,0 +1,92 @@
+package ua.anton.tsa.testassignment.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import ua.anton.tsa.testassignment.configuration.DiagnosticsProperties;
+import ua.anton.tsa.testassignment.controller.handler.GlobalExceptionHandler;
+import ua.anton.tsa.testassignment.exceptions.InvalidPeriodException;
+import ua.anton.tsa.testassignment.wire.response.RestContractExceptionResponse;
+
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Microbenchmark of {@link GlobalExceptionHandler} under an error storm: every thread turns errors into responses
+ * as fast as it can. Sampled error log lines are formatted into a discarding appender, or switched off, to see
+ * their share.
+ * Exceptions are created once, so only the handler and its error counter are measured.
+ */
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ExceptionHandlerBenchmark {
+
+    private static final String LOG_PATTERN = "%d{ISO8601} %5level --- [%thread] %logger{39} : %msg%n";
+
+    @Param({"true", "false"})
+    private boolean logging;
+
+    private final GlobalExceptionHandler globalExceptionHandler = new GlobalExceptionHandler(
+            new SimpleMeterRegistry(),
+            new DiagnosticsProperties(
+                    new DiagnosticsProperties.Pinning(Duration.ofMillis(20)),
+                    new DiagnosticsProperties.ErrorLog(Duration.ofSeconds(10), 1, 10)
+            )
+    );
+    private final HttpClientErrorException notFound =
+            new HttpClientErrorException(HttpStatus.NOT_FOUND, "User with given id is not found");
+    private final InvalidPeriodException invalidPeriod =
+            new InvalidPeriodException("from date must be less than to date");
+    private final IllegalStateException unexpected = new IllegalStateException("Connection Error");
+
+    @Setup
+    public void setUp() {
+        LoggerContext loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+        Logger root = loggerContext.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        root.detachAndStopAllAppenders();
+        root.setLevel(Level.WARN);
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(loggerContext);
+        encoder.setPattern(LOG_PATTERN);
+        encoder.start();
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(loggerContext);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(OutputStream.nullOutputStream());
+        appender.start();
+        root.addAppender(appender);
+
+        loggerContext.getLogger(GlobalExceptionHandler.class).setLevel(logging ? Level.WARN : Level.OFF);
+    }
+
+    @Benchmark
+    public ResponseEntity<RestContractExceptionResponse> statusCodeException() {
+        return globalExceptionHandler.handleBindException(notFound);
+    }
+
+    @Benchmark
+    public ResponseEntity<RestContractExceptionResponse> invalidPeriod() {
+        return globalExceptionHandler.handleBindException(invalidPeriod);
+    }
+
+    @Benchmark
+    public ResponseEntity<RestContractExceptionResponse> unexpected() {
+        return globalExceptionHandler.handleThrowable(unexpected);
+    }
+}
@@ -0,0 +1,78 @@
+package ua.anton.tsa.testassignment.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import ua.anton.tsa.testassignment.model.User;
+import ua.anton.tsa.testassignment.repo.InMemoryUsersRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Microbenchmark of birthdate range pages and single user reads of {@link InMemoryUsersRepository} filled with
+ * a million users born in 1930-2003, the way "PartitioningBenchmark" fills the database.
+ * Pages are read in (birthDate, id) order from the index, in id order, and by keyset from a random position.
+ */
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class InMemoryUsersRepositoryBenchmark {
+
+    private static final int USERS = 1_000_000;
+    private static final int PAGE_SIZE = 20;
+    private static final LocalDate FIRST_BIRTH_DATE = LocalDate.parse("1930-01-01");
+    private static final LocalDate FROM = LocalDate.parse("1980-01-01");
+    private static final Pageable INDEX_ORDER = PageRequest.of(10, PAGE_SIZE, Sort.by("birthDate", "id"));
+    private static final Pageable ID_ORDER = PageRequest.of(10, PAGE_SIZE, Sort.by("id"));
+
+    @Param({"1", "10", "30"})
+    private int years;
+
+    private final InMemoryUsersRepository usersRepository = new InMemoryUsersRepository();
+    private LocalDate to;
+
+    @Setup
+    public void setUp() {
+        for (long id = 1; id <= USERS; id++) {
+            usersRepository.save(User.builder()
+                    .email("user" + id + "@gmail.com")
+                    .firstName("Firstname")
+                    .lastName("Lastname")
+                    .birthDate(FIRST_BIRTH_DATE.plusDays(id * 7919 % 27000))
+                    .address("Address " + id)
+                    .phoneNumber("+380931254556")
+                    .build());
+        }
+        to = FROM.plusYears(years).minusDays(1);
+    }
+
+    @Benchmark
+    public Page<User> indexOrderPage() {
+        return usersRepository.findAllByBirthDateBetween(FROM, to, INDEX_ORDER);
+    }
+
+    @Benchmark
+    public Page<User> idOrderPage() {
+        return usersRepository.findAllByBirthDateBetween(FROM, to, ID_ORDER);
+    }
+
+    @Benchmark
+    public List<User> keysetPage() {
+        LocalDate after = FROM.plusDays(ThreadLocalRandom.current().nextInt(years * 365));
+        return usersRepository.findKeysetPageAfter(FROM, to, after, 0L, PAGE_SIZE + 1);
+    }
+
+    @Benchmark
+    public Optional<User> findById() {
+        return usersRepository.findById(ThreadLocalRandom.current().nextLong(1, USERS + 1));
+    }
+}
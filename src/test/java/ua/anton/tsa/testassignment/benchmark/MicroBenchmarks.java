@@ -0,0 +1,33 @@
+package ua.anton.tsa.testassignment.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Launcher of the JMH microbenchmarks of per-request CPU paths.
+ * Always runs with the GC profiler, so allocation rates ("gc.alloc.rate.norm", bytes per operation) are reported next
+ * to the timings, and writes JSON results to "target/jmh-result.json" unless "-rff" is given, to compare releases.
+ * Accepts the usual JMH command line, e.g. a benchmark regexp to run a subset.
+ * <p>
+ * {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=ua.anton.tsa.testassignment.benchmark.MicroBenchmarks
+ * -Dbenchmark.args="UserMapperBenchmark"}
+ */
+public class MicroBenchmarks {
+
+    private static final String RESULT_FILE = "target/jmh-result.json";
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(commandLineOptions)
+                .addProfiler(GCProfiler.class);
+        if (!commandLineOptions.getResult().hasValue()) {
+            options.result(RESULT_FILE).resultFormat(ResultFormatType.JSON);
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,188 @@
+package ua.anton.tsa.testassignment.benchmark;
+
+import org.flywaydb.core.Flyway;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Benchmark of birth-date range queries on the unpartitioned "usr" table and on "usr" partitioned by decade.
+ * Both layouts are created by the application migrations in their own schemas of a PostgreSQL database
+ * ("benchmark.url", "benchmark.user", "benchmark.password"), filled with "benchmark.rows" users born in 1930-2003
+ * and analyzed. Then the queries of a GET users page (first rows of the range and the count) are executed
+ * "benchmark.iterations" times for ranges of a year, a decade and thirty years. Latency percentiles and the number
+ * of partitions left after pruning are printed per layout and query.
+ * Filling tens of millions of rows takes minutes, "benchmark.keep=true" reuses the schemas of a previous run.
+ * <p>
+ * {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=ua.anton.tsa.testassignment.benchmark.PartitioningBenchmark
+ * -Dbenchmark.jvmArgs="-Dbenchmark.rows=20000000"}
+ */
+public class PartitioningBenchmark {
+
+    private static final String URL = System.getProperty("benchmark.url", "jdbc:postgresql://localhost:5432/usrdb");
+    private static final String USER = System.getProperty("benchmark.user", "postgres");
+    private static final String PASSWORD = System.getProperty("benchmark.password", "password");
+    private static final long ROWS = Long.getLong("benchmark.rows", 20_000_000L);
+    private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 200);
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final boolean KEEP = Boolean.getBoolean("benchmark.keep");
+    private static final int PAGE_SIZE = 20;
+    private static final String FILL = """
+            INSERT INTO usr (id, email, first_name, last_name, birth_date, address, phone_number)
+            SELECT g, 'user' || g || '@gmail.com', 'Firstname', 'Lastname',
+                   DATE '1930-01-01' + (g * 7919 % 27000)::INT, 'Address ' || g, '+380931254556'
+            FROM generate_series(1, ?) g""";
+    private static final String PAGE = """
+            SELECT * FROM usr
+            WHERE birth_date BETWEEN ? AND ?
+            ORDER BY birth_date, id
+            LIMIT %d""".formatted(PAGE_SIZE);
+    private static final String COUNT = "SELECT count(*) FROM usr WHERE birth_date BETWEEN ? AND ?";
+    private static final Pattern PARTITION_SCAN = Pattern.compile("\\bon usr_\\w+");
+    private static final String NEVER_EXECUTED = "(never executed)";
+    private static final String REPORT_FORMAT = "%-12s %-6s %-9s %10s %10s %10s %10s%n";
+    private static final double NANOS_IN_MILLI = 1_000_000d;
+
+    private static final List<Layout> LAYOUTS = List.of(
+            new Layout("flat", "bench_usr_flat", "classpath:db/migration"),
+            new Layout("partitioned", "bench_usr_partitioned", "classpath:db/migration", "classpath:db/partitioned")
+    );
+    private static final List<Range> RANGES = List.of(
+            new Range("year", LocalDate.parse("1980-01-01"), LocalDate.parse("1980-12-31")),
+            new Range("decade", LocalDate.parse("1980-01-01"), LocalDate.parse("1989-12-31")),
+            new Range("30 years", LocalDate.parse("1960-01-01"), LocalDate.parse("1989-12-31"))
+    );
+
+    public static void main(String[] args) throws Exception {
+        List<Object[]> report = new ArrayList<>();
+        for (Layout layout : LAYOUTS) {
+            if (!KEEP) {
+                create(layout);
+            }
+            try (Connection connection = DriverManager.getConnection(URL, USER, PASSWORD)) {
+                connection.setSchema(layout.schema());
+                for (Range range : RANGES) {
+                    report.add(run(connection, PAGE, range).row(layout.name(), "page", range.name()));
+                    report.add(run(connection, COUNT, range).row(layout.name(), "count", range.name()));
+                }
+            }
+        }
+        System.out.printf("%nrows=%d, iterations=%d%n", ROWS, ITERATIONS);
+        System.out.printf(REPORT_FORMAT, "layout", "query", "range", "p50 ms", "p99 ms", "max ms", "scans");
+        report.forEach(row -> System.out.printf(REPORT_FORMAT, row));
+    }
+
+    /**
+     * Migrates a fresh schema of the layout and fills it
+     */
+    private static void create(Layout layout) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(URL, USER, PASSWORD);
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP SCHEMA IF EXISTS " + layout.schema() + " CASCADE");
+        }
+        Flyway.configure()
+                .dataSource(URL, USER, PASSWORD)
+                .schemas(layout.schema())
+                .locations(layout.locations())
+                .load()
+                .migrate();
+        try (Connection connection = DriverManager.getConnection(URL, USER, PASSWORD)) {
+            connection.setSchema(layout.schema());
+            long started = System.nanoTime();
+            try (PreparedStatement fill = connection.prepareStatement(FILL)) {
+                fill.setLong(1, ROWS);
+                fill.executeUpdate();
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ANALYZE usr");
+            }
+            System.out.printf("%s: %d rows filled in %.0f s%n",
+                    layout.name(), ROWS, (System.nanoTime() - started) / NANOS_IN_MILLI / 1000);
+        }
+    }
+
+    private static Result run(Connection connection, String sql, Range range) throws SQLException {
+        long[] latencies = new long[ITERATIONS];
+        try (PreparedStatement query = connection.prepareStatement(sql)) {
+            query.setDate(1, Date.valueOf(range.from()));
+            query.setDate(2, Date.valueOf(range.to()));
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                drain(query);
+            }
+            for (int i = 0; i < ITERATIONS; i++) {
+                long started = System.nanoTime();
+                drain(query);
+                latencies[i] = System.nanoTime() - started;
+            }
+        }
+        Arrays.sort(latencies);
+        return new Result(latencies, scans(connection, sql, range));
+    }
+
+    private static void drain(PreparedStatement query) throws SQLException {
+        try (ResultSet resultSet = query.executeQuery()) {
+            while (resultSet.next()) {
+                resultSet.getObject(1);
+            }
+        }
+    }
+
+    /**
+     * @return number of partition scans in the executed plan, 0 for the unpartitioned table
+     */
+    private static int scans(Connection connection, String sql, Range range) throws SQLException {
+        int scans = 0;
+        try (PreparedStatement explain = connection.prepareStatement("EXPLAIN (ANALYZE, COSTS OFF) " + sql)) {
+            explain.setDate(1, Date.valueOf(range.from()));
+            explain.setDate(2, Date.valueOf(range.to()));
+            try (ResultSet plan = explain.executeQuery()) {
+                while (plan.next()) {
+                    String line = plan.getString(1);
+                    if (PARTITION_SCAN.matcher(line).find() && !line.contains(NEVER_EXECUTED)) {
+                        scans++;
+                    }
+                }
+            }
+        }
+        return scans;
+    }
+
+    private record Layout(String name, String schema, String... locations) {
+    }
+
+    private record Range(String name, LocalDate from, LocalDate to) {
+    }
+
+    private record Result(long[] latencies, int scans) {
+
+        Object[] row(String layout, String query, String range) {
+            return new Object[]{
+                    layout,
+                    query,
+                    range,
+                    millis(percentile(0.50)),
+                    millis(percentile(0.99)),
+                    millis(latencies[latencies.length - 1]),
+                    scans
+            };
+        }
+
+        private long percentile(double percentile) {
+            return latencies[(int) Math.min(latencies.length - 1, Math.ceil(percentile * latencies.length) - 1)];
+        }
+
+        private static String millis(long nanos) {
+            return String.format("%.2f", nanos / NANOS_IN_MILLI);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package ua.anton.tsa.testassignment.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import ua.anton.tsa.testassignment.configuration.JacksonConfiguration;
+import ua.anton.tsa.testassignment.mapper.UserMapper;
+import ua.anton.tsa.testassignment.mapper.UserMapperImpl;
+import ua.anton.tsa.testassignment.model.User;
+import ua.anton.tsa.testassignment.wire.request.ModifyUserRequest;
+import ua.anton.tsa.testassignment.wire.response.PageResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static ua.anton.tsa.testassignment.UserFixture.PAGE_REQUEST;
+
+/**
+ * Microbenchmark of the GET users response serialization and of the PATCH body deserialization with the
+ * root-wrapping {@link ObjectMapper} from {@link JacksonConfiguration}.
+ * "gc.alloc.rate.norm" compares allocation of the page written from entities and from mapped DTOs.
+ */
+@Fork(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializationBenchmark {
+
+    private static final byte[] MODIFY_USER_REQUEST_JSON = """
+            {"data":{"email":"Valid.email@gmail.com","firstName":"Firstname","lastName":"Lastname",\
+            "birthDate":"1970-01-01","address":null,"phoneNumber":"+380931254556"}}""".getBytes(StandardCharsets.UTF_8);
+
+    @Param({"3", "100", "1000"})
+    private int pageSize;
+
+    private final ObjectMapper objectMapper = new JacksonConfiguration().objectMapper();
+    private final ObjectReader modifyUserRequestReader = objectMapper.readerFor(ModifyUserRequest.class);
+    private final UserMapper userMapper = new UserMapperImpl();
+    private Page<User> page;
+
+    @Setup
+    public void setUp() {
+        List<User> users = LongStream.rangeClosed(1, pageSize)
+                .mapToObj(id -> User.builder()
+                        .id(id)
+                        .email("user" + id + ".email@gmail.com")
+                        .firstName("Firstname" + id)
+                        .lastName("Lastname" + id)
+                        .birthDate(LocalDate.parse("1970-01-01").plusDays(id))
+                        .phoneNumber("+380931254556")
+                        .address("Valid Address " + id)
+                        .version(0L)
+                        .build())
+                .toList();
+        page = new PageImpl<>(users, PageRequest.of(0, pageSize, PAGE_REQUEST.getSort()), pageSize * 10L);
+    }
+
+    /**
+     * Rows are written straight from the entities
+     */
+    @Benchmark
+    public byte[] pageResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(new PageResponse<>(page));
+    }
+
+    /**
+     * Entities are mapped to a page of DTOs first, the way pages were built before
+     */
+    @Benchmark
+    public byte[] mappedPageResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(new PageResponse<>(page.map(userMapper::toRetrieveUsersResponse)));
+    }
+
+    @Benchmark
+    public ModifyUserRequest modifyUserRequest() throws IOException {
+        return modifyUserRequestReader.readValue(MODIFY_USER_REQUEST_JSON);
+    }
+}
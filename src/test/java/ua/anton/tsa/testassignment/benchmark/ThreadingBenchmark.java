@@ -0,0 +1,161 @@
+package ua.anton.tsa.testassignment.benchmark;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import ua.anton.tsa.testassignment.TestAssigmentApplication;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.LongStream;
+
+/**
+ * Load benchmark comparing request handling on platform threads and on virtual threads.
+ * The application is started once per mode, then "benchmark.concurrency" clients send "retrieve" (GET page by
+ * birthdate range) and "create" (POST) requests for "benchmark.duration" each. Throughput and latency percentiles
+ * of 2xx responses are printed per mode and operation, other responses and I/O failures are counted as errors.
+ * Rate and concurrency limits are disabled, as all clients send from one address and would mostly measure
+ * 429 and 503 responses.
+ * An in-memory H2 database is used unless "spring.datasource.url" system property points to a real one.
+ * <p>
+ * {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark.jvmArgs="-Dbenchmark.concurrency=2000"}
+ */
+public class ThreadingBenchmark {
+
+    private static final int CONCURRENCY = Integer.getInteger("benchmark.concurrency", 1000);
+    private static final Duration WARMUP = Duration.parse(System.getProperty("benchmark.warmup", "PT10S"));
+    private static final Duration DURATION = Duration.parse(System.getProperty("benchmark.duration", "PT30S"));
+    private static final int SEED_USERS = 1000;
+    private static final String RETRIEVE_PATH = "/api/v1/users?from=1950-01-01&to=2000-12-31&size=20";
+    private static final String CREATE_PATH = "/api/v1/users";
+    private static final String CREATE_BODY = """
+            {"data":{"email":"bench.mark@gmail.com","firstName":"Bench","lastName":"Mark","birthDate":"1980-05-17",\
+            "address":"Benchmark street","phoneNumber":"+380931254556"}}""";
+    private static final String REPORT_FORMAT = "%-9s %-9s %10s %10s %10s %10s %10s %8s%n";
+    private static final double NANOS_IN_MILLI = 1_000_000d;
+
+    public static void main(String[] args) throws Exception {
+        List<Object[]> report = new ArrayList<>();
+        for (boolean virtual : new boolean[]{false, true}) {
+            String mode = virtual ? "virtual" : "platform";
+            try (ConfigurableApplicationContext context = start(virtual);
+                 HttpClient client = HttpClient.newBuilder()
+                         .executor(Executors.newVirtualThreadPerTaskExecutor())
+                         .build()) {
+                URI base = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port"));
+                HttpRequest retrieve = HttpRequest.newBuilder(base.resolve(RETRIEVE_PATH)).GET().build();
+                HttpRequest create = HttpRequest.newBuilder(base.resolve(CREATE_PATH))
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .POST(HttpRequest.BodyPublishers.ofString(CREATE_BODY))
+                        .build();
+                for (int i = 0; i < SEED_USERS; i++) {
+                    client.send(create, HttpResponse.BodyHandlers.discarding());
+                }
+                load(client, retrieve, WARMUP);
+                report.add(load(client, retrieve, DURATION).row(mode, "retrieve"));
+                load(client, create, WARMUP);
+                report.add(load(client, create, DURATION).row(mode, "create"));
+            }
+        }
+        System.out.printf("%nconcurrency=%d, duration=%s%n", CONCURRENCY, DURATION);
+        System.out.printf(REPORT_FORMAT, "mode", "operation", "requests", "req/s", "p50 ms", "p99 ms", "max ms", "errors");
+        report.forEach(row -> System.out.printf(REPORT_FORMAT, row));
+    }
+
+    private static ConfigurableApplicationContext start(boolean virtual) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + virtual,
+                "--spring.jpa.show-sql=false",
+                "--rate-limit.enabled=false",
+                "--concurrency-limit.enabled=false",
+                "--logging.level.root=WARN"
+        ));
+        if (System.getProperty("spring.datasource.url") == null) {
+            args.addAll(List.of(
+                    "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                    "--spring.flyway.enabled=false",
+                    "--spring.jpa.hibernate.ddl-auto=create-drop",
+                    "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+            ));
+        }
+        return new SpringApplicationBuilder(TestAssigmentApplication.class).run(args.toArray(String[]::new));
+    }
+
+    private static Result load(HttpClient client, HttpRequest request, Duration duration) throws Exception {
+        long started = System.nanoTime();
+        long deadline = started + duration.toNanos();
+        LongAdder errors = new LongAdder();
+        List<Future<long[]>> clients = new ArrayList<>(CONCURRENCY);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CONCURRENCY; i++) {
+                clients.add(executor.submit(() -> {
+                    LongStream.Builder latencies = LongStream.builder();
+                    while (System.nanoTime() < deadline) {
+                        long sent = System.nanoTime();
+                        try {
+                            if (isSuccessful(client.send(request, HttpResponse.BodyHandlers.discarding()))) {
+                                latencies.add(System.nanoTime() - sent);
+                            } else {
+                                errors.increment();
+                            }
+                        } catch (IOException e) {
+                            errors.increment();
+                        }
+                    }
+                    return latencies.build().toArray();
+                }));
+            }
+        }
+        long elapsed = System.nanoTime() - started;
+        List<long[]> latencies = new ArrayList<>(CONCURRENCY);
+        for (Future<long[]> future : clients) {
+            latencies.add(future.get());
+        }
+        long[] sorted = latencies.stream().flatMapToLong(LongStream::of).sorted().toArray();
+        return new Result(sorted, elapsed, errors.sum());
+    }
+
+    private static boolean isSuccessful(HttpResponse<?> response) {
+        return HttpStatusCode.valueOf(response.statusCode()).is2xxSuccessful();
+    }
+
+    private record Result(long[] latencies, long elapsed, long errors) {
+
+        Object[] row(String mode, String operation) {
+            return new Object[]{
+                    mode,
+                    operation,
+                    latencies.length,
+                    String.format("%.0f", latencies.length * NANOS_IN_MILLI * 1000 / elapsed),
+                    millis(percentile(0.50)),
+                    millis(percentile(0.99)),
+                    millis(latencies.length == 0 ? 0 : latencies[latencies.length - 1]),
+                    errors
+            };
+        }
+
+        private long percentile(double percentile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            return latencies[(int) Math.min(latencies.length - 1, Math.ceil(percentile * latencies.length) - 1)];
+        }
+
+        private static String millis(long nanos) {
+            return String.format("%.1f", nanos / NANOS_IN_MILLI);
+        }
+    }
+}
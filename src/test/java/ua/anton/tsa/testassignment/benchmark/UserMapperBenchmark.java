@@ -0,0 +1,40 @@
+package ua.anton.tsa.testassignment.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ua.anton.tsa.testassignment.mapper.UserMapper;
+import ua.anton.tsa.testassignment.mapper.UserMapperImpl;
+import ua.anton.tsa.testassignment.model.User;
+import ua.anton.tsa.testassignment.wire.response.RetrieveUsersResponse;
+
+import java.util.concurrent.TimeUnit;
+
+import static ua.anton.tsa.testassignment.UserFixture.*;
+
+/**
+ * Microbenchmarks of {@link UserMapper} mappings between wire objects and {@link User}.
+ */
+@Fork(1)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UserMapperBenchmark {
+
+    private final UserMapper userMapper = new UserMapperImpl();
+
+    @Benchmark
+    public User createRequestToUser() {
+        return userMapper.toUser(CREATE_USER_REQUEST_VALID);
+    }
+
+    @Benchmark
+    public User replaceRequestToUser() {
+        return userMapper.toUser(USER_ID_VALID, REPLACE_USER_REQUEST_VALID);
+    }
+
+    @Benchmark
+    public RetrieveUsersResponse userToRetrieveResponse() {
+        return userMapper.toRetrieveUsersResponse(USER_VALID);
+    }
+}
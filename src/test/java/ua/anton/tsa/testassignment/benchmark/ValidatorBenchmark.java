@@ -0,0 +1,92 @@
+package ua.anton.tsa.testassignment.benchmark;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import jakarta.validation.executable.ExecutableValidator;
+import org.openjdk.jmh.annotations.*;
+import ua.anton.tsa.testassignment.validation.Email;
+import ua.anton.tsa.testassignment.validation.ModifyUser;
+import ua.anton.tsa.testassignment.wire.request.ModifyUserRequest;
+
+import java.lang.reflect.Method;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static ua.anton.tsa.testassignment.UserFixture.MODIFY_USER_REQUEST_INVALID_AGE;
+
+/**
+ * Microbenchmarks of the custom constraint validators.
+ * Validators are called directly for valid values, where the constraint context is not used, and through Hibernate
+ * Validator for the whole PATCH body, the way the controller parameter is validated on every request.
+ */
+@Fork(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ValidatorBenchmark {
+
+    private static final String EMAIL = "Valid.email@gmail.com";
+    private static final ModifyUserRequest MODIFY_USER_REQUEST = ModifyUserRequest.builder()
+            .email(Optional.of(EMAIL))
+            .firstName(Optional.of("Firstname"))
+            .lastName(Optional.of("Lastname"))
+            .birthDate(Optional.of(LocalDate.parse("1970-01-01")))
+            .address(Optional.of("Valid Address"))
+            .phoneNumber(Optional.of("+380931254556"))
+            .build();
+
+    private final Email.EmailValidator emailValidator = new Email.EmailValidator();
+    private final ModifyUser.ModifyUserValidator modifyUserValidator = new ModifyUser.ModifyUserValidator();
+
+    private ValidatorFactory validatorFactory;
+    private ExecutableValidator executableValidator;
+    private Method modifyUser;
+    private final Target target = new Target();
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        modifyUser = Target.class.getMethod("modifyUser", ModifyUserRequest.class);
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        executableValidator = validatorFactory.getValidator().forExecutables();
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public boolean email() {
+        return emailValidator.isValid(EMAIL, null);
+    }
+
+    @Benchmark
+    public boolean modifyUser() {
+        return modifyUserValidator.isValid(MODIFY_USER_REQUEST, null);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Target>> modifyUserRequestValid() {
+        return executableValidator.validateParameters(target, modifyUser, new Object[]{MODIFY_USER_REQUEST});
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Target>> modifyUserRequestInvalid() {
+        return executableValidator.validateParameters(target, modifyUser, new Object[]{MODIFY_USER_REQUEST_INVALID_AGE});
+    }
+
+    /**
+     * Holder of the PATCH body constraint as declared on the controller
+     */
+    public static class Target {
+
+        @SuppressWarnings("unused")
+        public void modifyUser(@ModifyUser ModifyUserRequest modifyUserRequest) {
+        }
+    }
+}
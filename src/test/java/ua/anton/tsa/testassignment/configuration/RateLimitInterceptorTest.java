@@ -0,0 +1,56 @@
+package ua.anton.tsa.testassignment.configuration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+import ua.anton.tsa.testassignment.exceptions.RateLimitException;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Class with unit tests for {@link RateLimitInterceptor}
+ */
+class RateLimitInterceptorTest {
+
+    private static final String USERS_PATH = "/api/v1/users";
+    private static final int CAPACITY = 2;
+
+    private final RateLimitInterceptor rateLimitInterceptor = new RateLimitInterceptor(new RateLimitProperties(1,
+            List.of(new RateLimitProperties.Limit(HttpMethod.POST, USERS_PATH, CAPACITY, Duration.ofHours(1)))));
+
+    @Test
+    @DisplayName("""
+            GIVEN rate limit tracking one client
+            WHEN the tracked client and many new clients perform POST requests
+            THEN new clients share one bucket and the bucket of the tracked client is kept
+            """)
+    void newClientsShareOverflowBucket() throws Exception {
+        // GIVEN
+        assertThat(preHandle("10.0.0.1")).isTrue();
+
+        // WHEN
+        assertThat(preHandle("10.0.0.2")).isTrue();
+        assertThat(preHandle("10.0.0.3")).isTrue();
+
+        // THEN
+        assertThatThrownBy(() -> preHandle("10.0.0.4")).isInstanceOf(RateLimitException.class);
+
+        // AND THEN
+        assertThat(preHandle("10.0.0.1")).isTrue();
+        assertThatThrownBy(() -> preHandle("10.0.0.1")).isInstanceOf(RateLimitException.class);
+    }
+
+    private boolean preHandle(String remoteAddress) throws RateLimitException {
+        MockHttpServletRequest request = new MockHttpServletRequest(HttpMethod.POST.name(), USERS_PATH);
+        request.setRemoteAddr(remoteAddress);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, USERS_PATH);
+        return rateLimitInterceptor.preHandle(request, new MockHttpServletResponse(), null);
+    }
+}
@@ -0,0 +1,397 @@
+package ua.anton.tsa.testassignment.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.client.HttpClientErrorException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ua.anton.tsa.testassignment.configuration.DiagnosticsProperties;
+import ua.anton.tsa.testassignment.configuration.JacksonConfiguration;
+import ua.anton.tsa.testassignment.configuration.UserProperties;
+import ua.anton.tsa.testassignment.service.ReactiveUsersService;
+import ua.anton.tsa.testassignment.wire.response.PageResponse;
+import ua.anton.tsa.testassignment.wire.response.RestContractExceptionResponse;
+import ua.anton.tsa.testassignment.wire.response.RetrieveUsersResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static ua.anton.tsa.testassignment.Constants.REACTIVE_PROFILE;
+import static ua.anton.tsa.testassignment.UserFixture.*;
+import static ua.anton.tsa.testassignment.controller.UsersController.SMILE;
+
+/**
+ * Class with unit tests for {@link ReactiveUsersController}
+ */
+@WebFluxTest(controllers = ReactiveUsersController.class)
+@ActiveProfiles(REACTIVE_PROFILE)
+@Import(SimpleMeterRegistry.class)
+@MockBean(
+        classes = {
+                ReactiveUsersService.class,
+        },
+        answer = Answers.RETURNS_SMART_NULLS
+)
+@EnableConfigurationProperties({UserProperties.class, DiagnosticsProperties.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class ReactiveUserControllerTest {
+
+    private final WebTestClient webTestClient;
+    private final ObjectMapper objectMapper;
+    private final ReactiveUsersService usersService;
+    private final ObjectMapper smileMapper = JacksonConfiguration.smileMapper();
+
+    @BeforeEach
+    void setObjectMapper() {
+        objectMapper.configure(SerializationFeature.WRAP_ROOT_VALUE, true);
+        objectMapper.configure(DeserializationFeature.UNWRAP_ROOT_VALUE, true);
+    }
+
+    @BeforeEach
+    void setVersion() {
+        given(usersService.version()).willReturn(Mono.just(WRITE_VERSION));
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN valid createUserRequest object
+            WHEN performing POST request
+            THEN return response with code 201, valid location and empty body
+            """)
+    void createUserValid() {
+        // GIVEN
+        given(usersService.create(CREATE_USER_REQUEST_VALID)).willReturn(Mono.just(USER_ID_VALID));
+
+        // WHEN
+        webTestClient.post()
+                .uri(USERS_URL_VALID)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(toJson(CREATE_USER_REQUEST_VALID))
+                .exchange()
+                // THEN
+                .expectStatus().isCreated()
+                .expectHeader().valueEquals(HttpHeaders.LOCATION, EXPECTED_CREATED_URL)
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN invalid createUserRequest object
+            WHEN performing POST request
+            THEN return response with code 400 and message
+            """)
+    void createUserBadRequest() {
+        // GIVEN
+
+        // WHEN
+        RestContractExceptionResponse actualResponse = fromJson(webTestClient.post()
+                        .uri(USERS_URL_VALID)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(toJson(CREATE_USER_REQUEST_INVALID))
+                        .exchange()
+                        // THEN
+                        .expectStatus().isBadRequest()
+                        .expectBody(String.class)
+                        .returnResult()
+                        .getResponseBody(),
+                new TypeReference<>() {
+                });
+
+        // AND THEN
+        assertThat(actualResponse.error()).isEqualTo(CREATE_USER_RESPONSE_BAD_REQUEST_MESSAGE);
+        verify(usersService, never()).create(any());
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN valid user id, valid user object and If-Match header with a stale user version
+            WHEN performing PUT request
+            THEN return response with code 412
+            """)
+    void replaceUserWithStaleIfMatch() {
+        // GIVEN
+        given(usersService.replace(USER_ID_VALID, REPLACE_USER_REQUEST_VALID, USER_VERSION_STALE))
+                .willReturn(Mono.error(new HttpClientErrorException(
+                        HttpStatus.PRECONDITION_FAILED, PRECONDITION_FAILED_EXCEPTION_MESSAGE)));
+
+        // WHEN
+        RestContractExceptionResponse actualResponse = fromJson(webTestClient.put()
+                        .uri(USER_URL_VALID, USER_ID_VALID)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_MATCH, USER_VERSION_STALE_ETAG)
+                        .bodyValue(toJson(REPLACE_USER_REQUEST_VALID))
+                        .exchange()
+                        // THEN
+                        .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED)
+                        .expectBody(String.class)
+                        .returnResult()
+                        .getResponseBody(),
+                new TypeReference<>() {
+                });
+
+        // AND THEN
+        assertThat(actualResponse.error()).isEqualTo(PRECONDITION_FAILED_EXCEPTION_MESSAGE);
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN valid from and valid to
+            WHEN performing GET request
+            THEN return response with code 200, ETag header of the current storage version and page of users
+            """)
+    void retrieveUsersValid() {
+        // GIVEN
+        given(usersService.retrieve(PAGE_REQUEST, FROM_VALID, TO_VALID))
+                .willReturn(Mono.just(USERS_PAGE));
+
+        // WHEN
+        PageResponse<RetrieveUsersResponse> actualResponse = fromJson(webTestClient.get()
+                        .uri(USERS_URL_VALID_REQUEST_PARAMS)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .exchange()
+                        // THEN
+                        .expectStatus().isOk()
+                        .expectHeader().valueEquals(HttpHeaders.ETAG, WRITE_VERSION_ETAG)
+                        .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                        .expectBody(String.class)
+                        .returnResult()
+                        .getResponseBody(),
+                new TypeReference<>() {
+                });
+
+        // AND THEN
+        assertThat(actualResponse.getTotalElements()).isEqualTo(2L);
+        assertThat(actualResponse.getTotalPages()).isEqualTo(1);
+        assertThat(actualResponse.getContent()).isEqualTo(RETRIEVE_USERS_RESPONSE);
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN valid from and valid to
+            WHEN performing GET request accepting "application/x-jackson-smile"
+            THEN return response with code 200 and the same root-wrapped page as JSON encoded in Smile
+            """)
+    void retrieveUsersSmile() throws IOException {
+        // GIVEN
+        given(usersService.retrieve(PAGE_REQUEST, FROM_VALID, TO_VALID))
+                .willReturn(Mono.just(USERS_PAGE));
+
+        // WHEN
+        byte[] actualResponse = webTestClient.get()
+                .uri(USERS_URL_VALID_REQUEST_PARAMS)
+                .accept(SMILE)
+                .exchange()
+                // THEN
+                .expectStatus().isOk()
+                .expectHeader().contentType(SMILE)
+                .expectHeader().valueEquals(HttpHeaders.ETAG, WRITE_VERSION_SMILE_ETAG)
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+
+        // AND THEN
+        PageResponse<RetrieveUsersResponse> actualPage = smileMapper.readValue(actualResponse,
+                new TypeReference<>() {
+                });
+        assertThat(actualPage.getTotalElements()).isEqualTo(2L);
+        assertThat(actualPage.getContent()).isEqualTo(RETRIEVE_USERS_RESPONSE);
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN valid from, valid to and If-None-Match header with the current storage version
+            WHEN performing GET request
+            THEN return response with code 304 without querying storage
+            """)
+    void retrieveUsersNotModified() {
+        // GIVEN
+
+        // WHEN
+        webTestClient.get()
+                .uri(USERS_URL_VALID_REQUEST_PARAMS)
+                .accept(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_NONE_MATCH, WRITE_VERSION_ETAG)
+                .exchange()
+                // THEN
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .expectBody().isEmpty();
+
+        // AND THEN
+        verify(usersService, never()).retrieve(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN invalid user id
+            WHEN performing GET request
+            THEN return response with code 404
+            """)
+    void retrieveUserNotFound() {
+        // GIVEN
+        given(usersService.retrieve(USER_ID_INVALID))
+                .willReturn(Mono.error(new HttpClientErrorException(HttpStatus.NOT_FOUND, NOT_FOUND_EXCEPTION_MESSAGE)));
+
+        // WHEN
+        RestContractExceptionResponse actualResponse = fromJson(webTestClient.get()
+                        .uri(USER_URL_VALID, USER_ID_INVALID)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .exchange()
+                        // THEN
+                        .expectStatus().isNotFound()
+                        .expectBody(String.class)
+                        .returnResult()
+                        .getResponseBody(),
+                new TypeReference<>() {
+                });
+
+        // AND THEN
+        assertThat(actualResponse.error()).isEqualTo(NOT_FOUND_EXCEPTION_MESSAGE);
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN valid from and valid to
+            WHEN performing GET export request
+            THEN return response with code 200 and one JSON user per line
+            """)
+    void exportUsersValid() {
+        // GIVEN
+        given(usersService.export(FROM_VALID, TO_VALID)).willReturn(Flux.fromIterable(RETRIEVE_USERS_RESPONSE));
+
+        // WHEN
+        String actualResponse = webTestClient.get()
+                .uri(USERS_EXPORT_URL_VALID_REQUEST_PARAMS)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                // THEN
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        // AND THEN
+        assertThat(Objects.requireNonNull(actualResponse).lines()
+                .map(line -> fromJsonLine(line, RetrieveUsersResponse.class)))
+                .containsExactlyElementsOf(RETRIEVE_USERS_RESPONSE);
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN valid from and valid to
+            WHEN performing GET export request accepting "application/x-jackson-smile"
+            THEN return response with code 200 and a stream of Smile encoded users with one header
+            """)
+    void exportUsersSmile() throws IOException {
+        // GIVEN
+        given(usersService.export(FROM_VALID, TO_VALID)).willReturn(Flux.fromIterable(RETRIEVE_USERS_RESPONSE));
+
+        // WHEN
+        byte[] actualResponse = webTestClient.get()
+                .uri(USERS_EXPORT_URL_VALID_REQUEST_PARAMS)
+                .accept(SMILE)
+                .exchange()
+                // THEN
+                .expectStatus().isOk()
+                .expectHeader().contentType(SMILE)
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+
+        // AND THEN
+        try (MappingIterator<RetrieveUsersResponse> actualUsers = smileMapper.readerFor(RetrieveUsersResponse.class)
+                .without(DeserializationFeature.UNWRAP_ROOT_VALUE)
+                .readValues(actualResponse)) {
+            assertThat(actualUsers.readAll()).containsExactlyElementsOf(RETRIEVE_USERS_RESPONSE);
+        }
+
+        assertThat(actualResponse).isEqualTo(toSmileValues(RETRIEVE_USERS_RESPONSE));
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN malformed user id
+            WHEN performing DELETE request
+            THEN return response with code 400 and type mismatch message
+            """)
+    void removeUserMalformedId() {
+        // GIVEN
+
+        // WHEN
+        RestContractExceptionResponse actualResponse = fromJson(webTestClient.delete()
+                        .uri(USER_URL_VALID, USER_ID_MALFORMED)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .exchange()
+                        // THEN
+                        .expectStatus().isBadRequest()
+                        .expectBody(String.class)
+                        .returnResult()
+                        .getResponseBody(),
+                new TypeReference<>() {
+                });
+
+        // AND THEN
+        assertThat(actualResponse.error()).isEqualTo(DELETE_USER_RESPONSE_BAD_REQUEST_MESSAGE);
+    }
+
+    @SneakyThrows(JsonProcessingException.class)
+    private String toJson(Object object) {
+        return objectMapper.writeValueAsString(object);
+    }
+
+    @SneakyThrows(JsonProcessingException.class)
+    public <T> T fromJsonLine(String string, Class<T> type) {
+        return objectMapper.readerFor(type).without(DeserializationFeature.UNWRAP_ROOT_VALUE).readValue(string);
+    }
+
+    @SneakyThrows(JsonProcessingException.class)
+    public <T> T fromJson(String string, TypeReference<T> type) {
+        return Objects.nonNull(string) ? objectMapper.readValue(string, type) : null;
+    }
+
+    private byte[] toSmileValues(List<RetrieveUsersResponse> users) throws IOException {
+        ObjectWriter writer = smileMapper.writerFor(RetrieveUsersResponse.class)
+                .without(SerializationFeature.WRAP_ROOT_VALUE);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (JsonGenerator generator = smileMapper.createGenerator(outputStream)) {
+            for (RetrieveUsersResponse user : users) {
+                writer.writeValue(generator, user);
+            }
+        }
+        return outputStream.toByteArray();
+    }
+}
@@ -3,51 +3,87 @@ package ua.anton.tsa.testassignment.controller;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.hibernate.exception.JDBCConnectionException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.core.env.PropertyResolver;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
 import org.springframework.web.client.HttpClientErrorException;
+import ua.anton.tsa.testassignment.configuration.ConcurrencyLimitProperties;
+import ua.anton.tsa.testassignment.configuration.DiagnosticsProperties;
+import ua.anton.tsa.testassignment.configuration.JacksonConfiguration;
+import ua.anton.tsa.testassignment.configuration.RateLimitProperties;
+import ua.anton.tsa.testassignment.configuration.ReplicationProperties;
+import ua.anton.tsa.testassignment.configuration.ServerTiming;
 import ua.anton.tsa.testassignment.configuration.UserProperties;
+import ua.anton.tsa.testassignment.exceptions.InvalidPeriodException;
 import ua.anton.tsa.testassignment.exceptions.MinAgeException;
 import ua.anton.tsa.testassignment.service.UsersService;
 import ua.anton.tsa.testassignment.wire.request.CreateUserRequest;
+import ua.anton.tsa.testassignment.wire.request.ModifyUserRequest;
 import ua.anton.tsa.testassignment.wire.request.ReplaceUserRequest;
+import ua.anton.tsa.testassignment.wire.response.CreateUsersBatchResponse;
 import ua.anton.tsa.testassignment.wire.response.PageResponse;
 import ua.anton.tsa.testassignment.wire.response.RestContractExceptionResponse;
 import ua.anton.tsa.testassignment.wire.response.RetrieveUsersResponse;
 
 import java.sql.SQLException;
+import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ua.anton.tsa.testassignment.Constants.API_V1;
+import static ua.anton.tsa.testassignment.Constants.MERGE_PATCH_JSON_VALUE;
+import static ua.anton.tsa.testassignment.Constants.REPLICAS_PROFILE;
+import static ua.anton.tsa.testassignment.Constants.SMILE_VALUE;
 import static ua.anton.tsa.testassignment.UserFixture.*;
+import static ua.anton.tsa.testassignment.controller.UsersController.USER_ENDPOINT;
 
 /**
  * Class with unit tests for {@link UsersController}
@@ -56,19 +92,28 @@ import static ua.anton.tsa.testassignment.UserFixture.*;
 @ExtendWith(SpringExtension.class)
 @WebMvcTest(controllers = UsersController.class)
 @AutoConfigureMockMvc
+@Import(SimpleMeterRegistry.class)
 @MockBean(
         classes = {
                 UsersService.class,
         },
         answer = Answers.RETURNS_SMART_NULLS
 )
-@EnableConfigurationProperties(UserProperties.class)
+@EnableConfigurationProperties({
+        UserProperties.class,
+        DiagnosticsProperties.class,
+        RateLimitProperties.class,
+        ConcurrencyLimitProperties.class,
+        ReplicationProperties.class
+})
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 class UserControllerTest {
 
     private final MockMvc mockMvc;
     private final ObjectMapper objectMapper;
     private final UsersService usersService;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper smileMapper = JacksonConfiguration.smileMapper();
 
     @Autowired
     private PropertyResolver propertyResolver;
@@ -79,6 +124,11 @@ class UserControllerTest {
         objectMapper.configure(DeserializationFeature.UNWRAP_ROOT_VALUE, true);
     }
 
+    @BeforeEach
+    void setVersion() {
+        given(usersService.version()).willReturn(WRITE_VERSION);
+    }
+
     @Test
     @DisplayName("""
             GIVEN valid createUserRequest object
@@ -162,6 +212,59 @@ class UserControllerTest {
         assertThat(actualResponse.error()).isEqualTo(INVALID_REQUEST_BODY_MESSAGE);
     }
 
+    @Test
+    @DisplayName("""
+            GIVEN client sending POST requests faster than its rate limit with a new API key every time
+            WHEN performing POST request over the limit
+            THEN return response with code 429, Retry-After header and message, other clients are not limited
+            """)
+    void createUserRateLimited() throws Exception {
+        // GIVEN
+        given(usersService.create(CREATE_USER_REQUEST_VALID)).willReturn(USER_ID_VALID);
+        int capacity = propertyResolver.getRequiredProperty("rate-limit.limits[0].capacity", Integer.class);
+        MockHttpServletResponse actualResponse = null;
+
+        // WHEN
+        for (int i = 0; i <= capacity * 2 && !isTooManyRequests(actualResponse); i++) {
+            actualResponse = mockMvc
+                    .perform(post(USERS_URL_VALID)
+                            .with(remoteAddress(CLIENT_ADDRESS_LIMITED))
+                            .header(API_KEY_HEADER, "key-" + i)
+                            .accept(MediaType.APPLICATION_JSON)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(toJson(CREATE_USER_REQUEST_VALID))
+                    )
+                    .andReturn()
+                    .getResponse();
+        }
+
+        // THEN
+        assertThat(actualResponse).isNotNull();
+        assertThat(actualResponse.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(actualResponse.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        RestContractExceptionResponse actualBody =
+                fromJson(actualResponse.getContentAsString(), RestContractExceptionResponse.class);
+        assertThat(actualBody.statusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(actualBody.error()).isEqualTo(RATE_LIMIT_EXCEEDED_MESSAGE);
+
+        // AND THEN
+        mockMvc.perform(post(USERS_URL_VALID)
+                        .with(remoteAddress(CLIENT_ADDRESS_VALID))
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(toJson(CREATE_USER_REQUEST_VALID))
+                )
+                .andExpect(status().isCreated());
+        mockMvc.perform(post(USERS_URL_VALID)
+                        .with(remoteAddress(CLIENT_ADDRESS_LIMITED))
+                        .principal(() -> CLIENT_PRINCIPAL_VALID)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(toJson(CREATE_USER_REQUEST_VALID))
+                )
+                .andExpect(status().isCreated());
+    }
+
     @Test
     @DisplayName("""
             GIVEN valid createUserRequest object
@@ -191,6 +294,63 @@ class UserControllerTest {
         assertThat(actualResponse.details()).isEqualTo(MIN_AGE_EXCEPTION_MESSAGE);
     }
 
+    @Test
+    @DisplayName("""
+            GIVEN batch of createUserRequest objects
+            WHEN performing POST batch request
+            THEN return response with code 200, created ids and per-item errors
+            """)
+    void createAllUsers() throws Exception {
+        // GIVEN
+        given(usersService.createAll(CREATE_USERS_BATCH_REQUEST)).willReturn(CREATE_USERS_BATCH_RESPONSE);
+
+        // WHEN
+        CreateUsersBatchResponse actualResponse = fromJson(mockMvc
+                        .perform(post(USERS_BATCH_URL_VALID)
+                                .accept(MediaType.APPLICATION_JSON)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(toJson(CREATE_USERS_BATCH_REQUEST))
+                        )
+                        // THEN
+                        .andExpect(status().isOk())
+                        .andReturn()
+                        .getResponse()
+                        .getContentAsString(),
+                CreateUsersBatchResponse.class);
+
+        // AND THEN
+        assertThat(actualResponse).isEqualTo(CREATE_USERS_BATCH_RESPONSE);
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN batch of createUserRequest objects with null item
+            WHEN performing POST batch request
+            THEN return response with code 200, created ids and error of null item
+            """)
+    void createAllUsersNullItem() throws Exception {
+        // GIVEN
+        given(usersService.createAll(CREATE_USERS_BATCH_REQUEST_NULL_ITEM))
+                .willReturn(CREATE_USERS_BATCH_NULL_ITEM_RESPONSE);
+
+        // WHEN
+        CreateUsersBatchResponse actualResponse = fromJson(mockMvc
+                        .perform(post(USERS_BATCH_URL_VALID)
+                                .accept(MediaType.APPLICATION_JSON)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(toJson(CREATE_USERS_BATCH_REQUEST_NULL_ITEM))
+                        )
+                        // THEN
+                        .andExpect(status().isOk())
+                        .andReturn()
+                        .getResponse()
+                        .getContentAsString(),
+                CreateUsersBatchResponse.class);
+
+        // AND THEN
+        assertThat(actualResponse).isEqualTo(CREATE_USERS_BATCH_NULL_ITEM_RESPONSE);
+    }
+
     @Test
     @DisplayName("""
             GIVEN valid user id and valid user object
@@ -199,7 +359,7 @@ class UserControllerTest {
             """)
     void replaceUserByValidId() throws Exception {
         // GIVEN
-        doNothing().when(usersService).replace(USER_ID_VALID, REPLACE_USER_REQUEST_VALID);
+        doNothing().when(usersService).replace(USER_ID_VALID, REPLACE_USER_REQUEST_VALID, null);
 
         // WHEN
         MockHttpServletResponse actualResponse = mockMvc
@@ -226,7 +386,7 @@ class UserControllerTest {
     void replaceUserByInvalidId() throws Exception {
         // GIVEN
         doThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND, NOT_FOUND_EXCEPTION_MESSAGE))
-                .when(usersService).replace(USER_ID_INVALID, REPLACE_USER_REQUEST_VALID);
+                .when(usersService).replace(USER_ID_INVALID, REPLACE_USER_REQUEST_VALID, null);
 
         // WHEN
         RestContractExceptionResponse actualResponse = fromJson(mockMvc
@@ -246,6 +406,106 @@ class UserControllerTest {
         assertThat(actualResponse.error()).isEqualTo(NOT_FOUND_EXCEPTION_MESSAGE);
     }
 
+    @Test
+    @DisplayName("""
+            GIVEN valid user id, valid user object and If-Match header with the user version
+            WHEN performing PUT request
+            THEN return response with code 204 and pass expected version to service
+            """)
+    void replaceUserWithIfMatch() throws Exception {
+        // GIVEN
+        doNothing().when(usersService).replace(USER_ID_VALID, REPLACE_USER_REQUEST_VALID, USER_VERSION);
+
+        // WHEN
+        mockMvc.perform(put(USER_URL_VALID, USER_ID_VALID)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_MATCH, USER_VERSION_ETAG)
+                        .content(toJson(REPLACE_USER_REQUEST_VALID))
+                )
+                // THEN
+                .andExpect(status().isNoContent());
+
+        // AND THEN
+        verify(usersService).replace(USER_ID_VALID, REPLACE_USER_REQUEST_VALID, USER_VERSION);
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN valid user id, valid user object and If-Match header with a stale user version
+            WHEN performing PUT request
+            THEN return response with code 412
+            """)
+    void replaceUserWithStaleIfMatch() throws Exception {
+        // GIVEN
+        doThrow(new HttpClientErrorException(HttpStatus.PRECONDITION_FAILED, PRECONDITION_FAILED_EXCEPTION_MESSAGE))
+                .when(usersService).replace(USER_ID_VALID, REPLACE_USER_REQUEST_VALID, USER_VERSION_STALE);
+
+        // WHEN
+        RestContractExceptionResponse actualResponse = fromJson(mockMvc
+                        .perform(put(USER_URL_VALID, USER_ID_VALID)
+                                .accept(MediaType.APPLICATION_JSON)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .header(HttpHeaders.IF_MATCH, USER_VERSION_STALE_ETAG)
+                                .content(toJson(REPLACE_USER_REQUEST_VALID))
+                        )
+                        // THEN
+                        .andExpect(status().isPreconditionFailed())
+                        .andReturn()
+                        .getResponse()
+                        .getContentAsString(),
+                RestContractExceptionResponse.class);
+
+        // AND THEN
+        assertThat(actualResponse.error()).isEqualTo(PRECONDITION_FAILED_EXCEPTION_MESSAGE);
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN valid user id, valid user object and If-Match header with a weak ETag of the user version
+            WHEN performing PUT request
+            THEN return response with code 412 without replacing the user
+            """)
+    void replaceUserWithWeakIfMatch() throws Exception {
+        // GIVEN
+
+        // WHEN
+        mockMvc.perform(put(USER_URL_VALID, USER_ID_VALID)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_MATCH, USER_VERSION_WEAK_ETAG)
+                        .content(toJson(REPLACE_USER_REQUEST_VALID))
+                )
+                // THEN
+                .andExpect(status().isPreconditionFailed());
+
+        // AND THEN
+        verify(usersService, never()).replace(anyLong(), any(), any());
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN valid user id, valid modify request and If-Match header which is not a user version
+            WHEN performing PATCH request
+            THEN return response with code 412 without modifying the user
+            """)
+    void modifyUserWithMalformedIfMatch() throws Exception {
+        // GIVEN
+
+        // WHEN
+        mockMvc.perform(patch(USER_URL_VALID, USER_ID_VALID)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_MATCH, USER_VERSION_MALFORMED_ETAG)
+                        .content(toJson(MODIFY_USER_REQUEST_VALID))
+                )
+                // THEN
+                .andExpect(status().isPreconditionFailed());
+
+        // AND THEN
+        verify(usersService, never()).modify(anyLong(), any(), any());
+    }
+
     @Test
     @DisplayName("""
             GIVEN PUT request with invalid body
@@ -280,7 +540,7 @@ class UserControllerTest {
             """)
     void replaceUserByValidIdAndInvalidReplaceUserRequest() throws Exception {
         // GIVEN
-        doNothing().when(usersService).replace(USER_ID_VALID, REPLACE_USER_REQUEST_INVALID);
+        doNothing().when(usersService).replace(USER_ID_VALID, REPLACE_USER_REQUEST_INVALID, null);
 
         // WHEN
         RestContractExceptionResponse actualResponse =
@@ -308,7 +568,7 @@ class UserControllerTest {
     void replaceUserMinAgeException() throws Exception {
         // GIVEN
         doThrow(new MinAgeException(MIN_AGE_EXCEPTION_MESSAGE))
-                .when(usersService).replace(anyLong(), any(ReplaceUserRequest.class));
+                .when(usersService).replace(anyLong(), any(ReplaceUserRequest.class), any());
 
         // WHEN
         RestContractExceptionResponse actualResponse = fromJson(mockMvc
@@ -336,7 +596,7 @@ class UserControllerTest {
             """)
     void modifyUserByValidId() throws Exception {
         // GIVEN
-        doNothing().when(usersService).modify(USER_ID_VALID, MODIFY_USER_REQUEST_VALID);
+        doNothing().when(usersService).modify(USER_ID_VALID, MODIFY_USER_REQUEST_VALID, null);
 
         // WHEN
         MockHttpServletResponse actualResponse = mockMvc
@@ -354,6 +614,166 @@ class UserControllerTest {
         assertThat(actualResponse.getContentAsString()).isEmpty();
     }
 
+    @Test
+    @DisplayName("""
+            GIVEN valid user id, valid user object and X-Server-Timing header
+            WHEN performing PATCH request
+            THEN return response with code 204 and Server-Timing header with phases of the request
+            """)
+    void modifyUserServerTiming() throws Exception {
+        // GIVEN
+        doNothing().when(usersService).modify(USER_ID_VALID, MODIFY_USER_REQUEST_VALID, null);
+
+        // WHEN
+        MockHttpServletResponse actualResponse = mockMvc
+                .perform(patch(USER_URL_VALID, USER_ID_VALID)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(ServerTiming.REQUEST_HEADER, true)
+                        .content(toJson(MODIFY_USER_REQUEST_VALID))
+                )
+                // THEN
+                .andExpect(status().isNoContent())
+                .andReturn()
+                .getResponse();
+
+        // AND THEN
+        assertThat(actualResponse.getHeader(ServerTiming.RESPONSE_HEADER))
+                .contains("serialization;dur=", "total;dur=");
+        assertThat(meterRegistry.find("http.server.phases")
+                .tags("phase", "serialization", "method", "PATCH", "uri", API_V1 + USER_ENDPOINT)
+                .timer())
+                .isNotNull();
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN valid user id and valid user object without X-Server-Timing header
+            WHEN performing PATCH request
+            THEN return response with code 204 without Server-Timing header
+            """)
+    void modifyUserWithoutServerTiming() throws Exception {
+        // GIVEN
+        doNothing().when(usersService).modify(USER_ID_VALID, MODIFY_USER_REQUEST_VALID, null);
+
+        // WHEN
+        MockHttpServletResponse actualResponse = mockMvc
+                .perform(patch(USER_URL_VALID, USER_ID_VALID)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(toJson(MODIFY_USER_REQUEST_VALID))
+                )
+                // THEN
+                .andExpect(status().isNoContent())
+                .andReturn()
+                .getResponse();
+
+        // AND THEN
+        assertThat(actualResponse.getHeader(ServerTiming.RESPONSE_HEADER)).isNull();
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN valid createUserRequest object and X-Server-Timing header
+            WHEN performing POST request
+            THEN return response with code 201 and Server-Timing header with request body validation
+            """)
+    void createUserServerTiming() throws Exception {
+        // GIVEN
+        given(usersService.create(CREATE_USER_REQUEST_VALID)).willReturn(USER_ID_VALID);
+
+        // WHEN
+        MockHttpServletResponse actualResponse = mockMvc
+                .perform(post(USERS_URL_VALID)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(ServerTiming.REQUEST_HEADER, true)
+                        .content(toJson(CREATE_USER_REQUEST_VALID))
+                )
+                // THEN
+                .andExpect(status().isCreated())
+                .andReturn()
+                .getResponse();
+
+        // AND THEN
+        assertThat(actualResponse.getHeader(ServerTiming.RESPONSE_HEADER)).contains("validation;dur=");
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN valid user id and valid modify request with birthDate
+            WHEN performing PATCH request
+            THEN return response with code 204 and pass typed attributes validated once to the service
+            """)
+    void modifyUserPassesTypedAttributes() throws Exception {
+        // GIVEN
+        ArgumentCaptor<ModifyUserRequest> modifyUserRequest = ArgumentCaptor.forClass(ModifyUserRequest.class);
+
+        // WHEN
+        mockMvc.perform(patch(USER_URL_VALID, USER_ID_VALID)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(toJson(MODIFY_USER_REQUEST_BIRTH_DATE))
+                )
+                // THEN
+                .andExpect(status().isNoContent());
+
+        // AND THEN
+        verify(usersService).modify(eq(USER_ID_VALID), modifyUserRequest.capture(), isNull());
+        assertThat(modifyUserRequest.getValue()).isEqualTo(MODIFY_USER_REQUEST_BIRTH_DATE);
+        assertThat(modifyUserRequest.getValue().birthDate()).contains(LocalDate.parse("1970-01-01"));
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN valid user id and merge patch with null address
+            WHEN performing PATCH request with "application/merge-patch+json" content type
+            THEN return response with code 204 and pass removal of the address only to the service
+            """)
+    void modifyUserMergePatchRemovesAddress() throws Exception {
+        // GIVEN
+        ArgumentCaptor<ModifyUserRequest> modifyUserRequest = ArgumentCaptor.forClass(ModifyUserRequest.class);
+
+        // WHEN
+        mockMvc.perform(patch(USER_URL_VALID, USER_ID_VALID)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MERGE_PATCH_JSON_VALUE)
+                        .content("{\"data\":{\"address\":null}}")
+                )
+                // THEN
+                .andExpect(status().isNoContent());
+
+        // AND THEN
+        verify(usersService).modify(eq(USER_ID_VALID), modifyUserRequest.capture(), isNull());
+        assertThat(modifyUserRequest.getValue()).isEqualTo(MODIFY_USER_REQUEST_REMOVE_ADDRESS);
+        assertThat(modifyUserRequest.getValue().address()).isEmpty();
+        assertThat(modifyUserRequest.getValue().email()).isNull();
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN valid user id and merge patch with null address encoded in Smile
+            WHEN performing PATCH request with "application/x-jackson-smile" content type
+            THEN return response with code 204 and pass the same typed attributes as for JSON to the service
+            """)
+    void modifyUserSmile() throws Exception {
+        // GIVEN
+        ArgumentCaptor<ModifyUserRequest> modifyUserRequest = ArgumentCaptor.forClass(ModifyUserRequest.class);
+
+        // WHEN
+        mockMvc.perform(patch(USER_URL_VALID, USER_ID_VALID)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(SMILE_VALUE)
+                        .content(smileMapper.writeValueAsBytes(MODIFY_USER_REQUEST_REMOVE_ADDRESS))
+                )
+                // THEN
+                .andExpect(status().isNoContent());
+
+        // AND THEN
+        verify(usersService).modify(eq(USER_ID_VALID), modifyUserRequest.capture(), isNull());
+        assertThat(modifyUserRequest.getValue()).isEqualTo(MODIFY_USER_REQUEST_REMOVE_ADDRESS);
+    }
+
     @Test
     @DisplayName("""
             GIVEN invalid user id and valid user object
@@ -363,7 +783,7 @@ class UserControllerTest {
     void modifyUserByInvalidId() throws Exception {
         // GIVEN
         doThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND, NOT_FOUND_EXCEPTION_MESSAGE))
-                .when(usersService).modify(anyLong(), any());
+                .when(usersService).modify(anyLong(), any(), any());
 
         // WHEN
         RestContractExceptionResponse actualResponse = fromJson(mockMvc
@@ -391,7 +811,7 @@ class UserControllerTest {
             """)
     void modifyUserByValidIdAndInvalidModifyUserRequest() throws Exception {
         // GIVEN
-        doNothing().when(usersService).modify(anyLong(), any());
+        doNothing().when(usersService).modify(anyLong(), any(), any());
         // WHEN
         RestContractExceptionResponse actualResponse =
                 fromJson(mockMvc
@@ -449,7 +869,7 @@ class UserControllerTest {
     void modifyUserMinAgeException() throws Exception {
         // GIVEN
         doThrow(new MinAgeException(MIN_AGE_EXCEPTION_MESSAGE))
-                .when(usersService).replace(anyLong(), any(ReplaceUserRequest.class));
+                .when(usersService).replace(anyLong(), any(ReplaceUserRequest.class), any());
 
         // WHEN
         RestContractExceptionResponse actualResponse = fromJson(mockMvc
@@ -478,7 +898,7 @@ class UserControllerTest {
     void retrieveUsersValid() throws Exception {
         // GIVEN
         given(usersService.retrieve(PAGE_REQUEST, FROM_VALID, TO_VALID))
-                .willReturn(RETRIEVE_USERS_RESPONSE_PAGEABLE);
+                .willReturn(USERS_PAGE);
 
         // WHEN
         PageResponse<RetrieveUsersResponse> actualResponse = fromJson(mockMvc
@@ -497,41 +917,247 @@ class UserControllerTest {
         assertThat(actualResponse.getTotalElements()).isEqualTo(2L);
         assertThat(actualResponse.getTotalPages()).isEqualTo(1);
         assertThat(actualResponse.getContent()).isEqualTo(RETRIEVE_USERS_RESPONSE);
+        assertThat(actualResponse.getPageable()).isEqualTo(USERS_PAGE_INFO);
     }
 
     @Test
     @DisplayName("""
             GIVEN default page number and page size, valid from and valid to
-            WHEN performing GET request
-            THEN return response with code 200 and empty list of users
+            WHEN performing GET request accepting "application/x-jackson-smile"
+            THEN return response with code 200 and the same root-wrapped page as JSON encoded in Smile
             """)
-    void retrieveUsersEmptyValid() throws Exception {
+    void retrieveUsersSmile() throws Exception {
         // GIVEN
         given(usersService.retrieve(PAGE_REQUEST, FROM_VALID, TO_VALID))
-                .willReturn(RETRIEVE_USERS_EMPTY_RESPONSE_PAGEABLE);
+                .willReturn(USERS_PAGE);
 
         // WHEN
-        PageResponse<RetrieveUsersResponse> actualResponse =
-                fromJson(mockMvc
-                        .perform(get(USERS_URL_VALID_REQUEST_PARAMS)
-                                .accept(MediaType.APPLICATION_JSON))
-                        // THEN
-                        .andExpect(status().isOk())
-                        .andReturn()
-                        .getResponse()
-                        .getContentAsString(),
-                new TypeReference<>() {}
-        );
+        MockHttpServletResponse actualResponse = mockMvc
+                .perform(get(USERS_URL_VALID_REQUEST_PARAMS)
+                        .accept(SMILE_VALUE))
+                // THEN
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
 
         // AND THEN
-        assertThat(actualResponse.getTotalElements()).isZero();
-        assertThat(actualResponse.getTotalPages()).isZero();
-        assertThat(actualResponse.getContent()).isEmpty();
+        assertThat(actualResponse.getContentType()).isEqualTo(SMILE_VALUE);
+        assertThat(actualResponse.getHeader(HttpHeaders.ETAG)).isEqualTo(WRITE_VERSION_SMILE_ETAG);
+        PageResponse<RetrieveUsersResponse> actualPage = smileMapper.readValue(actualResponse.getContentAsByteArray(),
+                new TypeReference<>() {
+                });
+        assertThat(actualPage.getTotalElements()).isEqualTo(2L);
+        assertThat(actualPage.getContent()).isEqualTo(RETRIEVE_USERS_RESPONSE);
+        assertThat(actualPage.getPageable()).isEqualTo(USERS_PAGE_INFO);
     }
 
     @Test
     @DisplayName("""
-            GIVEN default page number and page size, invalid from and invalid to
+            GIVEN valid from and valid to
+            WHEN performing GET request
+            THEN return response with code 200 and ETag header of the current storage version
+            """)
+    void retrieveUsersWithETag() throws Exception {
+        // GIVEN
+        given(usersService.retrieve(PAGE_REQUEST, FROM_VALID, TO_VALID))
+                .willReturn(USERS_PAGE);
+
+        // WHEN
+        MockHttpServletResponse actualResponse = mockMvc
+                .perform(get(USERS_URL_VALID_REQUEST_PARAMS)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_NONE_MATCH, WRITE_VERSION_STALE_ETAG))
+                // THEN
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+
+        // AND THEN
+        assertThat(actualResponse.getHeader(HttpHeaders.ETAG)).isEqualTo(WRITE_VERSION_ETAG);
+        assertThat(actualResponse.getHeader(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT);
+        assertThat(actualResponse.getContentAsString()).isNotBlank();
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN valid from, valid to and If-None-Match header with the current storage version
+            WHEN performing GET request
+            THEN return response with code 304 without querying storage
+            """)
+    void retrieveUsersNotModified() throws Exception {
+        // GIVEN
+
+        // WHEN
+        MockHttpServletResponse actualResponse = mockMvc
+                .perform(get(USERS_URL_VALID_REQUEST_PARAMS)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_NONE_MATCH, WRITE_VERSION_ETAG))
+                // THEN
+                .andExpect(status().isNotModified())
+                .andReturn()
+                .getResponse();
+
+        // AND THEN
+        assertThat(actualResponse.getHeader(HttpHeaders.ETAG)).isEqualTo(WRITE_VERSION_ETAG);
+        assertThat(actualResponse.getHeader(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT);
+        assertThat(actualResponse.getContentAsString()).isBlank();
+        verify(usersService, never()).retrieve(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN default page number and page size, valid from and valid to
+            WHEN performing GET request
+            THEN return response with code 200 and empty list of users
+            """)
+    void retrieveUsersEmptyValid() throws Exception {
+        // GIVEN
+        given(usersService.retrieve(PAGE_REQUEST, FROM_VALID, TO_VALID))
+                .willReturn(USERS_EMPTY_PAGE);
+
+        // WHEN
+        PageResponse<RetrieveUsersResponse> actualResponse =
+                fromJson(mockMvc
+                        .perform(get(USERS_URL_VALID_REQUEST_PARAMS)
+                                .accept(MediaType.APPLICATION_JSON))
+                        // THEN
+                        .andExpect(status().isOk())
+                        .andReturn()
+                        .getResponse()
+                        .getContentAsString(),
+                new TypeReference<>() {}
+        );
+
+        // AND THEN
+        assertThat(actualResponse.getTotalElements()).isZero();
+        assertThat(actualResponse.getTotalPages()).isZero();
+        assertThat(actualResponse.getContent()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN default page number and page size, valid from, valid to and count disabled
+            WHEN performing GET request
+            THEN return response with code 200, list of users and no totals
+            """)
+    void retrieveUsersWithoutCount() throws Exception {
+        // GIVEN
+        given(usersService.retrieveSlice(PAGE_REQUEST, FROM_VALID, TO_VALID))
+                .willReturn(USERS_SLICE);
+
+        // WHEN
+        PageResponse<RetrieveUsersResponse> actualResponse = fromJson(mockMvc
+                        .perform(get(USERS_URL_VALID_WITHOUT_COUNT)
+                                .accept(MediaType.APPLICATION_JSON))
+                        // THEN
+                        .andExpect(status().isOk())
+                        .andReturn()
+                        .getResponse()
+                        .getContentAsString(),
+                new TypeReference<>() {}
+        );
+
+        // AND THEN
+        assertThat(actualResponse.getContent()).isEqualTo(RETRIEVE_USERS_RESPONSE);
+        assertThat(actualResponse.isFirst()).isTrue();
+        assertThat(actualResponse.isLast()).isTrue();
+        assertThat(actualResponse.isHasNext()).isFalse();
+        assertThat(actualResponse.getTotalElements()).isNull();
+        assertThat(actualResponse.getTotalPages()).isNull();
+        verify(usersService, never()).retrieve(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN page size, valid from and valid to and empty cursor
+            WHEN performing GET request
+            THEN return response with code 200, the first slice and next cursor without totals
+            """)
+    void retrieveUsersKeysetFirstPage() throws Exception {
+        // GIVEN
+        given(usersService.retrieve(KEYSET_PAGE_SIZE, FROM_VALID, TO_VALID, null))
+                .willReturn(USERS_KEYSET_FIRST_PAGE);
+
+        // WHEN
+        PageResponse<RetrieveUsersResponse> actualResponse = fromJson(mockMvc
+                        .perform(get(USERS_URL_KEYSET_FIRST_PAGE)
+                                .accept(MediaType.APPLICATION_JSON))
+                        // THEN
+                        .andExpect(status().isOk())
+                        .andReturn()
+                        .getResponse()
+                        .getContentAsString(),
+                new TypeReference<>() {}
+        );
+
+        // AND THEN
+        assertThat(actualResponse.getContent()).containsExactly(FIRST_RETRIEVE_USER_RESPONSE);
+        assertThat(actualResponse.isFirst()).isTrue();
+        assertThat(actualResponse.isLast()).isFalse();
+        assertThat(actualResponse.getTotalElements()).isNull();
+        assertThat(actualResponse.getNextCursor()).isEqualTo(KEYSET_CURSOR.encode());
+        assertThat(actualResponse.getPageable().number()).isNull();
+        assertThat(actualResponse.getPageable().size()).isEqualTo(KEYSET_PAGE_SIZE);
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN page size, valid from and valid to and cursor of the last seen user
+            WHEN performing GET request
+            THEN return response with code 200, the last slice and no next cursor
+            """)
+    void retrieveUsersKeysetNextPage() throws Exception {
+        // GIVEN
+        given(usersService.retrieve(KEYSET_PAGE_SIZE, FROM_VALID, TO_VALID, KEYSET_CURSOR))
+                .willReturn(USERS_KEYSET_LAST_PAGE);
+
+        // WHEN
+        PageResponse<RetrieveUsersResponse> actualResponse = fromJson(mockMvc
+                        .perform(get(USERS_URL_KEYSET_NEXT_PAGE)
+                                .accept(MediaType.APPLICATION_JSON))
+                        // THEN
+                        .andExpect(status().isOk())
+                        .andReturn()
+                        .getResponse()
+                        .getContentAsString(),
+                new TypeReference<>() {}
+        );
+
+        // AND THEN
+        assertThat(actualResponse.getContent()).containsExactly(SECOND_RETRIEVE_USER_RESPONSE);
+        assertThat(actualResponse.isFirst()).isFalse();
+        assertThat(actualResponse.isLast()).isTrue();
+        assertThat(actualResponse.getNextCursor()).isNull();
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN malformed cursor
+            WHEN performing GET request
+            THEN return response with code 400 and message
+            """)
+    void retrieveUsersKeysetInvalidCursor() throws Exception {
+        // GIVEN
+
+        // WHEN
+        RestContractExceptionResponse actualResponse = fromJson(mockMvc
+                        .perform(get(USERS_URL_KEYSET_INVALID_CURSOR)
+                                .accept(MediaType.APPLICATION_JSON))
+                        // THEN
+                        .andExpect(status().isBadRequest())
+                        .andReturn()
+                        .getResponse()
+                        .getContentAsString(),
+                RestContractExceptionResponse.class
+        );
+
+        // AND THEN
+        assertThat(actualResponse.error()).isEqualTo(INVALID_CURSOR_EXCEPTION_MESSAGE);
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN default page number and page size, invalid from and invalid to
             WHEN performing GET request
             THEN return response with code 400 and message "Bad Request"
             """)
@@ -581,6 +1207,270 @@ class UserControllerTest {
         assertThat(actualResponse.details()).isEqualTo(STORAGE_EXCEPTION_MESSAGE);
     }
 
+    @Test
+    @DisplayName("""
+            GIVEN valid from and valid to
+            WHEN performing GET export request
+            THEN return response with code 200 and one JSON user per line
+            """)
+    void exportUsersValid() throws Exception {
+        // GIVEN
+        doAnswer(invocation -> {
+            Consumer<RetrieveUsersResponse> consumer = invocation.getArgument(2);
+            RETRIEVE_USERS_RESPONSE.forEach(consumer);
+            return null;
+        }).when(usersService).export(eq(FROM_VALID), eq(TO_VALID), any());
+
+        // WHEN
+        MvcResult asyncResult = mockMvc
+                .perform(get(USERS_EXPORT_URL_VALID_REQUEST_PARAMS)
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MockHttpServletResponse actualResponse = mockMvc
+                .perform(asyncDispatch(asyncResult))
+                // THEN
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+
+        // AND THEN
+        assertThat(actualResponse.getContentType()).isEqualTo(MediaType.APPLICATION_NDJSON_VALUE);
+        assertThat(actualResponse.getContentAsString().lines()
+                .map(line -> fromJsonLine(line, RetrieveUsersResponse.class)))
+                .containsExactlyElementsOf(RETRIEVE_USERS_RESPONSE);
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN valid from and valid to
+            WHEN performing GET export request accepting "application/x-jackson-smile"
+            THEN return response with code 200 and a stream of Smile encoded users
+            """)
+    void exportUsersSmile() throws Exception {
+        // GIVEN
+        doAnswer(invocation -> {
+            Consumer<RetrieveUsersResponse> consumer = invocation.getArgument(2);
+            RETRIEVE_USERS_RESPONSE.forEach(consumer);
+            return null;
+        }).when(usersService).export(eq(FROM_VALID), eq(TO_VALID), any());
+
+        // WHEN
+        MvcResult asyncResult = mockMvc
+                .perform(get(USERS_EXPORT_URL_VALID_REQUEST_PARAMS)
+                        .accept(SMILE_VALUE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MockHttpServletResponse actualResponse = mockMvc
+                .perform(asyncDispatch(asyncResult))
+                // THEN
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+
+        // AND THEN
+        assertThat(actualResponse.getContentType()).isEqualTo(SMILE_VALUE);
+        try (MappingIterator<RetrieveUsersResponse> actualUsers = smileMapper.readerFor(RetrieveUsersResponse.class)
+                .without(DeserializationFeature.UNWRAP_ROOT_VALUE)
+                .readValues(actualResponse.getContentAsByteArray())) {
+            assertThat(actualUsers.readAll()).containsExactlyElementsOf(RETRIEVE_USERS_RESPONSE);
+        }
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN invalid from and invalid to
+            WHEN performing GET export request
+            THEN return response with code 400 before streaming starts
+            """)
+    void exportUsersFromAndToInvalid() throws Exception {
+        // GIVEN
+        doThrow(new InvalidPeriodException(INVALID_PERIOD_EXCEPTION_MESSAGE))
+                .when(usersService).validatePeriod(FROM_INVALID, TO_INVALID);
+
+        // WHEN
+        RestContractExceptionResponse actualResponse = fromJson(mockMvc
+                        .perform(get(USERS_EXPORT_URL_INVALID_REQUEST_PARAMS)
+                                .accept(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_JSON))
+                        // THEN
+                        .andExpect(status().isBadRequest())
+                        .andReturn()
+                        .getResponse()
+                        .getContentAsString(),
+                RestContractExceptionResponse.class
+        );
+
+        // AND THEN
+        assertThat(actualResponse.error()).isEqualTo(INVALID_PERIOD_EXCEPTION_MESSAGE);
+        verify(usersService, never()).export(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN valid user id
+            WHEN performing GET request
+            THEN return response with code 200 and the user
+            """)
+    void retrieveUserByValidId() throws Exception {
+        // GIVEN
+        given(usersService.retrieve(USER_ID_VALID)).willReturn(FIRST_RETRIEVE_USER_RESPONSE);
+
+        // WHEN
+        RetrieveUsersResponse actualResponse = fromJson(mockMvc
+                        .perform(get(USER_URL_VALID, USER_ID_VALID)
+                                .accept(MediaType.APPLICATION_JSON)
+                        )
+                        // THEN
+                        .andExpect(status().isOk())
+                        .andReturn()
+                        .getResponse()
+                        .getContentAsString(),
+                RetrieveUsersResponse.class);
+
+        // AND THEN
+        assertThat(actualResponse).isEqualTo(FIRST_RETRIEVE_USER_RESPONSE);
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN as many GET requests in progress as the concurrency limit
+            WHEN performing one more GET request
+            THEN return response with code 503 and message, and count the rejection
+            """)
+    void retrieveUserOverConcurrencyLimit() throws Exception {
+        // GIVEN
+        CountDownLatch release = new CountDownLatch(1);
+        given(usersService.retrieve(USER_ID_VALID)).willAnswer(invocation -> {
+            release.await();
+            return FIRST_RETRIEVE_USER_RESPONSE;
+        });
+        int limit = (int) meterRegistry.get("api.concurrency.limit").gauge().value();
+        double rejectedBefore = meterRegistry.get("api.concurrency.rejected").counter().count();
+        ExecutorService executor = Executors.newFixedThreadPool(limit);
+        try {
+            List<Future<MvcResult>> inFlight = IntStream.range(0, limit)
+                    .mapToObj(i -> executor.submit(() -> mockMvc
+                            .perform(get(USER_URL_VALID, USER_ID_VALID).accept(MediaType.APPLICATION_JSON))
+                            .andReturn()))
+                    .toList();
+            await(() -> meterRegistry.get("api.concurrency.in.flight").gauge().value() == limit);
+
+            // WHEN
+            RestContractExceptionResponse actualResponse = fromJson(mockMvc
+                            .perform(get(USER_URL_VALID, USER_ID_VALID)
+                                    .accept(MediaType.APPLICATION_JSON)
+                            )
+                            // THEN
+                            .andExpect(status().isServiceUnavailable())
+                            .andReturn()
+                            .getResponse()
+                            .getContentAsString(),
+                    RestContractExceptionResponse.class);
+
+            // AND THEN
+            assertThat(actualResponse.error()).isEqualTo(CONCURRENCY_LIMIT_EXCEPTION_MESSAGE);
+            assertThat(meterRegistry.get("api.concurrency.rejected").counter().count()).isEqualTo(rejectedBefore + 1);
+            release.countDown();
+            for (Future<MvcResult> request : inFlight) {
+                assertThat(request.get(10, TimeUnit.SECONDS).getResponse().getStatus()).isEqualTo(HttpStatus.OK.value());
+            }
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+
+    @Test
+    @DisplayName("""
+            GIVEN GET export request streaming users
+            WHEN the export is completed
+            THEN the concurrency permit of the request is held until the async processing is over
+            """)
+    void exportUsersHoldsConcurrencyPermit() throws Exception {
+        // GIVEN
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            Consumer<RetrieveUsersResponse> consumer = invocation.getArgument(2);
+            release.await();
+            RETRIEVE_USERS_RESPONSE.forEach(consumer);
+            return null;
+        }).when(usersService).export(eq(FROM_VALID), eq(TO_VALID), any());
+        double inFlightBefore = inFlight();
+        try {
+            MvcResult asyncResult = mockMvc
+                    .perform(get(USERS_EXPORT_URL_VALID_REQUEST_PARAMS)
+                            .accept(MediaType.APPLICATION_NDJSON))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            double inFlightStreaming = inFlight();
+
+            // WHEN
+            release.countDown();
+            mockMvc.perform(asyncDispatch(asyncResult))
+                    // THEN
+                    .andExpect(status().isOk());
+
+            // AND THEN
+            assertThat(inFlightStreaming).isEqualTo(inFlightBefore + 1);
+            await(() -> inFlight() == inFlightBefore);
+        } finally {
+            release.countDown();
+        }
+    }
+    @Test
+    @DisplayName("""
+            GIVEN valid user id and If-None-Match header with the user version
+            WHEN performing GET request
+            THEN return response with code 304 without body
+            """)
+    void retrieveUserNotModified() throws Exception {
+        // GIVEN
+        given(usersService.retrieve(USER_ID_VALID)).willReturn(FIRST_RETRIEVE_USER_RESPONSE);
+
+        // WHEN
+        MockHttpServletResponse actualResponse = mockMvc
+                .perform(get(USER_URL_VALID, USER_ID_VALID)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_NONE_MATCH, USER_VERSION_ETAG))
+                // THEN
+                .andExpect(status().isNotModified())
+                .andReturn()
+                .getResponse();
+
+        // AND THEN
+        assertThat(actualResponse.getHeader(HttpHeaders.ETAG)).isEqualTo(USER_VERSION_ETAG);
+        assertThat(actualResponse.getHeader(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT);
+        assertThat(actualResponse.getContentAsString()).isBlank();
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN invalid user id
+            WHEN performing GET request
+            THEN return response with code 404
+            """)
+    void retrieveUserByInvalidId() throws Exception {
+        // GIVEN
+        given(usersService.retrieve(USER_ID_INVALID))
+                .willThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND, NOT_FOUND_EXCEPTION_MESSAGE));
+
+        // WHEN
+        RestContractExceptionResponse actualResponse = fromJson(mockMvc
+                        .perform(get(USER_URL_VALID, USER_ID_INVALID)
+                                .accept(MediaType.APPLICATION_JSON)
+                        )
+                        // THEN
+                        .andExpect(status().isNotFound())
+                        .andReturn()
+                        .getResponse()
+                        .getContentAsString(),
+                RestContractExceptionResponse.class);
+
+        // AND THEN
+        assertThat(actualResponse.error()).isEqualTo(NOT_FOUND_EXCEPTION_MESSAGE);
+    }
+
     @Test
     @DisplayName("""
             GIVEN valid user id
@@ -660,6 +1550,33 @@ class UserControllerTest {
         assertThat(actualResponse.error()).isEqualTo(NOT_FOUND_EXCEPTION_MESSAGE);
     }
 
+    @Test
+    @DisplayName("""
+            GIVEN invalid user id
+            WHEN performing DELETE request
+            THEN count the error by exception and status and record Hibernate work of the request
+            """)
+    void removeUserByInvalidIdMetrics() throws Exception {
+        // GIVEN
+        doThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND, NOT_FOUND_EXCEPTION_MESSAGE))
+                .when(usersService).remove(USER_ID_INVALID);
+        double errorsBefore = errors(HttpClientErrorException.class, HttpStatus.NOT_FOUND);
+
+        // WHEN
+        mockMvc.perform(delete(USER_URL_VALID, USER_ID_INVALID)
+                        .accept(MediaType.APPLICATION_JSON)
+                )
+                // THEN
+                .andExpect(status().isNotFound());
+
+        // AND THEN
+        assertThat(errors(HttpClientErrorException.class, HttpStatus.NOT_FOUND)).isEqualTo(errorsBefore + 1);
+        assertThat(meterRegistry.find("hibernate.request.statements")
+                .tags("method", "DELETE", "uri", API_V1 + USER_ENDPOINT)
+                .summary())
+                .isNotNull();
+    }
+
     @Test
     @DisplayName("""
             GIVEN invalid user id
@@ -686,11 +1603,101 @@ class UserControllerTest {
         assertThat(actualResponse.details()).isEqualTo(NEGATIVE_ID_EXCEPTION_MESSAGE);
     }
 
+    /**
+     * Tests of the read-your-writes session token issued with responses to writes in "replicas" profile
+     */
+    @Nested
+    @ActiveProfiles(REPLICAS_PROFILE)
+    @RequiredArgsConstructor(onConstructor_ = @Autowired)
+    class SessionToken {
+
+        private final MockMvc mockMvc;
+        private final ObjectMapper objectMapper;
+        private final ReplicationProperties replicationProperties;
+
+        @BeforeEach
+        void setObjectMapper() {
+            objectMapper.configure(DeserializationFeature.UNWRAP_ROOT_VALUE, true);
+        }
+
+        @Test
+        @DisplayName("""
+                GIVEN valid user id and valid user objects
+                WHEN performing PUT, PATCH and DELETE requests
+                THEN return responses with code 204 and a session token issued after the write
+                """)
+        void writesIssueSessionToken() throws Exception {
+            // GIVEN
+            long issuedAfter = System.currentTimeMillis();
+
+            // WHEN
+            List<MockHttpServletResponse> actualResponses = List.of(
+                    mockMvc.perform(put(USER_URL_VALID, USER_ID_VALID)
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content(toJson(REPLACE_USER_REQUEST_VALID)))
+                            // THEN
+                            .andExpect(status().isNoContent())
+                            .andReturn()
+                            .getResponse(),
+                    mockMvc.perform(patch(USER_URL_VALID, USER_ID_VALID)
+                                    .contentType(MERGE_PATCH_JSON_VALUE)
+                                    .content(toJson(MODIFY_USER_REQUEST_VALID)))
+                            .andExpect(status().isNoContent())
+                            .andReturn()
+                            .getResponse(),
+                    mockMvc.perform(delete(USER_URL_VALID, USER_ID_VALID))
+                            .andExpect(status().isNoContent())
+                            .andReturn()
+                            .getResponse());
+
+            // AND THEN
+            assertThat(actualResponses)
+                    .extracting(response -> response.getHeader(replicationProperties.sessionHeader()))
+                    .allSatisfy(token -> assertThat(Long.parseLong(token))
+                            .isBetween(issuedAfter, System.currentTimeMillis()));
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private double inFlight() {
+        return meterRegistry.get("api.concurrency.in.flight").gauge().value();
+    }
+
+    private static boolean isTooManyRequests(MockHttpServletResponse response) {
+        return response != null && response.getStatus() == HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    private static RequestPostProcessor remoteAddress(String address) {
+        return request -> {
+            request.setRemoteAddr(address);
+            return request;
+        };
+    }
+
+    private double errors(Class<? extends Exception> exception, HttpStatus status) {
+        return meterRegistry.counter("api.errors",
+                "exception", exception.getSimpleName(),
+                "status", String.valueOf(status.value())
+        ).count();
+    }
+
     @SneakyThrows({JsonProcessingException.class, DateTimeParseException.class})
     private String toJson(Object object) {
         return objectMapper.writeValueAsString(object);
     }
 
+    @SneakyThrows(JsonProcessingException.class)
+    public <T> T fromJsonLine(String string, Class<T> type) {
+        return objectMapper.readerFor(type).without(DeserializationFeature.UNWRAP_ROOT_VALUE).readValue(string);
+    }
+
     @SneakyThrows(JsonProcessingException.class)
     public <T> T fromJson(String string, Class<T> type) {
         return Objects.nonNull(string) ? objectMapper.readValue(string, type) : null;
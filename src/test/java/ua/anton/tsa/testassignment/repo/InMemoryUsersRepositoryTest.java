@@ -0,0 +1,217 @@
+package ua.anton.tsa.testassignment.repo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import ua.anton.tsa.testassignment.model.User;
+import ua.anton.tsa.testassignment.wire.request.ModifyUserRequest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ua.anton.tsa.testassignment.UserFixture.FROM_VALID;
+import static ua.anton.tsa.testassignment.UserFixture.TO_VALID;
+import static ua.anton.tsa.testassignment.UserFixture.USER_VALID;
+
+/**
+ * Class with tests for {@link InMemoryUsersRepository}
+ */
+class InMemoryUsersRepositoryTest {
+
+    private static final int USERS = 1000;
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS = 20;
+    private static final LocalDate FIRST_BIRTH_DATE = LocalDate.parse("1990-01-01");
+
+    private InMemoryUsersRepository usersRepository;
+    private List<User> users;
+
+    @BeforeEach
+    void saveUsers() {
+        usersRepository = new InMemoryUsersRepository();
+        users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            // Birthdates go back and forth, so ids and birthdates are ordered differently
+            users.add(usersRepository.save(user(FIRST_BIRTH_DATE.plusDays(i * 7L % 3000))));
+        }
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN stored users with birthdates spread over years
+            WHEN retrieve pages of a birthdate range ordered by (birthDate, id), by id and by email descending
+            THEN every page holds the users of the range in the requested order and the total is counted
+            """)
+    void findAllByBirthDateBetween() {
+        // GIVEN
+        List<User> expected = users.stream()
+                .filter(user -> !user.getBirthDate().isBefore(FROM_VALID) && !user.getBirthDate().isAfter(TO_VALID))
+                .toList();
+
+        Map<Sort, Comparator<User>> orders = Map.of(
+                Sort.by("birthDate", "id"), Comparator.comparing(User::getBirthDate).thenComparing(User::getId),
+                Sort.by(Sort.Direction.ASC, "id"), Comparator.comparing(User::getId),
+                Sort.by(Sort.Direction.DESC, "id"), Comparator.comparing(User::getId).reversed(),
+                Sort.by(Sort.Direction.DESC, "email"), Comparator.comparing(User::getEmail).reversed()
+        );
+
+        orders.forEach((sort, comparator) -> {
+            List<Long> ids = expected.stream()
+                    .sorted(comparator)
+                    .map(User::getId)
+                    .toList();
+
+            // Small pages of the range are found by walking the ids, large pages by selecting the ids of the range
+            for (int size : List.of(20, 100)) {
+                // WHEN
+                Page<User> page = usersRepository.findAllByBirthDateBetween(FROM_VALID, TO_VALID,
+                        PageRequest.of(3, size, sort));
+
+                // THEN
+                assertThat(page.getTotalElements()).isEqualTo(expected.size());
+                assertThat(page.getContent()).extracting(User::getId).isEqualTo(ids.subList(3 * size, 4 * size));
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN stored user
+            WHEN modify its birthdate out of the range and read the range by keyset pages
+            THEN the user is moved to the new birthdate only and its version is incremented
+            """)
+    void updateAttributesMovesBirthDate() {
+        // GIVEN
+        User user = usersRepository.findKeysetPage(FROM_VALID, TO_VALID, 1).get(0);
+        LocalDate birthDate = LocalDate.parse("1970-01-01");
+
+        // WHEN
+        int updated = usersRepository.updateAttributes(user.getId(), modifyBirthDate(birthDate), user.getVersion());
+
+        // THEN
+        assertThat(updated).isEqualTo(1);
+        assertThat(usersRepository.findKeysetPageAfter(FROM_VALID, TO_VALID, FROM_VALID, 0L, USERS))
+                .extracting(User::getId)
+                .doesNotContain(user.getId());
+        assertThat(usersRepository.findKeysetPage(birthDate, birthDate, USERS))
+                .singleElement()
+                .satisfies(moved -> {
+                    assertThat(moved.getId()).isEqualTo(user.getId());
+                    assertThat(moved.getVersion()).isEqualTo(1L);
+                });
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN stored user
+            WHEN replace it with identical values, then delete it
+            THEN nothing is replaced, the user is deleted once and is not found anymore
+            AND only the delete is counted as a change
+            """)
+    void replaceIfChangedAndDelete() {
+        // GIVEN
+        User user = usersRepository.findById(users.get(0).getId()).orElseThrow();
+        long changes = usersRepository.countChanges();
+
+        // WHEN
+        int replaced = usersRepository.replaceIfChanged(user, null);
+        int deleted = usersRepository.deleteUserById(user.getId());
+
+        // THEN
+        assertThat(replaced).isZero();
+        assertThat(deleted).isEqualTo(1);
+        assertThat(usersRepository.deleteUserById(user.getId())).isZero();
+        assertThat(usersRepository.findById(user.getId())).isEmpty();
+        assertThat(usersRepository.findAllByBirthDateBetween(LocalDate.MIN, LocalDate.MAX, PageRequest.of(0, 1))
+                .getTotalElements()).isEqualTo(USERS - 1);
+        assertThat(usersRepository.findKeysetPage(user.getBirthDate(), user.getBirthDate(), USERS))
+                .extracting(User::getId)
+                .doesNotContain(user.getId());
+
+        // AND THEN
+        assertThat(usersRepository.countChanges()).isEqualTo(changes + 1);
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN stored user
+            WHEN many threads modify it in read-version / conditional-update loops
+            THEN no update is lost and the version equals the number of successful updates
+            """)
+    void updateAttributesConcurrently() throws Exception {
+        // GIVEN
+        Long id = users.get(0).getId();
+        List<Callable<Integer>> modifies = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            LocalDate birthDate = FIRST_BIRTH_DATE.plusDays(thread);
+            modifies.add(() -> {
+                int updated = 0;
+                for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+                    Long version = usersRepository.findVersionById(id).orElseThrow();
+                    updated += usersRepository.updateAttributes(id, modifyBirthDate(birthDate), version);
+                }
+                return updated;
+            });
+        }
+
+        // WHEN
+        List<Integer> updated = runConcurrently(modifies);
+
+        // THEN
+        long total = updated.stream().mapToInt(Integer::intValue).sum();
+        assertThat(total).isPositive();
+        assertThat(usersRepository.findVersionById(id)).contains(total);
+        assertThat(usersRepository.findKeysetPage(FIRST_BIRTH_DATE, FIRST_BIRTH_DATE.plusDays(THREADS), USERS))
+                .extracting(User::getId)
+                .containsOnlyOnce(id);
+    }
+
+    private static <T> List<T> runConcurrently(List<Callable<T>> tasks) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<T>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(tasks.size())) {
+            for (Callable<T> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+        }
+        List<T> results = new ArrayList<>();
+        for (Future<T> future : futures) {
+            results.add(future.get());
+        }
+        return results;
+    }
+
+    private static User user(LocalDate birthDate) {
+        return User.builder()
+                .email("user" + birthDate + "@gmail.com")
+                .firstName(USER_VALID.getFirstName())
+                .lastName(USER_VALID.getLastName())
+                .birthDate(birthDate)
+                .address(USER_VALID.getAddress())
+                .phoneNumber(USER_VALID.getPhoneNumber())
+                .build();
+    }
+
+    private static ModifyUserRequest modifyBirthDate(LocalDate birthDate) {
+        return ModifyUserRequest.builder()
+                .birthDate(Optional.of(birthDate))
+                .build();
+    }
+}
@@ -0,0 +1,146 @@
+package ua.anton.tsa.testassignment.repo;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ua.anton.tsa.testassignment.configuration.PartitioningGuard;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Class with tests of db/partitioned migrations against PostgreSQL, skipped when Docker is not available
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class PartitionedMigrationTest {
+
+    private static final String[] UNPARTITIONED = {"classpath:db/migration"};
+    private static final String[] PARTITIONED = {"classpath:db/migration", "classpath:db/partitioned"};
+    private static final String FILL = """
+            INSERT INTO usr (id, email, first_name, last_name, birth_date)
+            SELECT nextval('user_id_sequence'), 'user' || g || '@gmail.com', 'Firstname', 'Lastname',
+                   DATE '1950-01-01' + g * 7
+            FROM generate_series(1, 3000) g""";
+    private static final String DECADE_PAGE = """
+            EXPLAIN (COSTS OFF)
+            SELECT * FROM usr
+            WHERE birth_date BETWEEN DATE '1980-01-01' AND DATE '1989-12-31'
+            ORDER BY birth_date, id
+            LIMIT 20""";
+    private static final String CHANGES = "SELECT sum(changes) FROM usr_changes";
+    private static final Pattern PARTITION_SCAN = Pattern.compile("\\bon (usr_\\w+)");
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Test
+    @DisplayName("""
+            GIVEN users in the table created by db/migration
+            WHEN migrating with db/partitioned as well
+            THEN the users are kept in decade partitions and a decade range is pruned to its partition
+            AND writes are still counted in usr_changes
+            """)
+    void partitionExistingTable() throws SQLException {
+        // GIVEN
+        String schema = "partition_existing";
+        migrate(schema, UNPARTITIONED);
+        long users = execute(schema, FILL);
+
+        // WHEN
+        migrate(schema, PARTITIONED);
+
+        // THEN
+        assertThat(count(schema, "SELECT count(*) FROM usr")).isEqualTo(users);
+        assertThat(count(schema, "SELECT count(*) FROM ONLY usr")).isZero();
+        assertThat(scannedPartitions(schema, DECADE_PAGE)).containsExactly("usr_1980s");
+
+        // AND THEN
+        long changes = count(schema, CHANGES);
+        execute(schema, "DELETE FROM usr WHERE birth_date < DATE '1960-01-01'");
+        assertThat(count(schema, CHANGES)).isEqualTo(changes + 1);
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN table partitioned by db/partitioned migrations
+            WHEN migrating with db/migration only
+            THEN the migration is stopped by PartitioningGuard
+            """)
+    void migrateWithoutProfile() {
+        // GIVEN
+        String schema = "migrate_without_profile";
+        migrate(schema, PARTITIONED);
+
+        // WHEN
+        Flyway flyway = flyway(schema, UNPARTITIONED).callbacks(new PartitioningGuard()).load();
+
+        // THEN
+        assertThatThrownBy(flyway::migrate)
+                .isInstanceOf(FlywayException.class)
+                .hasMessageContaining("partitioned");
+    }
+
+    private static void migrate(String schema, String... locations) {
+        flyway(schema, locations).load().migrate();
+    }
+
+    private static FluentConfiguration flyway(String schema, String... locations) {
+        return Flyway.configure()
+                .dataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())
+                .schemas(schema)
+                .locations(locations)
+                .outOfOrder(true);
+    }
+
+    private static long execute(String schema, String sql) throws SQLException {
+        try (Connection connection = connect(schema); Statement statement = connection.createStatement()) {
+            return statement.executeUpdate(sql);
+        }
+    }
+
+    private static long count(String schema, String sql) throws SQLException {
+        try (Connection connection = connect(schema);
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private static Set<String> scannedPartitions(String schema, String explain) throws SQLException {
+        Set<String> partitions = new TreeSet<>();
+        try (Connection connection = connect(schema);
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(explain)) {
+            while (resultSet.next()) {
+                Matcher matcher = PARTITION_SCAN.matcher(resultSet.getString(1));
+                while (matcher.find()) {
+                    partitions.add(matcher.group(1));
+                }
+            }
+        }
+        return partitions;
+    }
+
+    private static Connection connect(String schema) throws SQLException {
+        Connection connection = DriverManager.getConnection(
+                POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        connection.setSchema(schema);
+        return connection;
+    }
+}
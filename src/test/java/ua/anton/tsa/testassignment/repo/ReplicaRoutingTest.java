@@ -0,0 +1,204 @@
+package ua.anton.tsa.testassignment.repo;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import ua.anton.tsa.testassignment.configuration.ReadYourWrites;
+import ua.anton.tsa.testassignment.configuration.ReplicaRoutingConfiguration;
+import ua.anton.tsa.testassignment.configuration.ReplicationProperties;
+import ua.anton.tsa.testassignment.model.User;
+
+import java.sql.DatabaseMetaData;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ua.anton.tsa.testassignment.Constants.REPLICAS_PROFILE;
+import static ua.anton.tsa.testassignment.UserFixture.USER_VALID;
+
+/**
+ * Class with routing tests of {@link ReplicaRoutingConfiguration} against embedded databases standing in for
+ * the primary and its two replicas
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.datasource.url=jdbc:h2:mem:primary",
+        "replication.replicas[0].url=jdbc:h2:mem:replica",
+        "replication.replicas[1].url=jdbc:h2:mem:replica2",
+        "replication.max-lag=1s"
+})
+@ActiveProfiles(REPLICAS_PROFILE)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ReplicaRoutingConfiguration.class)
+@EnableConfigurationProperties(ReplicationProperties.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class ReplicaRoutingTest {
+
+    private static final String PRIMARY_URL = "jdbc:h2:mem:primary";
+    private static final Set<String> REPLICA_URLS = Set.of("jdbc:h2:mem:replica", "jdbc:h2:mem:replica2");
+    private static final int READS = 20;
+
+    private final UsersRepository usersRepository;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+    private final ReplicationProperties replicationProperties;
+
+    private TransactionTemplate writeTransaction;
+    private TransactionTemplate readTransaction;
+    private ReadYourWrites readYourWrites;
+
+    @BeforeEach
+    void setUp() {
+        writeTransaction = new TransactionTemplate(transactionManager);
+        readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setReadOnly(true);
+        readYourWrites = new ReadYourWrites(replicationProperties);
+    }
+
+    @AfterEach
+    void deleteUsers() {
+        usersRepository.deleteAll();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN primary and replica databases
+            WHEN saving a user and running read-write and read-only transactions
+            THEN the user is written to and read-write transactions run on the primary, read-only ones on a replica
+            """)
+    void readOnlyTransactionOnReplica() {
+        // GIVEN
+
+        // WHEN
+        Long id = save();
+        String writeUrl = writeTransaction.execute(status -> url());
+        String readUrl = readTransaction.execute(status -> url());
+        Boolean written = writeTransaction.execute(status -> usersRepository.existsById(id));
+
+        // THEN
+        assertThat(writeUrl).isEqualTo(PRIMARY_URL);
+        assertThat(readUrl).isIn(REPLICA_URLS);
+        assertThat(written).isTrue();
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN request with a session token issued just now
+            WHEN running read-only transaction within the request
+            THEN the transaction runs on the primary, and on a replica after the request
+            """)
+    void readOnlyTransactionWithFreshToken() {
+        // GIVEN
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(replicationProperties.sessionHeader(), ReadYourWrites.token());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // WHEN
+        readYourWrites.preHandle(request, response, null);
+        String pinnedUrl = readTransaction.execute(status -> url());
+        readYourWrites.afterCompletion(request, response, null, null);
+        String url = readTransaction.execute(status -> url());
+
+        // THEN
+        assertThat(pinnedUrl).isEqualTo(PRIMARY_URL);
+        assertThat(url).isIn(REPLICA_URLS);
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN request with a session token older than replication lag
+            WHEN running read-only transaction within the request
+            THEN the transaction runs on a replica
+            """)
+    void readOnlyTransactionWithStaleToken() {
+        // GIVEN
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(replicationProperties.sessionHeader(),
+                String.valueOf(System.currentTimeMillis() - replicationProperties.maxLag().toMillis()));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // WHEN
+        readYourWrites.preHandle(request, response, null);
+        String url = readTransaction.execute(status -> url());
+        readYourWrites.afterCompletion(request, response, null, null);
+
+        // THEN
+        assertThat(url).isIn(REPLICA_URLS);
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN committed write
+            WHEN running read-only transaction right after the write
+            THEN the transaction runs on a replica
+            """)
+    void readOnlyTransactionAfterWrite() {
+        // GIVEN
+        save();
+
+        // WHEN
+        String url = readTransaction.execute(status -> url());
+
+        // THEN
+        assertThat(url).isIn(REPLICA_URLS);
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN request
+            WHEN running read-only transactions within the request
+            THEN all of them run on the same replica
+            """)
+    void readOnlyTransactionsOfRequest() {
+        // GIVEN
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        // WHEN
+        Set<String> urls = IntStream.range(0, READS)
+                .mapToObj(read -> readTransaction.execute(status -> url()))
+                .collect(Collectors.toSet());
+
+        // THEN
+        assertThat(urls).singleElement().isIn(REPLICA_URLS);
+    }
+
+    private Long save() {
+        return usersRepository.save(User.builder()
+                .email(USER_VALID.getEmail())
+                .firstName(USER_VALID.getFirstName())
+                .lastName(USER_VALID.getLastName())
+                .birthDate(USER_VALID.getBirthDate())
+                .build()).getId();
+    }
+
+    private String url() {
+        return entityManager.unwrap(Session.class)
+                .doReturningWork(connection -> {
+                    DatabaseMetaData metaData = connection.getMetaData();
+                    return metaData.getURL();
+                });
+    }
+}
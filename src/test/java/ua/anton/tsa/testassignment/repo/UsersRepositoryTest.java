@@ -0,0 +1,191 @@
+package ua.anton.tsa.testassignment.repo;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ua.anton.tsa.testassignment.model.User;
+import ua.anton.tsa.testassignment.wire.request.ModifyUserRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ua.anton.tsa.testassignment.UserFixture.USER_VALID;
+
+/**
+ * Class with concurrency tests for {@link UsersRepository} against an embedded database
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class UsersRepositoryTest {
+
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS = 20;
+
+    private final UsersRepository usersRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Long id;
+
+    @BeforeEach
+    void saveUser() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        id = usersRepository.save(user(null, USER_VALID.getEmail())).getId();
+    }
+
+    @AfterEach
+    void deleteUsers() {
+        usersRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN stored user with version 0
+            WHEN many threads replace it expecting version 0 at the same time
+            THEN exactly one replace wins and the version is incremented once
+            """)
+    void replaceIfChangedConcurrently() throws Exception {
+        // GIVEN
+        List<Callable<Integer>> replaces = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            User user = user(id, "thread" + thread + "@gmail.com");
+            replaces.add(() -> transactionTemplate.execute(status -> usersRepository.replaceIfChanged(user, 0L)));
+        }
+
+        // WHEN
+        List<Integer> updated = runConcurrently(replaces);
+
+        // THEN
+        assertThat(updated.stream().mapToInt(Integer::intValue).sum()).isEqualTo(1);
+        assertThat(usersRepository.findVersionById(id)).contains(1L);
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN stored user
+            WHEN many threads modify it in read-version / conditional-update loops
+            THEN no update is lost and the version equals the number of successful updates
+            """)
+    void updateAttributesConcurrently() throws Exception {
+        // GIVEN
+        List<Callable<Integer>> modifies = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            String address = "Thread " + thread;
+            modifies.add(() -> {
+                int updated = 0;
+                for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+                    Long version = usersRepository.findVersionById(id).orElseThrow();
+                    updated += transactionTemplate.execute(status ->
+                            usersRepository.updateAttributes(id, modifyAddress(Optional.of(address)), version));
+                }
+                return updated;
+            });
+        }
+
+        // WHEN
+        List<Integer> updated = runConcurrently(modifies);
+
+        // THEN
+        long total = updated.stream().mapToInt(Integer::intValue).sum();
+        assertThat(total).isPositive();
+        assertThat(usersRepository.findVersionById(id)).contains(total);
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN stored user
+            WHEN replace it with identical values and without expected version
+            THEN nothing is updated and the version is kept
+            """)
+    void replaceIfChangedIdentical() {
+        // GIVEN
+        User user = user(id, USER_VALID.getEmail());
+
+        // WHEN
+        Integer updated = transactionTemplate.execute(status -> usersRepository.replaceIfChanged(user, null));
+
+        // THEN
+        assertThat(updated).isZero();
+        assertThat(usersRepository.findVersionById(id)).contains(0L);
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN stored user with address
+            WHEN modify it with null address
+            THEN only the address is removed and the version is incremented
+            """)
+    void updateAttributesRemovesAddress() {
+        // GIVEN
+        ModifyUserRequest modifyUserRequest = modifyAddress(Optional.empty());
+
+        // WHEN
+        Integer updated = transactionTemplate.execute(status ->
+                usersRepository.updateAttributes(id, modifyUserRequest, 0L));
+
+        // THEN
+        assertThat(updated).isEqualTo(1);
+        User user = usersRepository.findById(id).orElseThrow();
+        assertThat(user.getAddress()).isNull();
+        assertThat(user.getPhoneNumber()).isEqualTo(USER_VALID.getPhoneNumber());
+        assertThat(user.getVersion()).isEqualTo(1L);
+    }
+
+    private static <T> List<T> runConcurrently(List<Callable<T>> tasks) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<T>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(tasks.size())) {
+            for (Callable<T> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+        }
+        List<T> results = new ArrayList<>();
+        for (Future<T> future : futures) {
+            results.add(future.get());
+        }
+        return results;
+    }
+
+    private static User user(Long id, String email) {
+        return User.builder()
+                .id(id)
+                .email(email)
+                .firstName(USER_VALID.getFirstName())
+                .lastName(USER_VALID.getLastName())
+                .birthDate(USER_VALID.getBirthDate())
+                .address(USER_VALID.getAddress())
+                .phoneNumber(USER_VALID.getPhoneNumber())
+                .build();
+    }
+
+    @SuppressWarnings("OptionalUsedAsFieldOrParameterType")
+    private static ModifyUserRequest modifyAddress(Optional<String> address) {
+        return ModifyUserRequest.builder()
+                .address(address)
+                .build();
+    }
+}
@@ -0,0 +1,86 @@
+package ua.anton.tsa.testassignment.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import ua.anton.tsa.testassignment.configuration.ReplicationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ua.anton.tsa.testassignment.UserFixture.USER_ID_INVALID;
+import static ua.anton.tsa.testassignment.UserFixture.USER_ID_VALID;
+
+/**
+ * Class with unit tests for {@link RecentWrites}
+ */
+class RecentWritesTest {
+
+    private static final Duration MAX_LAG = Duration.ofMillis(200);
+    private static final String SESSION_HEADER = "X-Session-Token";
+    private static final List<ReplicationProperties.Replica> REPLICAS =
+            List.of(new ReplicationProperties.Replica("jdbc:postgresql://localhost:5433/usrdb", null, null));
+
+    @BeforeEach
+    void beginTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void endTransaction() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN replicas and a user written inside a transaction
+            WHEN the transaction is committed
+            THEN only the written user is recent, until replication lag has passed since the commit
+            """)
+    void recordCommitted() throws InterruptedException {
+        // GIVEN
+        RecentWrites recentWrites = new RecentWrites(new ReplicationProperties(REPLICAS, MAX_LAG, SESSION_HEADER));
+        recentWrites.record(USER_ID_VALID);
+
+        // WHEN
+        Thread.sleep(MAX_LAG.toMillis());
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        // THEN
+        assertThat(recentWrites.contains(USER_ID_VALID)).isTrue();
+        assertThat(recentWrites.contains(USER_ID_INVALID)).isFalse();
+        Thread.sleep(MAX_LAG.toMillis());
+        assertThat(recentWrites.contains(USER_ID_VALID)).isFalse();
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN no replicas
+            WHEN a user is written
+            THEN the user is not recorded
+            """)
+    void recordWithoutReplicas() {
+        // GIVEN
+        RecentWrites recentWrites = new RecentWrites(new ReplicationProperties(null, MAX_LAG, SESSION_HEADER));
+
+        // WHEN
+        recentWrites.record(USER_ID_VALID);
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        // THEN
+        assertThat(recentWrites.contains(USER_ID_VALID)).isFalse();
+    }
+
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+        }
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, status);
+    }
+}
@@ -11,30 +11,42 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.context.ConfigDataApplicationContextInitializer;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.PropertyResolver;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
 import org.springframework.web.client.HttpClientErrorException;
+import ua.anton.tsa.testassignment.configuration.ReplicationProperties;
 import ua.anton.tsa.testassignment.configuration.UserProperties;
 import ua.anton.tsa.testassignment.exceptions.InvalidPeriodException;
 import ua.anton.tsa.testassignment.exceptions.MinAgeException;
 import ua.anton.tsa.testassignment.mapper.UserMapper;
 import ua.anton.tsa.testassignment.mapper.UserMapperImpl;
-import ua.anton.tsa.testassignment.repo.UsersRepository;
+import ua.anton.tsa.testassignment.model.User;
+import ua.anton.tsa.testassignment.repo.UsersStorage;
+import ua.anton.tsa.testassignment.wire.request.CreateUserRequest;
+import ua.anton.tsa.testassignment.wire.response.CreateUsersBatchResponse;
 import ua.anton.tsa.testassignment.wire.response.RetrieveUsersResponse;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
-import static java.lang.Boolean.FALSE;
-import static java.lang.Boolean.TRUE;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.*;
 import static ua.anton.tsa.testassignment.UserFixture.*;
+import static ua.anton.tsa.testassignment.configuration.CacheConfiguration.USERS_CACHE;
 
 /**
  * Class with unit tests for {@link UsersService}
@@ -42,14 +54,17 @@ import static ua.anton.tsa.testassignment.UserFixture.*;
 @SpringJUnitConfig(
         classes = {
                 UsersService.class,
-                UserMapperImpl.class
+                UserMapperImpl.class,
+                LocalValidatorFactoryBean.class,
+                UserRules.class,
+                UserServiceTest.CachingConfiguration.class
         },
         initializers = ConfigDataApplicationContextInitializer.class
 )
-@EnableConfigurationProperties(UserProperties.class)
+@EnableConfigurationProperties({UserProperties.class, ReplicationProperties.class})
 @MockBean(
         classes = {
-                UsersRepository.class,
+                UsersStorage.class,
                 UserMapperImpl.class
         },
         answer = Answers.RETURNS_SMART_NULLS
@@ -57,13 +72,28 @@ import static ua.anton.tsa.testassignment.UserFixture.*;
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 class UserServiceTest {
 
-    private final UsersRepository usersRepository;
+    private final UsersStorage usersStorage;
     private final UserMapper userMapper;
     private final UsersService usersService;
 
     @Autowired
     private PropertyResolver propertyResolver;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @MockBean(name = "recentWrites")
+    private RecentWrites recentWrites;
+
+    @Configuration
+    @EnableCaching
+    static class CachingConfiguration {
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager(USERS_CACHE);
+        }
+    }
+
     @SneakyThrows
     @Test
     @DisplayName("""
@@ -74,7 +104,7 @@ class UserServiceTest {
     void createUserValid() {
         // GIVEN
         given(userMapper.toUser(CREATE_USER_REQUEST_VALID)).willReturn(USER_MAPPED_VALID);
-        given(usersRepository.save(USER_MAPPED_VALID)).willReturn(USER_VALID);
+        given(usersStorage.save(USER_MAPPED_VALID)).willReturn(USER_VALID);
 
         // WHEN
         Long actualResponse = usersService.create(CREATE_USER_REQUEST_VALID);
@@ -92,7 +122,7 @@ class UserServiceTest {
     void createUserInvalidAge() {
         // GIVEN
         given(userMapper.toUser(CREATE_USER_REQUEST_INVALID_AGE)).willReturn(USER_MAPPED_INVALID_AGE);
-        given(usersRepository.save(USER_MAPPED_INVALID_AGE)).willReturn(USER_INVALID_AGE);
+        given(usersStorage.save(USER_MAPPED_INVALID_AGE)).willReturn(USER_INVALID_AGE);
 
         // WHEN
         Exception actualException = assertThrows(
@@ -113,7 +143,7 @@ class UserServiceTest {
     void createJDBCException() {
         // GIVEN
         given(userMapper.toUser(CREATE_USER_REQUEST_VALID)).willReturn(USER_MAPPED_VALID);
-        given(usersRepository.save(USER_MAPPED_VALID))
+        given(usersStorage.save(USER_MAPPED_VALID))
                 .willThrow(new JDBCConnectionException(STORAGE_EXCEPTION_MESSAGE, new SQLException()));
 
         // WHEN
@@ -126,24 +156,86 @@ class UserServiceTest {
     }
 
 
+    @Test
+    @DisplayName("""
+            GIVEN batch of valid, invalid and too young createUserRequest objects
+            WHEN perform createAll
+            THEN insert only valid object and return errors for the rest
+            """)
+    void createAllUsers() {
+        // GIVEN
+        given(userMapper.toUser(CREATE_USER_REQUEST_VALID)).willReturn(USER_MAPPED_VALID);
+        given(usersStorage.saveAllAndFlush(List.of(USER_MAPPED_VALID))).willReturn(List.of(USER_VALID));
+
+        // WHEN
+        CreateUsersBatchResponse actualResponse = usersService.createAll(CREATE_USERS_BATCH_REQUEST);
+
+        // THEN
+        assertThat(actualResponse).isEqualTo(CREATE_USERS_BATCH_RESPONSE);
+        verify(usersStorage).detach(USER_VALID);
+        verify(userMapper, never()).toUser(CREATE_USER_REQUEST_INVALID_AGE);
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN batch of valid createUserRequest object and null item
+            WHEN perform createAll
+            THEN insert only valid object and return error for null item
+            """)
+    void createAllUsersNullItem() {
+        // GIVEN
+        given(userMapper.toUser(CREATE_USER_REQUEST_VALID)).willReturn(USER_MAPPED_VALID);
+        given(usersStorage.saveAllAndFlush(List.of(USER_MAPPED_VALID))).willReturn(List.of(USER_VALID));
+
+        // WHEN
+        CreateUsersBatchResponse actualResponse = usersService.createAll(CREATE_USERS_BATCH_REQUEST_NULL_ITEM);
+
+        // THEN
+        assertThat(actualResponse).isEqualTo(CREATE_USERS_BATCH_NULL_ITEM_RESPONSE);
+        verify(userMapper, never()).toUser((CreateUserRequest) null);
+    }
+
     @Test
     @SneakyThrows
     @DisplayName("""
             GIVEN valid id and valid replaceUserRequest
             WHEN perform replace
-            THEN verify that usersRepository calls method save
+            THEN verify that usersStorage updates the entry by a single statement
             """)
     void replaceUserValid() {
         // GIVEN
         given(userMapper.toUser(USER_ID_VALID, REPLACE_USER_REQUEST_VALID)).willReturn(USER_VALID);
-        given(usersRepository.existsById(USER_ID_VALID)).willReturn(TRUE);
-        given(usersRepository.save(USER_VALID)).willReturn(USER_VALID);
+        given(usersStorage.replaceIfChanged(USER_VALID, null)).willReturn(1);
+
+        // WHEN
+        usersService.replace(USER_ID_VALID, REPLACE_USER_REQUEST_VALID, null);
+
+        // THEN
+        verify(usersStorage).replaceIfChanged(USER_VALID, null);
+        verify(usersStorage, never()).findVersionById(any());
+        verify(usersStorage, never()).save(any());
+        verify(recentWrites).record(USER_ID_VALID);
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("""
+            GIVEN valid id and replaceUserRequest identical to the stored entry
+            WHEN perform replace
+            THEN nothing is updated and no exception is thrown
+            """)
+    void replaceUserUnchanged() {
+        // GIVEN
+        given(userMapper.toUser(USER_ID_VALID, REPLACE_USER_REQUEST_VALID)).willReturn(USER_VALID);
+        given(usersStorage.replaceIfChanged(USER_VALID, USER_VERSION)).willReturn(0);
+        given(usersStorage.findVersionById(USER_ID_VALID)).willReturn(Optional.of(USER_VERSION));
 
         // WHEN
-        usersService.replace(USER_ID_VALID, REPLACE_USER_REQUEST_VALID);
+        usersService.replace(USER_ID_VALID, REPLACE_USER_REQUEST_VALID, USER_VERSION);
 
         // THEN
-        verify(usersRepository).save(USER_VALID);
+        verify(usersStorage).findVersionById(USER_ID_VALID);
+        verify(usersStorage, never()).save(any());
     }
 
     @Test
@@ -154,16 +246,18 @@ class UserServiceTest {
             """)
     void replaceUserInvalidId() {
         // GIVEN
-        given(usersRepository.existsById(USER_ID_INVALID)).willReturn(FALSE);
+        given(userMapper.toUser(USER_ID_INVALID, REPLACE_USER_REQUEST_VALID)).willReturn(USER_VALID);
+        given(usersStorage.replaceIfChanged(USER_VALID, null)).willReturn(0);
+        given(usersStorage.findVersionById(USER_ID_INVALID)).willReturn(Optional.empty());
 
         // WHEN
         HttpClientErrorException exception = assertThrows(
                 HttpClientErrorException.class,
-                () -> usersService.replace(USER_ID_INVALID, REPLACE_USER_REQUEST_VALID));
+                () -> usersService.replace(USER_ID_INVALID, REPLACE_USER_REQUEST_VALID, null));
 
         // THEN
         assertThat(exception.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
-        assertThat(exception.getStatusText()).isEqualTo(NOT_FOUND_EXCEPTION_MESSAGE);
+        assertThat(exception.getStatusText()).isEqualTo(USER_NOT_FOUND_EXCEPTION_MESSAGE);
     }
 
     @Test
@@ -174,16 +268,16 @@ class UserServiceTest {
             """)
     void replaceUserInvalidAge() {
         // GIVEN
-        given(usersRepository.existsById(USER_ID_VALID)).willReturn(TRUE);
 
         // WHEN
         Exception exception = assertThrows(
                 MinAgeException.class,
-                () -> usersService.replace(USER_ID_VALID, REPLACE_USER_REQUEST_INVALID_AGE));
+                () -> usersService.replace(USER_ID_VALID, REPLACE_USER_REQUEST_INVALID_AGE, null));
 
         // THEN
         assertThat(exception.getMessage()).isEqualTo(
                 MIN_AGE_EXCEPTION_MESSAGE + propertyResolver.getProperty("user.age.min"));
+        verify(usersStorage, never()).replaceIfChanged(any(), any());
     }
 
     @Test
@@ -194,34 +288,59 @@ class UserServiceTest {
             """)
     void replaceUserJDBCException() {
         // GIVEN
-        given(usersRepository.existsById(USER_ID_VALID))
+        given(userMapper.toUser(USER_ID_VALID, REPLACE_USER_REQUEST_VALID)).willReturn(USER_VALID);
+        given(usersStorage.replaceIfChanged(USER_VALID, null))
                 .willThrow(new JDBCConnectionException(STORAGE_EXCEPTION_MESSAGE, new SQLException()));
 
         // WHEN
         Exception actualException = assertThrows(
                 JDBCException.class,
-                () -> usersService.replace(USER_ID_VALID, REPLACE_USER_REQUEST_VALID));
+                () -> usersService.replace(USER_ID_VALID, REPLACE_USER_REQUEST_VALID, null));
 
         // THEN
         assertThat(actualException.getMessage()).isEqualTo(STORAGE_EXCEPTION_MESSAGE);
     }
 
+    @Test
+    @DisplayName("""
+            GIVEN valid id, valid replaceUserRequest and stale expected version
+            WHEN perform replace
+            THEN return Precondition Failed exception
+            """)
+    void replaceUserStaleVersion() {
+        // GIVEN
+        given(userMapper.toUser(USER_ID_VALID, REPLACE_USER_REQUEST_VALID)).willReturn(USER_VALID);
+        given(usersStorage.replaceIfChanged(USER_VALID, USER_VERSION_STALE)).willReturn(0);
+        given(usersStorage.findVersionById(USER_ID_VALID)).willReturn(Optional.of(USER_VERSION));
+
+        // WHEN
+        HttpClientErrorException exception = assertThrows(
+                HttpClientErrorException.class,
+                () -> usersService.replace(USER_ID_VALID, REPLACE_USER_REQUEST_VALID, USER_VERSION_STALE));
+
+        // THEN
+        assertThat(exception.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        assertThat(exception.getStatusText()).isEqualTo(PRECONDITION_FAILED_EXCEPTION_MESSAGE);
+    }
+
     @Test
     @SneakyThrows
     @DisplayName("""
             GIVEN valid id and valid modifyUserRequest object
             WHEN modify
-            THEN verify that userRepository calls method save
+            THEN verify that usersStorage updates only supplied attributes without loading the entry
             """)
     void modifyUserValid() {
         // GIVEN
-        given(usersRepository.findById(USER_ID_VALID)).willReturn(Optional.of(USER_VALID));
-        given(userMapper.toUser(USER_VALID, MODIFY_USER_REQUEST_VALID)).willReturn(USER_VALID);
+        given(usersStorage.updateAttributes(USER_ID_VALID, MODIFY_USER_REQUEST_VALID, null)).willReturn(1);
 
         // WHEN
-        usersService.modify(USER_ID_VALID, MODIFY_USER_REQUEST_VALID);
+        usersService.modify(USER_ID_VALID, MODIFY_USER_REQUEST_VALID, null);
         // THEN
-        verify(usersRepository).save(USER_VALID);
+        verify(usersStorage).updateAttributes(USER_ID_VALID, MODIFY_USER_REQUEST_VALID, null);
+        verify(usersStorage, never()).findById(any());
+        verify(usersStorage, never()).save(any());
+        verify(recentWrites).record(USER_ID_VALID);
     }
 
     @Test
@@ -232,16 +351,40 @@ class UserServiceTest {
             """)
     void modifyUserInvalidId() {
         // GIVEN
-        given(usersRepository.findById(USER_ID_VALID)).willReturn(Optional.empty());
+        given(usersStorage.updateAttributes(USER_ID_INVALID, MODIFY_USER_REQUEST_VALID, null))
+                .willReturn(0);
+        given(usersStorage.findVersionById(USER_ID_INVALID)).willReturn(Optional.empty());
 
         // WHEN
         HttpClientErrorException exception = assertThrows(
                 HttpClientErrorException.class,
-                () -> usersService.modify(USER_ID_INVALID, MODIFY_USER_REQUEST_VALID));
+                () -> usersService.modify(USER_ID_INVALID, MODIFY_USER_REQUEST_VALID, null));
 
         // THEN
         assertThat(exception.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
-        assertThat(exception.getStatusText()).isEqualTo(NOT_FOUND_EXCEPTION_MESSAGE);
+        assertThat(exception.getStatusText()).isEqualTo(USER_NOT_FOUND_EXCEPTION_MESSAGE);
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN valid id, valid modifyUserRequest object and stale expected version
+            WHEN modify
+            THEN return Precondition Failed exception
+            """)
+    void modifyUserStaleVersion() {
+        // GIVEN
+        given(usersStorage.updateAttributes(USER_ID_VALID, MODIFY_USER_REQUEST_VALID, USER_VERSION_STALE))
+                .willReturn(0);
+        given(usersStorage.findVersionById(USER_ID_VALID)).willReturn(Optional.of(USER_VERSION));
+
+        // WHEN
+        HttpClientErrorException exception = assertThrows(
+                HttpClientErrorException.class,
+                () -> usersService.modify(USER_ID_VALID, MODIFY_USER_REQUEST_VALID, USER_VERSION_STALE));
+
+        // THEN
+        assertThat(exception.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        verify(usersStorage, never()).save(any());
     }
 
     @Test
@@ -256,7 +399,7 @@ class UserServiceTest {
         // WHEN
         Exception exception = assertThrows(
                 MinAgeException.class,
-                () -> usersService.modify(USER_ID_VALID, MODIFY_USER_REQUEST_INVALID_AGE));
+                () -> usersService.modify(USER_ID_VALID, MODIFY_USER_REQUEST_INVALID_AGE, null));
 
         // THEN
         assertThat(exception.getMessage()).isEqualTo(
@@ -271,13 +414,13 @@ class UserServiceTest {
             """)
     void modifyUserJDBCException() {
         // GIVEN
-        given(usersRepository.findById(USER_ID_VALID))
+        given(usersStorage.updateAttributes(USER_ID_VALID, MODIFY_USER_REQUEST_VALID, null))
                 .willThrow(new JDBCConnectionException(STORAGE_EXCEPTION_MESSAGE, new SQLException()));
 
         // WHEN
         Exception actualException = assertThrows(
                 JDBCException.class,
-                () -> usersService.modify(USER_ID_VALID, MODIFY_USER_REQUEST_VALID));
+                () -> usersService.modify(USER_ID_VALID, MODIFY_USER_REQUEST_VALID, null));
 
         // THEN
         assertThat(actualException.getMessage()).isEqualTo(STORAGE_EXCEPTION_MESSAGE);
@@ -288,22 +431,80 @@ class UserServiceTest {
     @DisplayName("""
             GIVEN valid paging, valid from and valid to params
             WHEN retrieve
-            THEN return a page of objects
+            THEN return a page of entries without mapping them
             """)
     void retrieveUsersValid() {
         // GIVEN
-        given(usersRepository.findAllByBirthDateBetween(any(), any(), any())).willReturn(USERS_PAGE);
-        given(userMapper.toRetrieveUsersResponse(USERS_PAGE_RESPONSE.getContent().getFirst()))
-                .willReturn(FIRST_RETRIEVE_USER_RESPONSE);
-        given(userMapper.toRetrieveUsersResponse(USERS_PAGE_RESPONSE.getContent().getLast()))
-                .willReturn(SECOND_RETRIEVE_USER_RESPONSE);
+        given(usersStorage.findAllByBirthDateBetween(any(), any(), any())).willReturn(USERS_PAGE);
+        // WHEN
+        Page<User> actualResponse = usersService.retrieve(PAGE_REQUEST, FROM_VALID, FROM_INVALID);
+
+        // THEN
+        assertThat(actualResponse.getTotalElements()).isEqualTo(USERS_PAGE.getTotalElements());
+        assertThat(actualResponse.getTotalPages()).isEqualTo(USERS_PAGE.getTotalPages());
+        assertThat(actualResponse.getContent()).isEqualTo(USERS_LIST);
+        verify(userMapper, never()).toRetrieveUsersResponse(any());
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("""
+            GIVEN valid paging, valid from and valid to params
+            WHEN retrieve slice
+            THEN return a slice of objects without running count query
+            """)
+    void retrieveUsersSliceValid() {
+        // GIVEN
+        given(usersStorage.findSliceByBirthDateBetween(FROM_VALID, TO_VALID, PAGE_REQUEST)).willReturn(USERS_SLICE);
+
+        // WHEN
+        Slice<User> actualResponse = usersService.retrieveSlice(PAGE_REQUEST, FROM_VALID, TO_VALID);
+
+        // THEN
+        assertThat(actualResponse.getContent()).isEqualTo(USERS_LIST);
+        assertThat(actualResponse.hasNext()).isFalse();
+        verify(usersStorage, never()).findAllByBirthDateBetween(any(), any(), any());
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("""
+            GIVEN page size, valid from and valid to and no cursor
+            WHEN retrieve by keyset
+            THEN return the first slice with next page flag
+            """)
+    void retrieveUsersKeysetFirstPage() {
+        // GIVEN
+        given(usersStorage.findKeysetPage(FROM_VALID, TO_VALID, KEYSET_PAGE_SIZE + 1)).willReturn(USERS_LIST);
+
+        // WHEN
+        Slice<User> actualResponse = usersService.retrieve(KEYSET_PAGE_SIZE, FROM_VALID, TO_VALID, null);
+
+        // THEN
+        assertThat(actualResponse.getContent()).containsExactly(FIRST_USER);
+        assertThat(actualResponse.hasNext()).isTrue();
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("""
+            GIVEN page size, valid from and valid to and cursor of the last seen user
+            WHEN retrieve by keyset
+            THEN return the last slice seeking after the cursor
+            """)
+    void retrieveUsersKeysetAfterCursor() {
+        // GIVEN
+        given(usersStorage.findKeysetPageAfter(
+                FROM_VALID, TO_VALID, KEYSET_CURSOR.birthDate(), KEYSET_CURSOR.id(), KEYSET_PAGE_SIZE + 1))
+                .willReturn(List.of(SECOND_USER));
+
         // WHEN
-        Page<RetrieveUsersResponse> actualResponse = usersService.retrieve(PAGE_REQUEST, FROM_VALID, FROM_INVALID);
+        Slice<User> actualResponse = usersService.retrieve(KEYSET_PAGE_SIZE, FROM_VALID, TO_VALID, KEYSET_CURSOR);
 
         // THEN
-        assertThat(actualResponse.getTotalElements()).isEqualTo(RETRIEVE_USERS_RESPONSE_PAGEABLE.getTotalElements());
-        assertThat(actualResponse.getTotalPages()).isEqualTo(RETRIEVE_USERS_RESPONSE_PAGEABLE.getTotalPages());
-        assertThat(actualResponse.getContent()).isEqualTo(RETRIEVE_USERS_RESPONSE_PAGEABLE.getContent());
+        assertThat(actualResponse.getContent()).containsExactly(SECOND_USER);
+        assertThat(actualResponse.hasNext()).isFalse();
+        verify(usersStorage, never()).findAllByBirthDateBetween(any(), any(), any());
     }
 
     @Test
@@ -334,7 +535,7 @@ class UserServiceTest {
             """)
     void retrieveUsersJDBCException() {
         // GIVEN
-        given(usersRepository.findAllByBirthDateBetween(any(),any(),any()))
+        given(usersStorage.findAllByBirthDateBetween(any(),any(),any()))
                 .willThrow(new JDBCConnectionException(STORAGE_EXCEPTION_MESSAGE, new SQLException()));
 
         // WHEN
@@ -346,23 +547,192 @@ class UserServiceTest {
         assertThat(actualException.getMessage()).isEqualTo(STORAGE_EXCEPTION_MESSAGE);
     }
 
+    @Test
+    @SneakyThrows
+    @DisplayName("""
+            GIVEN valid from and valid to
+            WHEN export
+            THEN pass every user to the consumer and detach it afterwards
+            """)
+    void exportUsersValid() {
+        // GIVEN
+        given(usersStorage.streamAllByBirthDateBetweenOrderByBirthDateAscIdAsc(FROM_VALID, TO_VALID))
+                .willReturn(USERS_LIST.stream());
+        given(userMapper.toRetrieveUsersResponse(FIRST_USER)).willReturn(FIRST_RETRIEVE_USER_RESPONSE);
+        given(userMapper.toRetrieveUsersResponse(SECOND_USER)).willReturn(SECOND_RETRIEVE_USER_RESPONSE);
+        List<RetrieveUsersResponse> actualResponse = new ArrayList<>();
+
+        // WHEN
+        usersService.export(FROM_VALID, TO_VALID, actualResponse::add);
+
+        // THEN
+        assertThat(actualResponse).isEqualTo(RETRIEVE_USERS_RESPONSE);
+        verify(usersStorage).detach(FIRST_USER);
+        verify(usersStorage).detach(SECOND_USER);
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN invalid from and invalid to
+            WHEN export
+            THEN throw InvalidPeriodException without touching storage
+            """)
+    void exportUsersInvalidParams() {
+        // GIVEN
+
+        // WHEN
+        InvalidPeriodException actualException = assertThrows(
+                InvalidPeriodException.class,
+                () -> usersService.export(FROM_INVALID, TO_INVALID, user -> {}));
+
+        // THEN
+        assertThat(actualException.getMessage()).isEqualTo(INVALID_PERIOD_EXCEPTION_MESSAGE);
+        verify(usersStorage, never()).streamAllByBirthDateBetweenOrderByBirthDateAscIdAsc(any(), any());
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN valid id
+            WHEN retrieve twice
+            THEN return the user and load it from storage only once
+            """)
+    void retrieveUserValid() {
+        // GIVEN
+        cacheManager.getCache(USERS_CACHE).clear();
+        given(usersStorage.findById(USER_ID_VALID)).willReturn(Optional.of(USER_VALID));
+        given(userMapper.toRetrieveUsersResponse(USER_VALID)).willReturn(FIRST_RETRIEVE_USER_RESPONSE);
+
+        // WHEN
+        RetrieveUsersResponse first = usersService.retrieve(USER_ID_VALID);
+        RetrieveUsersResponse second = usersService.retrieve(USER_ID_VALID);
+
+        // THEN
+        assertThat(first).isEqualTo(FIRST_RETRIEVE_USER_RESPONSE);
+        assertThat(second).isEqualTo(FIRST_RETRIEVE_USER_RESPONSE);
+        verify(usersStorage, times(1)).findById(USER_ID_VALID);
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN user written within replication lag
+            WHEN retrieve twice
+            THEN the user is loaded from storage every time and is not cached
+            """)
+    void retrieveUserWrittenRecently() {
+        // GIVEN
+        cacheManager.getCache(USERS_CACHE).clear();
+        given(recentWrites.contains(USER_ID_VALID)).willReturn(true);
+        given(usersStorage.findById(USER_ID_VALID)).willReturn(Optional.of(USER_VALID));
+        given(userMapper.toRetrieveUsersResponse(USER_VALID)).willReturn(FIRST_RETRIEVE_USER_RESPONSE);
+
+        // WHEN
+        RetrieveUsersResponse first = usersService.retrieve(USER_ID_VALID);
+        RetrieveUsersResponse second = usersService.retrieve(USER_ID_VALID);
+
+        // THEN
+        assertThat(first).isEqualTo(FIRST_RETRIEVE_USER_RESPONSE);
+        assertThat(second).isEqualTo(FIRST_RETRIEVE_USER_RESPONSE);
+        assertThat(cacheManager.getCache(USERS_CACHE).get(USER_ID_VALID)).isNull();
+        verify(usersStorage, times(2)).findById(USER_ID_VALID);
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN cached user
+            WHEN remove and retrieve
+            THEN cached entry is evicted and the user is loaded from storage again
+            """)
+    void retrieveUserEvictedByRemove() {
+        // GIVEN
+        cacheManager.getCache(USERS_CACHE).clear();
+        given(usersStorage.findById(USER_ID_VALID)).willReturn(Optional.of(USER_VALID));
+        given(userMapper.toRetrieveUsersResponse(USER_VALID)).willReturn(FIRST_RETRIEVE_USER_RESPONSE);
+        given(usersStorage.deleteUserById(USER_ID_VALID)).willReturn(1);
+        usersService.retrieve(USER_ID_VALID);
+
+        // WHEN
+        usersService.remove(USER_ID_VALID);
+        usersService.retrieve(USER_ID_VALID);
+
+        // THEN
+        assertThat(cacheManager.getCache(USERS_CACHE).get(USER_ID_VALID)).isNotNull();
+        verify(usersStorage, times(2)).findById(USER_ID_VALID);
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN invalid id
+            WHEN retrieve
+            THEN return Not Found exception and cache nothing
+            """)
+    void retrieveUserInvalidId() {
+        // GIVEN
+        cacheManager.getCache(USERS_CACHE).clear();
+        given(usersStorage.findById(USER_ID_INVALID)).willReturn(Optional.empty());
+
+        // WHEN
+        HttpClientErrorException exception = assertThrows(
+                HttpClientErrorException.class,
+                () -> usersService.retrieve(USER_ID_INVALID));
+
+        // THEN
+        assertThat(exception.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(cacheManager.getCache(USERS_CACHE).get(USER_ID_INVALID)).isNull();
+    }
+
     @Test
     @DisplayName("""
             GIVEN valid id
             WHEN remove
-            THEN verify that repository calls method deleteById
+            THEN verify that repository deletes the entry without loading it
             """)
     void removeUserValid() {
         // GIVEN
-        given(usersRepository.findById(anyLong())).willReturn(Optional.of(USER_VALID));
-        doNothing().when(usersRepository).delete(any());
+        given(usersStorage.deleteUserById(USER_ID_VALID)).willReturn(1);
 
         // WHEN
         usersService.remove(USER_ID_VALID);
 
         // THEN
-        verify(usersRepository).findById(USER_ID_VALID);
-        verify(usersRepository).delete(USER_VALID);
+        verify(usersStorage).deleteUserById(USER_ID_VALID);
+        verify(usersStorage, never()).findById(any());
+        verify(recentWrites).record(USER_ID_VALID);
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN writes counted by storage
+            WHEN version
+            THEN the number of writes is returned
+            """)
+    void versionCountsStorageChanges() {
+        // GIVEN
+        given(usersStorage.countChanges()).willReturn(WRITE_CHANGES);
+
+        // WHEN
+        String version = usersService.version();
+
+        // THEN
+        assertThat(version).isEqualTo(WRITE_VERSION);
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN invalid id
+            WHEN remove
+            THEN return Not Found exception
+            """)
+    void removeUserInvalidId() {
+        // GIVEN
+        given(usersStorage.deleteUserById(USER_ID_INVALID)).willReturn(0);
+
+        // WHEN
+        HttpClientErrorException exception = assertThrows(
+                HttpClientErrorException.class,
+                () -> usersService.remove(USER_ID_INVALID));
+
+        // THEN
+        assertThat(exception.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
     }
 
     @Test
@@ -374,7 +744,7 @@ class UserServiceTest {
     void removeUserJDBCException() {
         // GIVEN
         doThrow(new JDBCConnectionException(STORAGE_EXCEPTION_MESSAGE, new SQLException()))
-                .when(usersRepository).findById(USER_ID_VALID);
+                .when(usersStorage).deleteUserById(USER_ID_VALID);
 
         // WHEN
         Exception actualException = assertThrows(
@@ -0,0 +1,149 @@
+package ua.anton.tsa.testassignment.service;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import ua.anton.tsa.testassignment.configuration.CacheConfiguration;
+import ua.anton.tsa.testassignment.configuration.ReplicationProperties;
+import ua.anton.tsa.testassignment.configuration.UserProperties;
+import ua.anton.tsa.testassignment.mapper.UserMapperImpl;
+import ua.anton.tsa.testassignment.model.User;
+import ua.anton.tsa.testassignment.repo.UsersRepository;
+import ua.anton.tsa.testassignment.wire.response.RetrieveUsersResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ua.anton.tsa.testassignment.UserFixture.MODIFY_USER_REQUEST_VALID;
+import static ua.anton.tsa.testassignment.UserFixture.USER_VALID;
+import static ua.anton.tsa.testassignment.configuration.CacheConfiguration.USERS_CACHE;
+
+/**
+ * Class with tests of {@link UsersService} caching around the transactions of writes against an embedded database
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@Import({
+        UsersService.class,
+        UserMapperImpl.class,
+        UserRules.class,
+        LocalValidatorFactoryBean.class,
+        CacheConfiguration.class,
+        UsersServiceCacheTest.CachingConfiguration.class
+})
+@EnableConfigurationProperties({UserProperties.class, ReplicationProperties.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class UsersServiceCacheTest {
+
+    private final UsersService usersService;
+    private final UsersRepository usersRepository;
+    private final CacheManager cacheManager;
+    private final ReadingRecentWrites recentWrites;
+
+    private Long id;
+
+    @BeforeEach
+    void saveUser() {
+        id = usersRepository.save(User.builder()
+                .email(USER_VALID.getEmail())
+                .firstName(USER_VALID.getFirstName())
+                .lastName(USER_VALID.getLastName())
+                .birthDate(USER_VALID.getBirthDate())
+                .address(USER_VALID.getAddress())
+                .phoneNumber(USER_VALID.getPhoneNumber())
+                .build()).getId();
+    }
+
+    @AfterEach
+    void deleteUsers() {
+        usersRepository.deleteAll();
+        cacheManager.getCache(USERS_CACHE).clear();
+    }
+
+    @Test
+    @DisplayName("""
+            GIVEN stored user
+            WHEN modify it while another request reads and caches the user before the modification is committed
+            THEN the entry cached by that request is evicted and the next read returns the modified user
+            """)
+    void modifyEvictsAfterCommit() throws Exception {
+        // GIVEN
+        recentWrites.readOnRecord();
+
+        // WHEN
+        usersService.modify(id, MODIFY_USER_REQUEST_VALID, null);
+
+        // THEN
+        assertThat(recentWrites.readBeforeCommit().email()).isEqualTo(USER_VALID.getEmail());
+        assertThat(usersService.retrieve(id).email()).isEqualTo(MODIFY_USER_REQUEST_VALID.email().orElseThrow());
+    }
+
+    static class CachingConfiguration {
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager(USERS_CACHE);
+        }
+
+        @Bean
+        ReadingRecentWrites recentWrites(ReplicationProperties replicationProperties,
+                                         ObjectProvider<UsersService> usersService) {
+            return new ReadingRecentWrites(replicationProperties, usersService);
+        }
+    }
+
+    /**
+     * Reads the user by another thread right before the transaction that writes the user is committed
+     */
+    static class ReadingRecentWrites extends RecentWrites {
+        private final ObjectProvider<UsersService> usersService;
+        private final AtomicBoolean armed = new AtomicBoolean();
+        private volatile RetrieveUsersResponse read;
+
+        ReadingRecentWrites(ReplicationProperties replicationProperties, ObjectProvider<UsersService> usersService) {
+            super(replicationProperties);
+            this.usersService = usersService;
+        }
+
+        void readOnRecord() {
+            armed.set(true);
+        }
+
+        RetrieveUsersResponse readBeforeCommit() {
+            return read;
+        }
+
+        @Override
+        public void record(Long id) {
+            if (armed.compareAndSet(true, false)) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void beforeCommit(boolean readOnly) {
+                        read = CompletableFuture.supplyAsync(() -> usersService.getObject().retrieve(id)).join();
+                    }
+                });
+            }
+            super.record(id);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package ua.anton.tsa.testassignment.wire.response;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import ua.anton.tsa.testassignment.configuration.JacksonConfiguration;
+import ua.anton.tsa.testassignment.mapper.UserMapper;
+import ua.anton.tsa.testassignment.mapper.UserMapperImpl;
+import ua.anton.tsa.testassignment.model.User;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ua.anton.tsa.testassignment.UserFixture.USER_VALID;
+
+/**
+ * Class with tests for {@link PageResponse.Serializer}
+ */
+class PageResponseSerializerTest {
+
+    private final ObjectMapper objectMapper = new JacksonConfiguration().objectMapper();
+    private final UserMapper userMapper = new UserMapperImpl();
+
+    @Test
+    @DisplayName("""
+            GIVEN stored user
+            WHEN serialize a page of the user entity and the user mapped to RetrieveUsersResponse
+            THEN the page row is the same JSON as the response
+            """)
+    void userRowMatchesRetrieveUsersResponse() throws Exception {
+        // GIVEN
+        User user = User.builder()
+                .id(USER_VALID.getId())
+                .email(USER_VALID.getEmail())
+                .firstName(USER_VALID.getFirstName())
+                .lastName(USER_VALID.getLastName())
+                .birthDate(USER_VALID.getBirthDate())
+                .address(USER_VALID.getAddress())
+                .phoneNumber(USER_VALID.getPhoneNumber())
+                .version(3L)
+                .build();
+
+        // WHEN
+        JsonNode page = toTree(new PageResponse<>(new PageImpl<>(List.of(user), PageRequest.of(0, 1), 1)));
+        JsonNode response = toTree(userMapper.toRetrieveUsersResponse(user));
+
+        // THEN
+        assertThat(page.at("/response/data/0")).isEqualTo(response.get("response"));
+    }
+
+    private JsonNode toTree(Object value) throws Exception {
+        return objectMapper.reader()
+                .without(DeserializationFeature.UNWRAP_ROOT_VALUE)
+                .readTree(objectMapper.writeValueAsString(value));
+    }
+}